@@ -9,11 +9,14 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import com.bourhym.exambackend.entities.PersonalCredit;
 
 import java.util.Date;
+import java.util.List;
 
 @SpringBootApplication
+@EnableScheduling
 public class ExamBackendApplication {
 
     public static void main(String[] args) {
@@ -40,8 +43,8 @@ public class ExamBackendApplication {
             client2.setName("Marie Martin");
             client2.setEmail("marie.martin@example.com");
 
-            clientRepository.save(client1);
-            clientRepository.save(client2);
+            // Identifiants pré-alloués par le générateur de table : les insertions partent en lot
+            clientRepository.saveAll(List.of(client1, client2));
             System.out.println("2 clients créés avec succès !");
 
             // Création d'un crédit personnel
@@ -53,7 +56,6 @@ public class ExamBackendApplication {
             personalCredit.setDuration(24); // 24 mois
             personalCredit.setInterestRate(5.5);
             personalCredit.setClient(client1);
-            personalCreditRepository.save(personalCredit);
 
             // Création d'un crédit professionnel
             ProfessionalCredit professionalCredit = new ProfessionalCredit();
@@ -63,7 +65,6 @@ public class ExamBackendApplication {
             professionalCredit.setDuration(60); // 60 mois
             professionalCredit.setInterestRate(4.2);
             professionalCredit.setClient(client2);
-            professionalCreditRepository.save(professionalCredit);
 
             // Création d'un crédit immobilier
             RealEstateCredit realEstateCredit = new RealEstateCredit();
@@ -75,9 +76,6 @@ public class ExamBackendApplication {
             realEstateCredit.setInterestRate(3.1);
             realEstateCredit.setClient(client1);
             realEstateCredit.setPropertyType(RealEstateCredit.PropertyType.APARTMENT);
-            realEstateCreditRepository.save(realEstateCredit);
-
-            System.out.println("3 crédits créés avec succès !");
 
             // Création de remboursements pour le crédit personnel
             Repayment repayment1 = new Repayment();
@@ -85,14 +83,25 @@ public class ExamBackendApplication {
             repayment1.setAmount(500.0);
             repayment1.setType(RepaymentType.MONTHLY_PAYMENT);
             repayment1.setCredit(personalCredit);
-            repaymentRepository.save(repayment1);
 
             Repayment repayment2 = new Repayment();
             repayment2.setDate(new Date());
             repayment2.setAmount(2000.0);
             repayment2.setType(RepaymentType.EARLY_REPAYMENT);
             repayment2.setCredit(personalCredit);
-            repaymentRepository.save(repayment2);
+
+            List<Repayment> personalRepayments = List.of(repayment1, repayment2);
+
+            // Solde dénormalisé cohérent avec les remboursements créés
+            personalCredit.setTotalRepaid(personalRepayments.stream()
+                    .mapToDouble(Repayment::getAmount)
+                    .sum());
+
+            creditRepository.saveAll(List.of(personalCredit, professionalCredit, realEstateCredit));
+
+            System.out.println("3 crédits créés avec succès !");
+
+            repaymentRepository.saveAll(personalRepayments);
 
             System.out.println("2 remboursements créés avec succès !");
 
@@ -0,0 +1,85 @@
+package com.bourhym.exambackend.config;
+
+import com.bourhym.exambackend.entities.Client;
+import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.entities.Repayment;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache de second niveau Hibernate, local à chaque instance (JCache / Caffeine), activé par
+ * second-level-cache.enabled. Les régions sont créées ici, bornées en taille et en durée de vie :
+ * une région non déclarée fait échouer le démarrage plutôt que de créer un cache non borné.
+ */
+@Configuration
+@ConditionalOnProperty(name = "second-level-cache.enabled", havingValue = "true")
+public class SecondLevelCacheConfig {
+
+    // Régions des entités et collections en cache (les sous-classes de Credit partagent la région de Credit)
+    public static final List<String> DOMAIN_REGIONS = List.of(
+            Client.class.getName(),
+            Credit.class.getName(),
+            Credit.class.getName() + ".repayments",
+            Repayment.class.getName()
+    );
+
+    @Value("${second-level-cache.max-entries:10000}")
+    private long maxEntries;
+
+    @Value("${second-level-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager();
+        for (String region : DOMAIN_REGIONS) {
+            createIfAbsent(cacheManager, region, boundedConfiguration());
+        }
+        createIfAbsent(cacheManager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, boundedConfiguration());
+        // Horodatages des tables : jamais évincés, sinon des résultats de requêtes périmés pourraient être servis
+        createIfAbsent(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            // Les collections inverses (Credit.repayments) sont évincées quand un remboursement change
+            properties.put(AvailableSettings.AUTO_EVICT_COLLECTION_CACHE, true);
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    private CaffeineConfiguration<Object, Object> boundedConfiguration() {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        return configuration;
+    }
+
+    private static void createIfAbsent(CacheManager cacheManager, String region, CaffeineConfiguration<Object, Object> configuration) {
+        if (cacheManager.getCache(region) == null) {
+            cacheManager.createCache(region, configuration);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.bourhym.exambackend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tableau d'amortissement d'un crédit, par colonnes : l'élément i de chaque tableau
+ * correspond à l'échéance du mois i + 1.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AmortizationScheduleDTO {
+    private Long creditId;
+    private Double amount;
+    private Integer duration; // en mois
+    private Double interestRate;
+    private double monthlyInstallment;
+    private double totalInterest;
+    private double totalPayable;
+    private double[] installments;
+    private double[] interests;
+    private double[] principals;
+    private double[] outstandings; // Capital restant dû après chaque échéance
+}
@@ -0,0 +1,26 @@
+package com.bourhym.exambackend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Résultat du traitement d'une demande dans un envoi en lot.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCreditResultDTO {
+    private int index; // Position de la demande dans l'envoi
+    private boolean success;
+    private Long creditId; // null en cas d'échec
+    private String error; // null en cas de succès
+
+    public static BulkCreditResultDTO success(int index, Long creditId) {
+        return new BulkCreditResultDTO(index, true, creditId, null);
+    }
+
+    public static BulkCreditResultDTO failure(int index, String error) {
+        return new BulkCreditResultDTO(index, false, null, error);
+    }
+}
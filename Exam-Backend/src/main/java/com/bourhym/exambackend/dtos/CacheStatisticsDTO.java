@@ -0,0 +1,38 @@
+package com.bourhym.exambackend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Statistiques du cache de second niveau Hibernate, globales, du cache de requêtes et par région.
+ * Les taux de succès valent null tant qu'aucune lecture n'a eu lieu.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatisticsDTO {
+    private boolean enabled;
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+    private Double hitRatio;
+    private long queryCacheHitCount;
+    private long queryCacheMissCount;
+    private Double queryCacheHitRatio;
+    private List<Region> regions;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Region {
+        private String name;
+        private long hitCount;
+        private long missCount;
+        private long putCount;
+        private long elementCountInMemory;
+        private Double hitRatio;
+    }
+}
@@ -14,4 +14,9 @@ public class ClientDTO {
     private String name;
     private String email;
     private List<Long> creditIds; // IDs des crédits associés
+
+    // Constructeur utilisé par les projections JPQL (sans les IDs des crédits)
+    public ClientDTO(Long id, String name, String email) {
+        this(id, name, email, null);
+    }
 }
@@ -0,0 +1,25 @@
+package com.bourhym.exambackend.dtos;
+
+import com.bourhym.exambackend.entities.RealEstateCredit.PropertyType;
+import com.bourhym.exambackend.enums.CreditType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Demande de crédit soumise en lot : un seul format pour les trois types de crédit,
+ * les champs spécifiques étant ignorés lorsqu'ils ne concernent pas le type demandé.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditApplicationDTO {
+    private CreditType creditType;
+    private Long clientId;
+    private Double amount;
+    private Integer duration; // en mois
+    private Double interestRate;
+    private String reason; // Crédits personnels et professionnels
+    private String companyName; // Crédits professionnels
+    private PropertyType propertyType; // Crédits immobiliers
+}
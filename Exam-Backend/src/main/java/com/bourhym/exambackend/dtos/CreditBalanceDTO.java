@@ -0,0 +1,17 @@
+package com.bourhym.exambackend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Solde d'un crédit : total déjà remboursé et montant restant à payer.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditBalanceDTO {
+    private Long creditId;
+    private Double totalRepaid;
+    private Double outstanding;
+}
@@ -22,4 +22,10 @@ public class CreditDTO {
     private Long clientId;
     private List<Long> repaymentIds;
     private String creditType; // Utilisé pour identifier le type de crédit
+
+    // Constructeur utilisé par les projections JPQL (sans les IDs des remboursements)
+    public CreditDTO(Long id, Date requestDate, CreditStatus status, Date acceptanceDate, Double amount,
+                     Integer duration, Double interestRate, Long clientId, String creditType) {
+        this(id, requestDate, status, acceptanceDate, amount, duration, interestRate, clientId, null, creditType);
+    }
 }
@@ -0,0 +1,23 @@
+package com.bourhym.exambackend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Sélection des crédits à approuver ou rejeter en lot : une liste d'IDs, ou à défaut un filtre.
+ * Seuls les crédits en cours (IN_PROGRESS) sont concernés.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditDecisionRequestDTO {
+    private List<Long> ids;
+
+    // Filtre, utilisé uniquement si aucune liste d'IDs n'est fournie
+    private Long clientId;
+    private Double minAmount;
+    private Double maxAmount;
+}
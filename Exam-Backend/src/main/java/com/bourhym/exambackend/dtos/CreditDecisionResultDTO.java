@@ -0,0 +1,21 @@
+package com.bourhym.exambackend.dtos;
+
+import com.bourhym.exambackend.enums.CreditStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Résultat d'une approbation ou d'un rejet en lot.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditDecisionResultDTO {
+    private CreditStatus status; // Nouveau statut des crédits traités
+    private List<Long> transitionedIds; // Crédits dont le statut a effectivement changé
+    private List<Long> skippedIds; // IDs demandés mais inexistants ou plus en cours
+    private boolean truncated; // Filtre sélectionnant plus de MAX_BULK_SIZE crédits : relancer pour traiter la suite
+}
@@ -0,0 +1,66 @@
+package com.bourhym.exambackend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page de résultats paginée par curseur (keyset) sur l'identifiant.
+ * Le curseur est opaque pour le client : il suffit de le renvoyer dans le paramètre "after".
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private List<T> items;
+    private String nextCursor; // null s'il n'y a plus de résultats
+    private int limit;
+
+    /**
+     * Construit une page à partir de limit + 1 éléments lus : la présence d'un élément
+     * supplémentaire indique qu'une page suivante existe.
+     */
+    public static <T> CursorPage<T> of(List<T> fetched, int limit, Function<T, Long> idExtractor) {
+        if (fetched.size() <= limit) {
+            return new CursorPage<>(fetched, null, limit);
+        }
+        List<T> items = fetched.subList(0, limit);
+        return new CursorPage<>(items, encodeCursor(idExtractor.apply(items.get(limit - 1))), limit);
+    }
+
+    public static int clampLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    public static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return L'identifiant encodé dans le curseur, ou 0 si aucun curseur n'est fourni
+     * @throws IllegalArgumentException si le curseur est invalide
+     */
+    public static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return Long.parseLong(decoded);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.bourhym.exambackend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Rapport d'un import de remboursements. Les compteurs couvrent l'ensemble de l'import,
+ * y compris les tranches validées lors d'une exécution précédente ; le détail des lignes
+ * rejetées ne concerne que l'exécution courante et est tronqué au-delà d'une limite.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepaymentImportReportDTO {
+    private String importId;
+    private long resumedFromLine; // 0 pour un nouvel import
+    private long lastCommittedLine;
+    private long importedCount;
+    private long rejectedCount;
+    private boolean completed;
+    private List<RejectedLine> rejectedLines;
+    private boolean rejectedLinesTruncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RejectedLine {
+        private long line;
+        private String reason;
+    }
+}
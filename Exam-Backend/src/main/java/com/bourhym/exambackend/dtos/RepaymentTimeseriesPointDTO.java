@@ -0,0 +1,21 @@
+package com.bourhym.exambackend.dtos;
+
+import com.bourhym.exambackend.enums.RepaymentType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Point d'une série temporelle de remboursements : total et nombre pour une période
+ * (2024-03 ou 2024-Q1), un type de remboursement et un type de crédit.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepaymentTimeseriesPointDTO {
+    private String period;
+    private RepaymentType repaymentType;
+    private String creditType; // Nom du CreditType, ou CREDIT pour un crédit sans sous-classe
+    private Double totalAmount;
+    private Long count;
+}
@@ -5,16 +5,23 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "uk_client_email", columnList = "email", unique = true))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Client {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "client_id")
+    @TableGenerator(name = "client_id", table = "id_generator", pkColumnName = "entity",
+            valueColumnName = "next_val", pkColumnValue = "client", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -1,16 +1,26 @@
 package com.bourhym.exambackend.entities;
 
 import com.bourhym.exambackend.enums.CreditStatus;
+import com.bourhym.exambackend.utils.AmortizationMath;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Date;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_credit_status_id", columnList = "status, id"), // Filtres et pages par statut
+        @Index(name = "idx_credit_client_id", columnList = "client_id, id"),
+        @Index(name = "idx_credit_request_date", columnList = "request_date")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,7 +28,9 @@ import java.util.List;
 @DiscriminatorColumn(name = "CREDIT_TYPE")
 public class Credit {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "credit_id")
+    @TableGenerator(name = "credit_id", table = "id_generator", pkColumnName = "entity",
+            valueColumnName = "next_val", pkColumnValue = "credit", allocationSize = 50)
     private Long id;
 
     @Temporal(TemporalType.DATE)
@@ -34,11 +46,24 @@ public class Credit {
     private Integer duration; // in months
     private Double interestRate;
 
-    @ManyToOne
+    // Solde dénormalisé, maintenu à chaque remboursement et vérifié par CreditBalanceReconciler
+    private Double totalRepaid;
+    private Double outstanding; // null si le montant, la durée ou le taux sont invalides
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_id")
     private Client client;
 
     @OneToMany(mappedBy = "credit", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Repayment> repayments;
+
+    @PrePersist
+    void initBalance() {
+        if (totalRepaid == null) {
+            totalRepaid = 0.0;
+        }
+        outstanding = AmortizationMath.outstanding(amount, duration, interestRate, totalRepaid);
+    }
 }
 
@@ -0,0 +1,36 @@
+package com.bourhym.exambackend.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Réponse enregistrée pour une clé d'idempotence, partagée entre les instances de l'application.
+ * Un enregistrement non terminé (completed = false) signale une requête en cours de traitement.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_idempotency_record_expires_at", columnList = "expires_at")) // Purge des expirés
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    @Id
+    @Column(length = 64)
+    private String id; // SHA-256 de (utilisateur, méthode, chemin, clé)
+
+    @Column(length = 64)
+    private String requestHash; // SHA-256 des paramètres et du corps de la requête
+
+    private boolean completed;
+    private int status;
+    private String contentType;
+
+    @Lob
+    private byte[] body;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date expiresAt;
+}
@@ -6,16 +6,27 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Date;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_repayment_credit_type_date", columnList = "credit_id, type, date"), // Remboursements et sommes par crédit
+        @Index(name = "idx_repayment_type_id", columnList = "type, id"), // Filtres et pages par type
+        @Index(name = "idx_repayment_date", columnList = "date")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Repayment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "repayment_id")
+    @TableGenerator(name = "repayment_id", table = "id_generator", pkColumnName = "entity",
+            valueColumnName = "next_val", pkColumnValue = "repayment", allocationSize = 50)
     private Long id;
 
     @Temporal(TemporalType.DATE)
@@ -26,7 +37,7 @@ public class Repayment {
     @Enumerated(EnumType.STRING)
     private RepaymentType type;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "credit_id")
     private Credit credit;
 }
@@ -0,0 +1,29 @@
+package com.bourhym.exambackend.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Point de reprise d'un import de remboursements : mis à jour dans la transaction de chaque tranche,
+ * il permet de relancer un import interrompu sans réinsérer les lignes déjà validées.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepaymentImportCheckpoint {
+    @Id
+    private String importId;
+
+    private long lastCommittedLine; // Dernière ligne du fichier traitée dans une transaction validée
+    private long importedCount;
+    private long rejectedCount;
+    private boolean completed;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date updatedAt;
+}
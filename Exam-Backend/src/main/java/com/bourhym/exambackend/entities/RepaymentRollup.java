@@ -0,0 +1,23 @@
+package com.bourhym.exambackend.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Agrégat mensuel des remboursements, mis à jour dans la transaction de chaque insertion ou
+ * suppression de remboursement. Les séries temporelles sont lues ici plutôt que dans la table repayment.
+ */
+@Entity
+@Table(name = "repayment_rollup", indexes = @Index(name = "idx_repayment_rollup_month", columnList = "rollup_month"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepaymentRollup {
+    @EmbeddedId
+    private RepaymentRollupId id;
+
+    private double totalAmount;
+    private long repaymentCount;
+}
@@ -0,0 +1,30 @@
+package com.bourhym.exambackend.entities;
+
+import com.bourhym.exambackend.enums.RepaymentType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Clé d'agrégation des remboursements : mois, type de remboursement et code du type de crédit.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepaymentRollupId implements Serializable {
+    @Temporal(TemporalType.DATE)
+    @Column(name = "rollup_month")
+    private Date month; // Premier jour du mois
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 32)
+    private RepaymentType repaymentType;
+
+    @Column(length = 32)
+    private String creditType; // Nom du CreditType, ou CreditType.BASE_CODE pour un crédit sans sous-classe
+}
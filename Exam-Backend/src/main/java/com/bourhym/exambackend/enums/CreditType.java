@@ -0,0 +1,42 @@
+package com.bourhym.exambackend.enums;
+
+import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.entities.PersonalCredit;
+import com.bourhym.exambackend.entities.ProfessionalCredit;
+import com.bourhym.exambackend.entities.RealEstateCredit;
+
+public enum CreditType {
+    PERSONAL, PROFESSIONAL, REAL_ESTATE;
+
+    // Code d'un crédit sans sous-classe (Credit n'est pas abstraite), qui n'a pas de valeur dans l'énumération
+    public static final String BASE_CODE = "CREDIT";
+
+    // Détermine le type d'un crédit à partir de sa sous-classe
+    public static CreditType of(Credit credit) {
+        CreditType type = ofNullable(credit);
+        if (type == null) {
+            throw new IllegalArgumentException("Type de crédit inconnu: " + credit.getClass().getSimpleName());
+        }
+        return type;
+    }
+
+    // Type d'un crédit, ou null pour un crédit sans sous-classe
+    public static CreditType ofNullable(Credit credit) {
+        if (credit instanceof PersonalCredit) {
+            return PERSONAL;
+        }
+        if (credit instanceof ProfessionalCredit) {
+            return PROFESSIONAL;
+        }
+        if (credit instanceof RealEstateCredit) {
+            return REAL_ESTATE;
+        }
+        return null;
+    }
+
+    // Code du type d'un crédit : nom du type, ou BASE_CODE pour un crédit sans sous-classe
+    public static String codeOf(Credit credit) {
+        CreditType type = ofNullable(credit);
+        return type != null ? type.name() : BASE_CODE;
+    }
+}
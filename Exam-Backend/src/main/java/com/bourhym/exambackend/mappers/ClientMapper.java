@@ -3,6 +3,7 @@ package com.bourhym.exambackend.mappers;
 import com.bourhym.exambackend.dtos.ClientDTO;
 import com.bourhym.exambackend.entities.Client;
 import com.bourhym.exambackend.entities.Credit;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -11,6 +12,9 @@ import java.util.stream.Collectors;
 @Component
 public class ClientMapper implements EntityMapper<ClientDTO, Client> {
 
+    @Autowired
+    private RelationIdLoader relationIdLoader;
+
     @Override
     public Client toEntity(ClientDTO dto) {
         if (dto == null) {
@@ -30,10 +34,7 @@ public class ClientMapper implements EntityMapper<ClientDTO, Client> {
             return null;
         }
 
-        ClientDTO clientDTO = new ClientDTO();
-        clientDTO.setId(entity.getId());
-        clientDTO.setName(entity.getName());
-        clientDTO.setEmail(entity.getEmail());
+        ClientDTO clientDTO = toDtoWithoutCreditIds(entity);
 
         // Extraire les IDs des crédits si la liste n'est pas null
         if (entity.getCredits() != null) {
@@ -45,6 +46,15 @@ public class ClientMapper implements EntityMapper<ClientDTO, Client> {
         return clientDTO;
     }
 
+    private ClientDTO toDtoWithoutCreditIds(Client entity) {
+        ClientDTO clientDTO = new ClientDTO();
+        clientDTO.setId(entity.getId());
+        clientDTO.setName(entity.getName());
+        clientDTO.setEmail(entity.getEmail());
+
+        return clientDTO;
+    }
+
     @Override
     public List<Client> toEntity(List<ClientDTO> dtoList) {
         if (dtoList == null) {
@@ -60,8 +70,20 @@ public class ClientMapper implements EntityMapper<ClientDTO, Client> {
         if (entityList == null) {
             return null;
         }
-        return entityList.stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+
+        // Charger les IDs des crédits de toute la liste en une seule requête
+        return relationIdLoader.toDtoWithCreditIds(entityList, this::toDtoWithoutCreditIds);
+    }
+
+    /**
+     * Complète des DTOs issus d'une projection avec les IDs de leurs crédits (une seule requête).
+     */
+    public List<ClientDTO> withCreditIds(List<ClientDTO> dtoList) {
+        return relationIdLoader.withCreditIds(dtoList);
+    }
+
+    public ClientDTO withCreditIds(ClientDTO dto) {
+        withCreditIds(List.of(dto));
+        return dto;
     }
 }
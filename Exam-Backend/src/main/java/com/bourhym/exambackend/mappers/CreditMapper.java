@@ -14,6 +14,9 @@ import java.util.stream.Collectors;
 @Component
 public class CreditMapper implements EntityMapper<CreditDTO, Credit> {
 
+    @Autowired
+    private RelationIdLoader relationIdLoader;
+
     @Autowired
     private ClientRepository clientRepository;
 
@@ -47,7 +50,15 @@ public class CreditMapper implements EntityMapper<CreditDTO, Credit> {
             return null;
         }
 
-        CreditDTO creditDTO = new CreditDTO();
+        return withEntityRepaymentIds(entity, toDtoWithoutRepaymentIds(entity));
+    }
+
+    private CreditDTO toDtoWithoutRepaymentIds(Credit entity) {
+        return copyCreditFields(entity, new CreditDTO(), entity.getClass().getSimpleName());
+    }
+
+    // Champs communs à tous les types de crédit, sans les IDs des remboursements
+    static <D extends CreditDTO> D copyCreditFields(Credit entity, D creditDTO, String creditType) {
         creditDTO.setId(entity.getId());
         creditDTO.setRequestDate(entity.getRequestDate());
         creditDTO.setStatus(entity.getStatus());
@@ -57,20 +68,23 @@ public class CreditMapper implements EntityMapper<CreditDTO, Credit> {
         creditDTO.setInterestRate(entity.getInterestRate());
 
         // Définir le type de crédit
-        creditDTO.setCreditType(entity.getClass().getSimpleName());
+        creditDTO.setCreditType(creditType);
 
         // Récupérer l'ID du client
         if (entity.getClient() != null) {
             creditDTO.setClientId(entity.getClient().getId());
         }
 
-        // Extraire les IDs des remboursements
+        return creditDTO;
+    }
+
+    // IDs des remboursements d'un crédit isolé, depuis sa collection
+    static <D extends CreditDTO> D withEntityRepaymentIds(Credit entity, D creditDTO) {
         if (entity.getRepayments() != null) {
             creditDTO.setRepaymentIds(entity.getRepayments().stream()
                     .map(Repayment::getId)
                     .collect(Collectors.toList()));
         }
-
         return creditDTO;
     }
 
@@ -89,8 +103,20 @@ public class CreditMapper implements EntityMapper<CreditDTO, Credit> {
         if (entityList == null) {
             return null;
         }
-        return entityList.stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+
+        // Charger les IDs des remboursements de toute la liste en une seule requête
+        return relationIdLoader.toDtoWithRepaymentIds(entityList, this::toDtoWithoutRepaymentIds);
+    }
+
+    /**
+     * Complète des DTOs issus d'une projection avec les IDs de leurs remboursements (une seule requête).
+     */
+    public List<CreditDTO> withRepaymentIds(List<CreditDTO> dtoList) {
+        return relationIdLoader.withRepaymentIds(dtoList);
+    }
+
+    public CreditDTO withRepaymentIds(CreditDTO dto) {
+        withRepaymentIds(List.of(dto));
+        return dto;
     }
 }
@@ -2,7 +2,6 @@ package com.bourhym.exambackend.mappers;
 
 import com.bourhym.exambackend.dtos.PersonalCreditDTO;
 import com.bourhym.exambackend.entities.PersonalCredit;
-import com.bourhym.exambackend.entities.Repayment;
 import com.bourhym.exambackend.repositories.ClientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -13,6 +12,9 @@ import java.util.stream.Collectors;
 @Component
 public class PersonalCreditMapper implements EntityMapper<PersonalCreditDTO, PersonalCredit> {
 
+    @Autowired
+    private RelationIdLoader relationIdLoader;
+
     @Autowired
     private ClientRepository clientRepository;
 
@@ -49,29 +51,11 @@ public class PersonalCreditMapper implements EntityMapper<PersonalCreditDTO, Per
             return null;
         }
 
-        PersonalCreditDTO personalCreditDTO = new PersonalCreditDTO();
-        personalCreditDTO.setId(entity.getId());
-        personalCreditDTO.setRequestDate(entity.getRequestDate());
-        personalCreditDTO.setStatus(entity.getStatus());
-        personalCreditDTO.setAcceptanceDate(entity.getAcceptanceDate());
-        personalCreditDTO.setAmount(entity.getAmount());
-        personalCreditDTO.setDuration(entity.getDuration());
-        personalCreditDTO.setInterestRate(entity.getInterestRate());
-
-        // Définir le type de crédit
-        personalCreditDTO.setCreditType("PERSONAL");
-
-        // Récupérer l'ID du client
-        if (entity.getClient() != null) {
-            personalCreditDTO.setClientId(entity.getClient().getId());
-        }
+        return CreditMapper.withEntityRepaymentIds(entity, toDtoWithoutRepaymentIds(entity));
+    }
 
-        // Extraire les IDs des remboursements
-        if (entity.getRepayments() != null) {
-            personalCreditDTO.setRepaymentIds(entity.getRepayments().stream()
-                    .map(Repayment::getId)
-                    .collect(Collectors.toList()));
-        }
+    private PersonalCreditDTO toDtoWithoutRepaymentIds(PersonalCredit entity) {
+        PersonalCreditDTO personalCreditDTO = CreditMapper.copyCreditFields(entity, new PersonalCreditDTO(), "PERSONAL");
 
         // Par défaut, on peut définir une valeur pour le purpose
         personalCreditDTO.setPurpose("Crédit personnel");
@@ -94,8 +78,8 @@ public class PersonalCreditMapper implements EntityMapper<PersonalCreditDTO, Per
         if (entityList == null) {
             return null;
         }
-        return entityList.stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+
+        // Charger les IDs des remboursements de toute la liste en une seule requête
+        return relationIdLoader.toDtoWithRepaymentIds(entityList, this::toDtoWithoutRepaymentIds);
     }
 }
@@ -2,7 +2,6 @@ package com.bourhym.exambackend.mappers;
 
 import com.bourhym.exambackend.dtos.ProfessionalCreditDTO;
 import com.bourhym.exambackend.entities.ProfessionalCredit;
-import com.bourhym.exambackend.entities.Repayment;
 import com.bourhym.exambackend.repositories.ClientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -13,6 +12,9 @@ import java.util.stream.Collectors;
 @Component
 public class ProfessionalCreditMapper implements EntityMapper<ProfessionalCreditDTO, ProfessionalCredit> {
 
+    @Autowired
+    private RelationIdLoader relationIdLoader;
+
     @Autowired
     private ClientRepository clientRepository;
 
@@ -49,29 +51,11 @@ public class ProfessionalCreditMapper implements EntityMapper<ProfessionalCredit
             return null;
         }
 
-        ProfessionalCreditDTO professionalCreditDTO = new ProfessionalCreditDTO();
-        professionalCreditDTO.setId(entity.getId());
-        professionalCreditDTO.setRequestDate(entity.getRequestDate());
-        professionalCreditDTO.setStatus(entity.getStatus());
-        professionalCreditDTO.setAcceptanceDate(entity.getAcceptanceDate());
-        professionalCreditDTO.setAmount(entity.getAmount());
-        professionalCreditDTO.setDuration(entity.getDuration());
-        professionalCreditDTO.setInterestRate(entity.getInterestRate());
-
-        // Définir le type de crédit
-        professionalCreditDTO.setCreditType("PROFESSIONAL");
-
-        // Récupérer l'ID du client
-        if (entity.getClient() != null) {
-            professionalCreditDTO.setClientId(entity.getClient().getId());
-        }
+        return CreditMapper.withEntityRepaymentIds(entity, toDtoWithoutRepaymentIds(entity));
+    }
 
-        // Extraire les IDs des remboursements
-        if (entity.getRepayments() != null) {
-            professionalCreditDTO.setRepaymentIds(entity.getRepayments().stream()
-                    .map(Repayment::getId)
-                    .collect(Collectors.toList()));
-        }
+    private ProfessionalCreditDTO toDtoWithoutRepaymentIds(ProfessionalCredit entity) {
+        ProfessionalCreditDTO professionalCreditDTO = CreditMapper.copyCreditFields(entity, new ProfessionalCreditDTO(), "PROFESSIONAL");
 
         // Valeurs par défaut pour les champs spécifiques
         professionalCreditDTO.setCompanyName("Entreprise");
@@ -96,8 +80,8 @@ public class ProfessionalCreditMapper implements EntityMapper<ProfessionalCredit
         if (entityList == null) {
             return null;
         }
-        return entityList.stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+
+        // Charger les IDs des remboursements de toute la liste en une seule requête
+        return relationIdLoader.toDtoWithRepaymentIds(entityList, this::toDtoWithoutRepaymentIds);
     }
 }
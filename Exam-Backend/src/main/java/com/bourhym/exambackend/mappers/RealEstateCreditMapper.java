@@ -2,7 +2,6 @@ package com.bourhym.exambackend.mappers;
 
 import com.bourhym.exambackend.dtos.RealEstateCreditDTO;
 import com.bourhym.exambackend.entities.RealEstateCredit;
-import com.bourhym.exambackend.entities.Repayment;
 import com.bourhym.exambackend.repositories.ClientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -13,6 +12,9 @@ import java.util.stream.Collectors;
 @Component
 public class RealEstateCreditMapper implements EntityMapper<RealEstateCreditDTO, RealEstateCredit> {
 
+    @Autowired
+    private RelationIdLoader relationIdLoader;
+
     @Autowired
     private ClientRepository clientRepository;
 
@@ -47,30 +49,12 @@ public class RealEstateCreditMapper implements EntityMapper<RealEstateCreditDTO,
             return null;
         }
 
-        RealEstateCreditDTO realEstateCreditDTO = new RealEstateCreditDTO();
-        realEstateCreditDTO.setId(entity.getId());
-        realEstateCreditDTO.setRequestDate(entity.getRequestDate());
-        realEstateCreditDTO.setStatus(entity.getStatus());
-        realEstateCreditDTO.setAcceptanceDate(entity.getAcceptanceDate());
-        realEstateCreditDTO.setAmount(entity.getAmount());
-        realEstateCreditDTO.setDuration(entity.getDuration());
-        realEstateCreditDTO.setInterestRate(entity.getInterestRate());
-        realEstateCreditDTO.setPropertyType(entity.getPropertyType());
-
-        // Définir le type de crédit
-        realEstateCreditDTO.setCreditType("REAL_ESTATE");
-
-        // Récupérer l'ID du client
-        if (entity.getClient() != null) {
-            realEstateCreditDTO.setClientId(entity.getClient().getId());
-        }
+        return CreditMapper.withEntityRepaymentIds(entity, toDtoWithoutRepaymentIds(entity));
+    }
 
-        // Extraire les IDs des remboursements
-        if (entity.getRepayments() != null) {
-            realEstateCreditDTO.setRepaymentIds(entity.getRepayments().stream()
-                    .map(Repayment::getId)
-                    .collect(Collectors.toList()));
-        }
+    private RealEstateCreditDTO toDtoWithoutRepaymentIds(RealEstateCredit entity) {
+        RealEstateCreditDTO realEstateCreditDTO = CreditMapper.copyCreditFields(entity, new RealEstateCreditDTO(), "REAL_ESTATE");
+        realEstateCreditDTO.setPropertyType(entity.getPropertyType());
 
         // Valeurs par défaut pour les champs ajoutés
         realEstateCreditDTO.setPropertyAddress("Adresse de la propriété");
@@ -94,8 +78,8 @@ public class RealEstateCreditMapper implements EntityMapper<RealEstateCreditDTO,
         if (entityList == null) {
             return null;
         }
-        return entityList.stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+
+        // Charger les IDs des remboursements de toute la liste en une seule requête
+        return relationIdLoader.toDtoWithRepaymentIds(entityList, this::toDtoWithoutRepaymentIds);
     }
 }
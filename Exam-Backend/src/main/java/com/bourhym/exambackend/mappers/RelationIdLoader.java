@@ -0,0 +1,126 @@
+package com.bourhym.exambackend.mappers;
+
+import com.bourhym.exambackend.dtos.ClientDTO;
+import com.bourhym.exambackend.dtos.CreditDTO;
+import com.bourhym.exambackend.entities.Client;
+import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.repositories.CreditRepository;
+import com.bourhym.exambackend.repositories.RepaymentRepository;
+import com.bourhym.exambackend.utils.LongIdMultimap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Charge en lot les IDs des entités enfants d'une liste de parents (remboursements d'un crédit,
+ * crédits d'un client), au lieu d'initialiser les collections paresseuses une à une. Les mappers
+ * passent par les méthodes toDtoWith... (listes d'entités) et with... (DTOs issus d'une projection).
+ */
+@Component
+public class RelationIdLoader {
+
+    // Taille maximale d'une clause IN ; au-delà, les IDs sont découpés en plusieurs requêtes
+    private static final int MAX_IN_SIZE = 1000;
+
+    @Autowired
+    private RepaymentRepository repaymentRepository;
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    /**
+     * @return Les IDs des remboursements indexés par ID de crédit
+     */
+    public LongIdMultimap repaymentIdsByCreditId(Collection<Long> creditIds) {
+        return load(creditIds, repaymentRepository::findIdPairsByCreditIds);
+    }
+
+    /**
+     * @return Les IDs des crédits indexés par ID de client
+     */
+    public LongIdMultimap creditIdsByClientId(Collection<Long> clientIds) {
+        return load(clientIds, creditRepository::findIdPairsByClientIds);
+    }
+
+    /**
+     * Convertit une liste de crédits et affecte à chaque DTO les IDs de ses remboursements.
+     */
+    public <C extends Credit, D extends CreditDTO> List<D> toDtoWithRepaymentIds(List<C> credits, Function<C, D> toDto) {
+        return toDtoWithChildIds(credits, Credit::getId, toDto, this::repaymentIdsByCreditId, CreditDTO::setRepaymentIds);
+    }
+
+    /**
+     * Convertit une liste de clients et affecte à chaque DTO les IDs de ses crédits.
+     */
+    public List<ClientDTO> toDtoWithCreditIds(List<Client> clients, Function<Client, ClientDTO> toDto) {
+        return toDtoWithChildIds(clients, Client::getId, toDto, this::creditIdsByClientId, ClientDTO::setCreditIds);
+    }
+
+    /**
+     * Complète des DTOs de crédits issus d'une projection avec les IDs de leurs remboursements.
+     */
+    public <D extends CreditDTO> List<D> withRepaymentIds(List<D> dtoList) {
+        return withChildIds(dtoList, CreditDTO::getId, this::repaymentIdsByCreditId, CreditDTO::setRepaymentIds);
+    }
+
+    /**
+     * Complète des DTOs de clients issus d'une projection avec les IDs de leurs crédits.
+     */
+    public List<ClientDTO> withCreditIds(List<ClientDTO> dtoList) {
+        return withChildIds(dtoList, ClientDTO::getId, this::creditIdsByClientId, ClientDTO::setCreditIds);
+    }
+
+    private static <E, D> List<D> toDtoWithChildIds(List<E> parents, Function<E, Long> parentId, Function<E, D> toDto,
+                                                    Function<Collection<Long>, LongIdMultimap> childIds,
+                                                    BiConsumer<D, List<Long>> setChildIds) {
+        LongIdMultimap ids = childIds.apply(parents.stream().map(parentId).collect(Collectors.toList()));
+        List<D> dtoList = new ArrayList<>(parents.size());
+        for (E parent : parents) {
+            D dto = toDto.apply(parent);
+            setChildIds.accept(dto, ids.get(parentId.apply(parent)));
+            dtoList.add(dto);
+        }
+        return dtoList;
+    }
+
+    private static <D> List<D> withChildIds(List<D> dtoList, Function<D, Long> parentId,
+                                            Function<Collection<Long>, LongIdMultimap> childIds,
+                                            BiConsumer<D, List<Long>> setChildIds) {
+        LongIdMultimap ids = childIds.apply(dtoList.stream().map(parentId).collect(Collectors.toList()));
+        for (D dto : dtoList) {
+            setChildIds.accept(dto, ids.get(parentId.apply(dto)));
+        }
+        return dtoList;
+    }
+
+    private LongIdMultimap load(Collection<Long> parentIds, Function<Collection<Long>, List<Object[]>> query) {
+        LongIdMultimap result = new LongIdMultimap(parentIds.size());
+        List<Long> chunk = new ArrayList<>(Math.min(parentIds.size(), MAX_IN_SIZE));
+        for (Long parentId : parentIds) {
+            if (parentId == null) {
+                continue;
+            }
+            chunk.add(parentId);
+            if (chunk.size() == MAX_IN_SIZE) {
+                collect(query.apply(chunk), result);
+                chunk = new ArrayList<>(MAX_IN_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            collect(query.apply(chunk), result);
+        }
+        return result;
+    }
+
+    private static void collect(List<Object[]> pairs, LongIdMultimap result) {
+        for (Object[] pair : pairs) {
+            result.put(((Number) pair[0]).longValue(), ((Number) pair[1]).longValue());
+        }
+    }
+}
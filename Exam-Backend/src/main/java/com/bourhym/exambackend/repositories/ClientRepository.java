@@ -1,13 +1,23 @@
 package com.bourhym.exambackend.repositories;
 
+import com.bourhym.exambackend.dtos.ClientDTO;
 import com.bourhym.exambackend.entities.Client;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ClientRepository extends JpaRepository<Client, Long> {
+    // Projection JPQL des clients directement dans ClientDTO (sans les IDs des crédits)
+    String CLIENT_DTO_SELECT = "SELECT new com.bourhym.exambackend.dtos.ClientDTO(c.id, c.name, c.email) FROM Client c ";
+
     // Rechercher des clients par email (peut retourner plusieurs résultats)
     List<Client> findByEmail(String email);
 
@@ -19,4 +29,31 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
 
     // Vérifier si un client avec un email spécifique existe
     boolean existsByEmail(String email);
+
+    // Parmi les IDs donnés, ceux qui correspondent à un client existant
+    @Query("SELECT c.id FROM Client c WHERE c.id IN :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    // Projections en lecture seule (sans entités gérées)
+    @Query(CLIENT_DTO_SELECT)
+    List<ClientDTO> findAllDto();
+
+    // Mise en cache si le cache de requêtes est activé (second-level-cache.enabled)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(CLIENT_DTO_SELECT + "WHERE c.id = :id")
+    Optional<ClientDTO> findDtoById(Long id);
+
+    @Query(CLIENT_DTO_SELECT + "WHERE c.email = :email ORDER BY c.id")
+    List<ClientDTO> findDtoByEmail(String email);
+
+    // Le motif doit être en minuscules, avec %, _ et \ déjà échappés
+    @Query(CLIENT_DTO_SELECT + "WHERE LOWER(c.name) LIKE :pattern ESCAPE '\\'")
+    List<ClientDTO> findDtoByNameLike(String pattern);
+
+    @Query(CLIENT_DTO_SELECT + "WHERE c.id > :afterId ORDER BY c.id")
+    List<ClientDTO> findDtoPage(Long afterId, Pageable pageable);
+
+    // Paires (id, email) par pages d'IDs, pour construire le filtre des emails
+    @Query("SELECT c.id, c.email FROM Client c WHERE c.id > :afterId ORDER BY c.id")
+    List<Object[]> findEmailPage(Long afterId, Pageable pageable);
 }
@@ -1,13 +1,26 @@
 package com.bourhym.exambackend.repositories;
 
-import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.dtos.CreditBalanceDTO;
+import com.bourhym.exambackend.dtos.CreditDTO;
 import com.bourhym.exambackend.entities.Client;
+import com.bourhym.exambackend.entities.Credit;
 import com.bourhym.exambackend.enums.CreditStatus;
+import com.bourhym.exambackend.enums.CreditType;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CreditRepository extends JpaRepository<Credit, Long> {
@@ -30,4 +43,106 @@ public interface CreditRepository extends JpaRepository<Credit, Long> {
 
     // Rechercher des crédits par statut et montant supérieur à une valeur
     List<Credit> findByStatusAndAmountGreaterThan(CreditStatus status, Double amount);
+
+    // Code d'un crédit sans sous-classe (Credit n'est pas abstraite), absent de CreditType
+    String BASE_CREDIT_TYPE_CODE = CreditType.BASE_CODE;
+
+    // Expression JPQL donnant le code du type de crédit (PERSONAL, PROFESSIONAL, REAL_ESTATE ou CREDIT)
+    String CREDIT_TYPE_CODE = "CASE TYPE(c) WHEN PersonalCredit THEN 'PERSONAL' "
+            + "WHEN ProfessionalCredit THEN 'PROFESSIONAL' WHEN RealEstateCredit THEN 'REAL_ESTATE' "
+            + "ELSE '" + BASE_CREDIT_TYPE_CODE + "' END";
+
+    // Expression JPQL donnant le nom de la classe du crédit, comme CreditMapper
+    String CREDIT_CLASS_NAME = "CASE TYPE(c) WHEN PersonalCredit THEN 'PersonalCredit' "
+            + "WHEN ProfessionalCredit THEN 'ProfessionalCredit' WHEN RealEstateCredit THEN 'RealEstateCredit' "
+            + "ELSE 'Credit' END";
+
+    // Projection JPQL des crédits directement dans CreditDTO (sans les IDs des remboursements)
+    String CREDIT_DTO_SELECT = "SELECT new com.bourhym.exambackend.dtos.CreditDTO(c.id, c.requestDate, c.status, "
+            + "c.acceptanceDate, c.amount, c.duration, c.interestRate, c.client.id, " + CREDIT_CLASS_NAME + ") FROM Credit c ";
+
+    // Taille de fetch demandant au driver MySQL de lire les lignes une à une (streaming)
+    String STREAMING_FETCH_SIZE = "" + Integer.MIN_VALUE;
+
+    // Export: lecture en flux de tous les crédits, projetés directement dans le DTO
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAMING_FETCH_SIZE))
+    @Query("SELECT new com.bourhym.exambackend.dtos.CreditDTO(c.id, c.requestDate, c.status, c.acceptanceDate, "
+            + "c.amount, c.duration, c.interestRate, c.client.id, " + CREDIT_TYPE_CODE + ") "
+            + "FROM Credit c ORDER BY c.id")
+    Stream<CreditDTO> streamAllForExport();
+
+    // Paires (ID du client, ID du crédit) pour un lot de clients, en une seule requête
+    @Query("SELECT c.client.id, c.id FROM Credit c WHERE c.client.id IN :clientIds ORDER BY c.id")
+    List<Object[]> findIdPairsByClientIds(Collection<Long> clientIds);
+
+    // Projections en lecture seule (sans entités gérées)
+    @Query(CREDIT_DTO_SELECT)
+    List<CreditDTO> findAllDto();
+
+    // Mise en cache si le cache de requêtes est activé (second-level-cache.enabled)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(CREDIT_DTO_SELECT + "WHERE c.id = :id")
+    Optional<CreditDTO> findDtoById(Long id);
+
+    @Query(CREDIT_DTO_SELECT + "WHERE c.client.id = :clientId")
+    List<CreditDTO> findDtoByClientId(Long clientId);
+
+    @Query(CREDIT_DTO_SELECT + "WHERE c.status = :status")
+    List<CreditDTO> findDtoByStatus(CreditStatus status);
+
+    @Query(CREDIT_DTO_SELECT + "WHERE c.id > :afterId ORDER BY c.id")
+    List<CreditDTO> findDtoPage(Long afterId, Pageable pageable);
+
+    @Query(CREDIT_DTO_SELECT + "WHERE c.status = :status AND c.id > :afterId ORDER BY c.id")
+    List<CreditDTO> findDtoPageByStatus(CreditStatus status, Long afterId, Pageable pageable);
+
+    // Transitions en lot: crédits en cours verrouillés jusqu'à la fin de la transaction (ID, type, montant, taux).
+    // Verrous pris dans l'ordre des ID, comme les autres requêtes verrouillantes, pour éviter les interblocages
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c.id, " + CREDIT_TYPE_CODE + ", c.amount, c.interestRate FROM Credit c "
+            + "WHERE c.id IN :ids AND c.status = com.bourhym.exambackend.enums.CreditStatus.IN_PROGRESS ORDER BY c.id")
+    List<Object[]> lockInProgressByIds(Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c.id, " + CREDIT_TYPE_CODE + ", c.amount, c.interestRate FROM Credit c "
+            + "WHERE c.status = com.bourhym.exambackend.enums.CreditStatus.IN_PROGRESS "
+            + "AND (:clientId IS NULL OR c.client.id = :clientId) "
+            + "AND (:minAmount IS NULL OR c.amount >= :minAmount) "
+            + "AND (:maxAmount IS NULL OR c.amount <= :maxAmount) ORDER BY c.id")
+    List<Object[]> lockInProgressByFilter(Long clientId, Double minAmount, Double maxAmount, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Credit c SET c.status = com.bourhym.exambackend.enums.CreditStatus.ACCEPTED, c.acceptanceDate = :acceptanceDate "
+            + "WHERE c.id IN :ids AND c.status = com.bourhym.exambackend.enums.CreditStatus.IN_PROGRESS")
+    int approveInProgress(Collection<Long> ids, Date acceptanceDate);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Credit c SET c.status = com.bourhym.exambackend.enums.CreditStatus.REJECTED "
+            + "WHERE c.id IN :ids AND c.status = com.bourhym.exambackend.enums.CreditStatus.IN_PROGRESS")
+    int rejectInProgress(Collection<Long> ids);
+
+    // Crédit verrouillé jusqu'à la fin de la transaction, pour mettre à jour son solde
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Credit c WHERE c.id = :id")
+    Optional<Credit> findByIdForUpdate(Long id);
+
+    // Lot de crédits verrouillés jusqu'à la fin de la transaction (import de remboursements), dans l'ordre des ID
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Credit c WHERE c.id IN :ids ORDER BY c.id")
+    List<Credit> findAllByIdForUpdate(Collection<Long> ids);
+
+    // Solde dénormalisé d'un crédit, lu par clé primaire
+    @Query("SELECT new com.bourhym.exambackend.dtos.CreditBalanceDTO(c.id, c.totalRepaid, c.outstanding) FROM Credit c WHERE c.id = :id")
+    Optional<CreditBalanceDTO> findBalanceById(Long id);
+
+    // Soldes dénormalisés d'un lot de crédits, en une seule requête
+    @Query("SELECT new com.bourhym.exambackend.dtos.CreditBalanceDTO(c.id, c.totalRepaid, c.outstanding) FROM Credit c WHERE c.id IN :ids")
+    List<CreditBalanceDTO> findBalancesByIds(Collection<Long> ids);
+
+    // Réconciliation: solde stocké et somme réelle des remboursements, par tranche d'IDs
+    // (ID, montant, durée, taux, total stocké, restant stocké, somme des remboursements)
+    @Query("SELECT c.id, c.amount, c.duration, c.interestRate, c.totalRepaid, c.outstanding, COALESCE(SUM(r.amount), 0) "
+            + "FROM Credit c LEFT JOIN c.repayments r WHERE c.id > :afterId "
+            + "GROUP BY c.id, c.amount, c.duration, c.interestRate, c.totalRepaid, c.outstanding ORDER BY c.id")
+    List<Object[]> findBalancesWithRepaidSum(Long afterId, Pageable pageable);
 }
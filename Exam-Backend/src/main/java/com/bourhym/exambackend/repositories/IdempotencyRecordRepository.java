@@ -0,0 +1,16 @@
+package com.bourhym.exambackend.repositories;
+
+import com.bourhym.exambackend.entities.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.Date;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    // Purge des enregistrements expirés
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord i WHERE i.expiresAt < :now")
+    int deleteExpired(Date now);
+}
@@ -27,4 +27,8 @@ public interface PersonalCreditRepository extends JpaRepository<PersonalCredit,
 
     // Rechercher des crédits personnels par durée supérieure à une valeur
     List<PersonalCredit> findByDurationGreaterThan(Integer duration);
+
+    // Statistiques: nombre, somme des montants et des taux par statut
+    @Query("SELECT p.status, COUNT(p), SUM(p.amount), SUM(p.interestRate) FROM PersonalCredit p GROUP BY p.status")
+    List<Object[]> aggregateByStatus();
 }
@@ -28,4 +28,8 @@ public interface ProfessionalCreditRepository extends JpaRepository<Professional
 
     // Rechercher des crédits professionnels par taux d'intérêt entre deux valeurs
     List<ProfessionalCredit> findByInterestRateBetween(Double minRate, Double maxRate);
+
+    // Statistiques: nombre, somme des montants et des taux par statut
+    @Query("SELECT p.status, COUNT(p), SUM(p.amount), SUM(p.interestRate) FROM ProfessionalCredit p GROUP BY p.status")
+    List<Object[]> aggregateByStatus();
 }
@@ -36,4 +36,8 @@ public interface RealEstateCreditRepository extends JpaRepository<RealEstateCred
     // Rechercher les crédits immobiliers avec le montant le plus élevé
     @Query("SELECT r FROM RealEstateCredit r WHERE r.amount = (SELECT MAX(rc.amount) FROM RealEstateCredit rc)")
     List<RealEstateCredit> findWithHighestAmount();
+
+    // Statistiques: nombre, somme des montants et des taux par statut
+    @Query("SELECT r.status, COUNT(r), SUM(r.amount), SUM(r.interestRate) FROM RealEstateCredit r GROUP BY r.status")
+    List<Object[]> aggregateByStatus();
 }
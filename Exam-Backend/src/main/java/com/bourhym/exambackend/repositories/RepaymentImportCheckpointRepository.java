@@ -0,0 +1,9 @@
+package com.bourhym.exambackend.repositories;
+
+import com.bourhym.exambackend.entities.RepaymentImportCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RepaymentImportCheckpointRepository extends JpaRepository<RepaymentImportCheckpoint, String> {
+}
@@ -1,16 +1,27 @@
 package com.bourhym.exambackend.repositories;
 
-import com.bourhym.exambackend.entities.Repayment;
+import com.bourhym.exambackend.dtos.RepaymentDTO;
 import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.entities.Repayment;
 import com.bourhym.exambackend.enums.RepaymentType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface RepaymentRepository extends JpaRepository<Repayment, Long> {
+    // Projection JPQL des remboursements directement dans RepaymentDTO
+    String REPAYMENT_DTO_SELECT = "SELECT new com.bourhym.exambackend.dtos.RepaymentDTO(r.id, r.date, r.amount, r.type, r.credit.id) "
+            + "FROM Repayment r ";
+
     // Rechercher des remboursements par crédit
     List<Repayment> findByCreditId(Long creditId);
     List<Repayment> findByCredit(Credit credit);
@@ -37,4 +48,23 @@ public interface RepaymentRepository extends JpaRepository<Repayment, Long> {
 
     // Rechercher des remboursements par crédit et type
     List<Repayment> findByCreditIdAndType(Long creditId, RepaymentType type);
+
+    // Export: lecture en flux de tous les remboursements, projetés directement dans le DTO
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = CreditRepository.STREAMING_FETCH_SIZE))
+    @Query(REPAYMENT_DTO_SELECT + "ORDER BY r.id")
+    Stream<RepaymentDTO> streamAllForExport();
+
+    // Paires (ID du crédit, ID du remboursement) pour un lot de crédits, en une seule requête
+    @Query("SELECT r.credit.id, r.id FROM Repayment r WHERE r.credit.id IN :creditIds ORDER BY r.id")
+    List<Object[]> findIdPairsByCreditIds(Collection<Long> creditIds);
+
+    // Projections en lecture seule (sans entités gérées)
+    @Query(REPAYMENT_DTO_SELECT + "WHERE r.credit.id = :creditId")
+    List<RepaymentDTO> findDtoByCreditId(Long creditId);
+
+    @Query(REPAYMENT_DTO_SELECT + "WHERE r.type = :type")
+    List<RepaymentDTO> findDtoByType(RepaymentType type);
+
+    @Query(REPAYMENT_DTO_SELECT + "WHERE r.type = :type AND r.id > :afterId ORDER BY r.id")
+    List<RepaymentDTO> findDtoPageByType(RepaymentType type, Long afterId, Pageable pageable);
 }
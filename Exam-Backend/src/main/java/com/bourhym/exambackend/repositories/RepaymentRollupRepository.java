@@ -0,0 +1,50 @@
+package com.bourhym.exambackend.repositories;
+
+import com.bourhym.exambackend.entities.RepaymentRollup;
+import com.bourhym.exambackend.entities.RepaymentRollupId;
+import com.bourhym.exambackend.enums.CreditType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface RepaymentRollupRepository extends JpaRepository<RepaymentRollup, RepaymentRollupId> {
+    // Incrément atomique d'un agrégat (créé s'il n'existe pas encore). La table modifiée est déclarée
+    // pour que Hibernate n'invalide pas tout le cache de second niveau à chaque requête native
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "repayment_rollup"))
+    @Query(value = "INSERT INTO repayment_rollup (rollup_month, repayment_type, credit_type, total_amount, repayment_count) "
+            + "VALUES (:month, :repaymentType, :creditType, :amount, :count) "
+            + "ON DUPLICATE KEY UPDATE total_amount = ROUND(total_amount + VALUES(total_amount), 2), "
+            + "repayment_count = repayment_count + VALUES(repayment_count)", nativeQuery = true)
+    int increment(Date month, String repaymentType, String creditType, double amount, long count);
+
+    // Code du type de crédit d'un agrégat, comme CreditType.codeOf
+    String ROLLUP_CREDIT_TYPE = "CASE WHEN c.credit_type IN ('PERSONAL', 'PROFESSIONAL', 'REAL_ESTATE') "
+            + "THEN c.credit_type ELSE '" + CreditType.BASE_CODE + "' END";
+
+    // Reconstruction complète des agrégats à partir de la table des remboursements
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "repayment_rollup"))
+    @Query(value = "INSERT INTO repayment_rollup (rollup_month, repayment_type, credit_type, total_amount, repayment_count) "
+            + "SELECT DATE_SUB(r.date, INTERVAL DAYOFMONTH(r.date) - 1 DAY), r.type, " + ROLLUP_CREDIT_TYPE + ", "
+            + "ROUND(SUM(r.amount), 2), COUNT(*) "
+            + "FROM repayment r JOIN credit c ON c.id = r.credit_id "
+            + "WHERE r.date IS NOT NULL AND r.type IS NOT NULL AND r.amount IS NOT NULL "
+            + "GROUP BY DATE_SUB(r.date, INTERVAL DAYOFMONTH(r.date) - 1 DAY), r.type, " + ROLLUP_CREDIT_TYPE, nativeQuery = true)
+    int insertFromRepayments();
+
+    @Modifying
+    @Query("DELETE FROM RepaymentRollup")
+    int deleteAllRollups();
+
+    @Query("SELECT r FROM RepaymentRollup r WHERE r.id.month BETWEEN :from AND :to "
+            + "ORDER BY r.id.month, r.id.repaymentType, r.id.creditType")
+    List<RepaymentRollup> findByMonthBetween(Date from, Date to);
+}
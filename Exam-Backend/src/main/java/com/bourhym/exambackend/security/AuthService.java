@@ -7,14 +7,18 @@ import com.bourhym.exambackend.security.repositories.UserRepository;
 import com.bourhym.exambackend.security.dto.JwtResponse;
 import com.bourhym.exambackend.security.dto.LoginRequest;
 import com.bourhym.exambackend.security.dto.RegisterRequest;
+import com.bourhym.exambackend.security.dto.TokenRefreshResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -24,15 +28,27 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final UserIdentityFilter identityFilter;
+    private final UserPrincipalCache principalCache;
+    private final PasswordHashingExecutor hashingExecutor;
+    private final RefreshTokenService refreshTokenService;
 
-    @Transactional
+    /**
+     * Inscrit un utilisateur. Le hachage du mot de passe s'exécute sur l'exécuteur BCrypt dédié,
+     * hors transaction.
+     *
+     * @throws IllegalArgumentException si le nom d'utilisateur ou l'email est déjà utilisé
+     * @throws java.util.concurrent.RejectedExecutionException si l'exécuteur BCrypt est saturé
+     */
     public JwtResponse register(RegisterRequest request) {
-        // Vérification si l'username ou l'email existe déjà
-        if (userRepository.existsByUsername(request.getUsername())) {
+        // Vérification si l'username ou l'email existe déjà (en base seulement si le filtre ne l'exclut pas)
+        if (identityFilter.mightBeTakenUsername(request.getUsername())
+                && userRepository.existsByUsername(request.getUsername())) {
             throw new IllegalArgumentException("Ce nom d'utilisateur est déjà pris");
         }
 
-        if (userRepository.existsByEmail(request.getEmail())) {
+        if (identityFilter.mightBeTakenEmail(request.getEmail())
+                && userRepository.existsByEmail(request.getEmail())) {
             throw new IllegalArgumentException("Cet email est déjà utilisé");
         }
 
@@ -42,55 +58,83 @@ public class AuthService {
         // Création du nouvel utilisateur
         User user = new User();
         user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(hashingExecutor.submitAndWait(() -> passwordEncoder.encode(request.getPassword())));
         user.setFullName(request.getFullName());
         user.setEmail(request.getEmail());
         user.setRole(role);
         user.setEnabled(true);
 
-        User savedUser = userRepository.save(user);
-
-        // Génération du token JWT
-        String jwt = jwtService.generateToken(savedUser);
+        identityFilter.recordRegistered(user.getUsername(), user.getEmail());
+        User savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            // Inscription concurrente ou sur une autre instance (index uniques uk_users_username, uk_users_email)
+            throw new IllegalArgumentException("Ce nom d'utilisateur ou cet email est déjà utilisé");
+        }
 
-        return JwtResponse.builder()
-                .token(jwt)
-                .id(savedUser.getId())
-                .username(savedUser.getUsername())
-                .email(savedUser.getEmail())
-                .role(savedUser.getRole())
-                .build();
+        return openSession(savedUser);
     }
 
+    /**
+     * Authentifie un utilisateur ; la vérification BCrypt s'exécute sur l'exécuteur dédié.
+     *
+     * @throws org.springframework.security.core.AuthenticationException si les identifiants sont invalides
+     * @throws java.util.concurrent.RejectedExecutionException si l'exécuteur BCrypt est saturé
+     */
     public JwtResponse login(LoginRequest request) {
-        Authentication authentication = authenticationManager.authenticate(
+        Authentication authentication = hashingExecutor.submitAndWait(() -> authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         request.getUsername(),
                         request.getPassword()
                 )
-        );
+        ));
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        User userDetails = (User) authentication.getPrincipal();
-        String jwt = jwtService.generateToken(userDetails);
+        return openSession((User) authentication.getPrincipal());
+    }
 
+    // Ouverture d'une session : token d'accès court et token de rafraîchissement
+    private JwtResponse openSession(User user) {
+        RefreshTokenService.IssuedToken refreshToken = refreshTokenService.issue(user);
         return JwtResponse.builder()
-                .token(jwt)
-                .id(userDetails.getId())
-                .username(userDetails.getUsername())
-                .email(userDetails.getEmail())
-                .role(userDetails.getRole())
+                .accessToken(jwtService.generateAccessToken(user, refreshToken.sessionId()))
+                .refreshToken(refreshToken.token())
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .roles(List.of(user.getRole().name()))
                 .build();
     }
 
+    /**
+     * Remplace un token de rafraîchissement par un nouveau, avec un nouveau token d'accès.
+     *
+     * @return empty si le token est invalide, expiré, déjà utilisé ou révoqué
+     */
+    public Optional<TokenRefreshResponse> refreshToken(String refreshToken) {
+        return refreshTokenService.rotate(refreshToken)
+                .map(rotation -> new TokenRefreshResponse(
+                        jwtService.generateAccessToken(rotation.user(), rotation.refreshToken().sessionId()),
+                        rotation.refreshToken().token(),
+                        "Bearer"));
+    }
+
+    /**
+     * Ferme la session du token de rafraîchissement ; ses tokens d'accès sont rejetés dès la validation.
+     */
+    public void logout(String refreshToken) {
+        refreshTokenService.revoke(refreshToken);
+    }
+
     public User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return null;
         }
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
+        // Le principal des requêtes est un JwtPrincipal : l'entité vient du cache des utilisateurs
+        return principalCache.get(authentication.getName())
                 .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
     }
 }
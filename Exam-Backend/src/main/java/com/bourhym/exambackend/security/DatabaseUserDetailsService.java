@@ -0,0 +1,25 @@
+package com.bourhym.exambackend.security;
+
+import com.bourhym.exambackend.security.repositories.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Chargement des utilisateurs pour l'authentification par mot de passe (connexion).
+ * Toujours lu en base : un mot de passe ou un compte modifié est pris en compte immédiatement.
+ */
+@Service
+@RequiredArgsConstructor
+public class DatabaseUserDetailsService implements UserDetailsService {
+
+    private final UserRepository userRepository;
+
+    @Override
+    public UserDetails loadUserByUsername(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé: " + username));
+    }
+}
@@ -1,5 +1,7 @@
 package com.bourhym.exambackend.security;
 
+import com.bourhym.exambackend.security.enums.Role;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,21 +9,30 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 
+/**
+ * Authentification des requêtes par token JWT, à partir des seuls claims vérifiés (ID, rôle, version) :
+ * aucune lecture de la table users par requête. Les tokens sans ces claims (émis avant leur ajout)
+ * sont résolus par le cache des utilisateurs. Les tokens d'une session fermée (déconnexion, réutilisation
+ * d'un token de rafraîchissement) sont rejetés par l'index des sessions révoquées.
+ */
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final TokenVersionStore tokenVersionStore;
+    private final UserPrincipalCache principalCache;
+    private final SessionRevocationIndex sessionRevocations;
 
     @Override
     protected void doFilterInternal(
@@ -30,26 +41,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String username;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
-        username = jwtService.extractUsername(jwt);
+        // Un seul décodage et une seule vérification de signature par requête (ou aucun si le token est en cache)
+        Optional<Claims> claims = jwtService.verify(authHeader.substring(7));
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-            if (jwtService.isTokenValid(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
+        if (claims.isPresent() && claims.get().getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UsernamePasswordAuthenticationToken authToken = authenticate(claims.get());
+            if (authToken != null) {
                 authToken.setDetails(
                         new WebAuthenticationDetailsSource().buildDetails(request)
                 );
@@ -58,4 +62,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    // Authentification construite depuis les claims, ou null si le token est révoqué ou incomplet
+    private UsernamePasswordAuthenticationToken authenticate(Claims claims) {
+        Long userId = claims.get(JwtService.CLAIM_USER_ID, Long.class);
+        String role = claims.get(JwtService.CLAIM_ROLE, String.class);
+        Integer tokenVersion = claims.get(JwtService.CLAIM_TOKEN_VERSION, Integer.class);
+
+        if (userId == null || role == null || tokenVersion == null) {
+            return principalCache.get(claims.getSubject())
+                    .filter(user -> user.isEnabled() && tokenVersionStore.isCurrent(user.getId(), 0))
+                    .map(user -> new UsernamePasswordAuthenticationToken(
+                            new JwtPrincipal(user.getId(), user.getUsername(), user.getRole()), null, user.getAuthorities()))
+                    .orElse(null);
+        }
+        if (!tokenVersionStore.isCurrent(userId, tokenVersion)
+                || sessionRevocations.isRevoked(claims.get(JwtService.CLAIM_SESSION_ID, String.class))) {
+            return null;
+        }
+        Role parsedRole;
+        try {
+            parsedRole = Role.valueOf(role);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(
+                new JwtPrincipal(userId, claims.getSubject(), parsedRole),
+                null,
+                List.of(new SimpleGrantedAuthority(parsedRole.name()))
+        );
+    }
 }
@@ -0,0 +1,17 @@
+package com.bourhym.exambackend.security;
+
+import com.bourhym.exambackend.security.enums.Role;
+
+import java.security.Principal;
+
+/**
+ * Utilisateur authentifié reconstruit à partir des claims d'un token, sans lecture en base.
+ * L'entité User correspondante s'obtient par UserPrincipalCache si nécessaire.
+ */
+public record JwtPrincipal(Long id, String username, Role role) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
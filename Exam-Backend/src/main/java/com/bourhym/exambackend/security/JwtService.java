@@ -1,10 +1,16 @@
 package com.bourhym.exambackend.security;
 
+import com.bourhym.exambackend.security.entities.User;
+import com.bourhym.exambackend.utils.LruCache;
+import com.bourhym.exambackend.utils.Sha256;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -13,28 +19,118 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
+/**
+ * Génération et vérification des tokens JWT.
+ * La clé et le parseur sont construits une seule fois ; un token est vérifié (signature et expiration)
+ * en un seul décodage, et ses claims vérifiés sont conservés jusqu'à son expiration dans un cache borné,
+ * indexé par l'empreinte SHA-256 du token. Les tokens des utilisateurs portent leur ID, leur rôle et
+ * leur version de tokens (voir TokenVersionStore). Les tokens d'accès ont une durée de vie courte
+ * et portent l'identifiant de leur session (voir RefreshTokenService).
+ */
 @Service
 public class JwtService {
 
+    // Claims portés par les tokens, pour authentifier une requête sans lecture en base
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+    public static final String CLAIM_SESSION_ID = "sid";
+
     @Value("${jwt.secret:mySecretKey123456789012345678901234567890}")
     private String jwtSecret;
 
-    @Value("${jwt.expiration:86400000}")
+    @Value("${jwt.expiration:900000}")
     private int jwtExpirationMs;
 
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    private Key signInKey;
+    private JwtParser parser;
+    private LruCache<String, VerifiedToken> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
+        verifiedTokens = new LruCache<>(verifiedCacheSize, jwtExpirationMs);
+    }
+
+    /**
+     * Vérifie la signature et l'expiration d'un token, depuis le cache si possible.
+     * Les claims retournés sont partagés : ils ne doivent pas être modifiés.
+     *
+     * @return Les claims du token, ou empty s'il est invalide ou expiré
+     */
+    public Optional<Claims> verify(String token) {
+        String key = Sha256.hex(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                return Optional.of(cached.claims());
+            }
+            verifiedTokens.remove(key);
+            return Optional.empty();
+        }
+
+        Claims claims;
+        try {
+            // Le parseur rejette les tokens expirés
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            return Optional.empty();
+        }
+        verifiedTokens.put(key, new VerifiedToken(claims, expiration.getTime()));
+        return Optional.of(claims);
+    }
+
+    /**
+     * @return Le nom d'utilisateur du token, ou null s'il est invalide ou expiré
+     */
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
+    /**
+     * @return Le claim du token, ou null s'il est invalide ou expiré
+     */
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return verify(token).map(claimsResolver).orElse(null);
     }
 
+    /**
+     * Génère un token ; pour un User, le token porte son ID, son rôle et sa version de tokens.
+     */
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof User user) {
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_ROLE, user.getRole().name());
+            claims.put(CLAIM_TOKEN_VERSION, user.getTokenVersion());
+        }
+        return generateToken(claims, userDetails);
+    }
+
+    /**
+     * Génère un token d'accès rattaché à une session de tokens de rafraîchissement.
+     */
+    public String generateAccessToken(User user, String sessionId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_USER_ID, user.getId());
+        claims.put(CLAIM_ROLE, user.getRole().name());
+        claims.put(CLAIM_TOKEN_VERSION, user.getTokenVersion());
+        claims.put(CLAIM_SESSION_ID, sessionId);
+        return generateToken(claims, user);
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
@@ -52,34 +148,23 @@ public class JwtService {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return verify(token)
+                .map(claims -> isTokenValid(claims, userDetails))
+                .orElse(false);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * @param claims Des claims déjà vérifiés par {@link #verify(String)}
+     */
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return userDetails.getUsername().equals(claims.getSubject());
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private record VerifiedToken(Claims claims, long expiresAt) {
     }
 }
@@ -0,0 +1,85 @@
+package com.bourhym.exambackend.security;
+
+import com.bourhym.exambackend.utils.LruCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limitation des tentatives d'authentification par adresse IP et par nom d'utilisateur, avant tout
+ * calcul BCrypt. Chaque clé dispose d'un seau de jetons rechargé en continu ; les seaux sont gardés
+ * dans des caches bornés (les clés les moins récentes sont oubliées).
+ */
+@Component
+public class LoginThrottle {
+
+    @Value("${auth.throttle.ip-per-minute:30}")
+    private int ipPerMinute;
+
+    @Value("${auth.throttle.username-per-minute:10}")
+    private int usernamePerMinute;
+
+    @Value("${auth.throttle.max-tracked-keys:100000}")
+    private int maxTrackedKeys;
+
+    private LruCache<String, TokenBucket> ipBuckets;
+    private LruCache<String, TokenBucket> usernameBuckets;
+
+    private final LongAdder throttled = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        ipBuckets = new LruCache<>(maxTrackedKeys);
+        usernameBuckets = new LruCache<>(maxTrackedKeys);
+    }
+
+    /**
+     * Consomme une tentative pour l'adresse IP et, s'il est fourni, pour le nom d'utilisateur.
+     *
+     * @return 0 si la tentative est autorisée, sinon le délai d'attente conseillé en secondes
+     */
+    public long tryAcquire(String ip, String username) {
+        long now = System.nanoTime();
+        long wait = ipBuckets.computeIfAbsent(ip, key -> new TokenBucket(ipPerMinute, now)).tryAcquire(now);
+        if (wait == 0 && username != null) {
+            String key = username.toLowerCase(Locale.ROOT);
+            wait = usernameBuckets.computeIfAbsent(key, k -> new TokenBucket(usernamePerMinute, now)).tryAcquire(now);
+        }
+        if (wait > 0) {
+            throttled.increment();
+        }
+        return wait;
+    }
+
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(int perMinute, long now) {
+            this.capacity = Math.max(1, perMinute);
+            this.tokensPerNano = capacity / 60e9;
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        // 0 si un jeton a été consommé, sinon le nombre de secondes avant le prochain jeton
+        synchronized long tryAcquire(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano / 1e9));
+        }
+    }
+}
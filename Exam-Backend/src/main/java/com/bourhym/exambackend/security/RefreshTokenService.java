@@ -0,0 +1,127 @@
+package com.bourhym.exambackend.security;
+
+import com.bourhym.exambackend.security.entities.RefreshToken;
+import com.bourhym.exambackend.security.entities.User;
+import com.bourhym.exambackend.security.repositories.RefreshTokenRepository;
+import com.bourhym.exambackend.security.repositories.UserRepository;
+import com.bourhym.exambackend.utils.Sha256;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.bourhym.exambackend.utils.TransactionHooks.afterCommit;
+
+/**
+ * Émission, rotation et révocation des tokens de rafraîchissement.
+ * Seuls les rafraîchissements et les déconnexions lisent la base : les requêtes authentifiées
+ * n'utilisent que les claims du token d'accès et les index de révocation en mémoire.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Value("${jwt.refresh-expiration:604800000}")
+    private long refreshExpirationMs;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRevocationIndex sessionRevocations;
+
+    /**
+     * Ouvre une nouvelle session pour l'utilisateur.
+     */
+    @Transactional
+    public IssuedToken issue(User user) {
+        return store(user.getId(), UUID.randomUUID().toString());
+    }
+
+    /**
+     * Remplace un token de rafraîchissement par un nouveau de la même session.
+     * La réutilisation d'un token déjà remplacé (token volé) révoque toute la session.
+     *
+     * @return Le nouveau token et l'utilisateur, ou empty si le token est inconnu, expiré ou révoqué
+     */
+    @Transactional
+    public Optional<Rotation> rotate(String rawToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHashForUpdate(Sha256.hex(rawToken)).orElse(null);
+        Date now = new Date();
+        if (current == null || current.getRevokedAt() != null || current.getExpiresAt().before(now)) {
+            return Optional.empty();
+        }
+        if (current.getRotatedAt() != null) {
+            revokeFamily(current.getFamilyId(), now);
+            return Optional.empty();
+        }
+
+        User user = userRepository.findById(current.getUserId()).orElse(null);
+        if (user == null || !user.isEnabled()) {
+            revokeFamily(current.getFamilyId(), now);
+            return Optional.empty();
+        }
+        current.setRotatedAt(now);
+        return Optional.of(new Rotation(store(user.getId(), current.getFamilyId()), user));
+    }
+
+    /**
+     * Ferme la session du token (déconnexion). Sans effet si le token est inconnu.
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHashForUpdate(Sha256.hex(rawToken))
+                .ifPresent(token -> revokeFamily(token.getFamilyId(), new Date()));
+    }
+
+    /**
+     * Ferme toutes les sessions d'un utilisateur (dans la transaction de l'appelant).
+     */
+    public void revokeAllForUser(Long userId) {
+        for (String familyId : refreshTokenRepository.findActiveFamilyIdsByUserId(userId)) {
+            afterCommit(() -> sessionRevocations.revoke(familyId));
+        }
+        refreshTokenRepository.revokeAllByUserId(userId, new Date());
+    }
+
+    @Scheduled(cron = "${jwt.refresh-purge-cron:0 15 4 * * *}")
+    @Transactional
+    public void purgeExpired() {
+        refreshTokenRepository.deleteExpired(new Date());
+    }
+
+    private IssuedToken store(Long userId, String familyId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(new RefreshToken(null, Sha256.hex(rawToken), userId, familyId,
+                new Date(System.currentTimeMillis() + refreshExpirationMs), null, null));
+        return new IssuedToken(rawToken, familyId);
+    }
+
+    private void revokeFamily(String familyId, Date now) {
+        refreshTokenRepository.revokeFamily(familyId, now);
+        // L'index en mémoire n'est mis à jour qu'une fois la révocation validée
+        afterCommit(() -> sessionRevocations.revoke(familyId));
+    }
+
+    /**
+     * Token de rafraîchissement émis (en clair, transmis une seule fois au client) et sa session.
+     */
+    public record IssuedToken(String token, String sessionId) {
+    }
+
+    public record Rotation(IssuedToken refreshToken, User user) {
+    }
+}
@@ -49,7 +49,9 @@ public class SecurityConfig {
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .requestMatchers("/api/employe/**").hasAnyRole("ADMIN", "EMPLOYE")
                         .requestMatchers("/api/clients/**").hasAnyRole("ADMIN", "EMPLOYE")
-                        .requestMatchers("/api/credits/*/approve", "/api/credits/*/reject").hasAnyRole("ADMIN", "EMPLOYE")
+                        .requestMatchers("/api/repayments/import", "/api/repayments/timeseries").hasAnyRole("ADMIN", "EMPLOYE")
+                        .requestMatchers("/api/credits/*/approve", "/api/credits/*/reject",
+                                "/api/credits/approve", "/api/credits/reject").hasAnyRole("ADMIN", "EMPLOYE")
 
                         // Les clients peuvent consulter leurs propres crédits et remboursements
                         .requestMatchers("/api/credits/client/**", "/api/repayments/credit/**").hasAnyRole("ADMIN", "EMPLOYE", "CLIENT")
@@ -71,8 +73,8 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of("*")); // Ou utilisez vos domaines spécifiques
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("authorization", "content-type", "x-auth-token"));
-        configuration.setExposedHeaders(List.of("x-auth-token"));
+        configuration.setAllowedHeaders(Arrays.asList("authorization", "content-type", "x-auth-token", "idempotency-key"));
+        configuration.setExposedHeaders(List.of("x-auth-token", "idempotent-replayed"));
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
         return source;
@@ -0,0 +1,54 @@
+package com.bourhym.exambackend.security;
+
+import com.bourhym.exambackend.security.repositories.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index en mémoire des sessions révoquées (familles de tokens de rafraîchissement), vérifié à chaque
+ * requête par le claim « sid » des tokens d'accès, sans lecture en base. Une session n'y reste que le
+ * temps de vie d'un token d'accès : au-delà, les tokens qui la portent ont expiré. L'index est rechargé
+ * périodiquement pour prendre en compte les révocations des autres instances.
+ */
+@Component
+public class SessionRevocationIndex {
+
+    @Value("${jwt.expiration:900000}")
+    private long accessTokenLifetimeMs;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    // Date de révocation (ms) par identifiant de session
+    private final Map<String, Long> revokedSessions = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${security.session-revocations.refresh-interval-ms:30000}",
+            fixedDelayString = "${security.session-revocations.refresh-interval-ms:30000}")
+    public void refresh() {
+        long horizon = System.currentTimeMillis() - accessTokenLifetimeMs;
+        for (Object[] row : refreshTokenRepository.findFamiliesRevokedSince(new Date(horizon))) {
+            revokedSessions.merge((String) row[0], ((Date) row[1]).getTime(), Math::max);
+        }
+        revokedSessions.values().removeIf(revokedAt -> revokedAt < horizon);
+    }
+
+    public boolean isRevoked(String sessionId) {
+        return sessionId != null && revokedSessions.containsKey(sessionId);
+    }
+
+    /**
+     * Enregistre une session révoquée par cette instance (après la validation de la révocation).
+     */
+    public void revoke(String sessionId) {
+        revokedSessions.put(sessionId, System.currentTimeMillis());
+    }
+}
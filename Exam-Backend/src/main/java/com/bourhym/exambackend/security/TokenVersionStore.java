@@ -0,0 +1,79 @@
+package com.bourhym.exambackend.security;
+
+import com.bourhym.exambackend.security.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.bourhym.exambackend.utils.TransactionHooks.afterCommit;
+
+/**
+ * Révocation des tokens par version : chaque utilisateur a une version de tokens, portée par le claim
+ * « ver » des tokens émis. Révoquer incrémente la version, ce qui invalide tous les tokens précédents.
+ * Les versions non nulles sont gardées en mémoire et vérifiées à chaque requête, sans lecture en base ;
+ * elles sont rechargées périodiquement pour prendre en compte les révocations des autres instances.
+ */
+@Component
+public class TokenVersionStore {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserPrincipalCache principalCache;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    // Version courante par ID d'utilisateur (absente : version 0)
+    private final Map<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${security.token-versions.refresh-interval-ms:30000}",
+            fixedDelayString = "${security.token-versions.refresh-interval-ms:30000}")
+    public void refresh() {
+        List<Object[]> rows = userRepository.findRevokedTokenVersions();
+        for (Object[] row : rows) {
+            // Une version n'est jamais abaissée : une révocation locale plus récente que la lecture est conservée
+            versions.merge(((Number) row[0]).longValue(), ((Number) row[1]).intValue(), Math::max);
+        }
+    }
+
+    /**
+     * @return true si un token de cette version n'a pas été révoqué
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return tokenVersion >= versions.getOrDefault(userId, 0);
+    }
+
+    public int currentVersion(Long userId) {
+        return versions.getOrDefault(userId, 0);
+    }
+
+    /**
+     * Révoque tous les tokens émis pour un utilisateur, y compris ses tokens de rafraîchissement.
+     *
+     * @return false si l'utilisateur n'existe pas
+     */
+    @Transactional
+    public boolean revokeAll(Long userId) {
+        if (userRepository.incrementTokenVersion(userId) == 0) {
+            return false;
+        }
+        int version = userRepository.findTokenVersionById(userId).orElseThrow();
+        refreshTokenService.revokeAllForUser(userId);
+        // La version en mémoire n'est relevée qu'une fois l'incrément validé
+        afterCommit(() -> {
+            versions.merge(userId, version, Math::max);
+            principalCache.clear();
+        });
+        return true;
+    }
+}
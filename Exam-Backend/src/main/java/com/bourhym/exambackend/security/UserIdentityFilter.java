@@ -0,0 +1,100 @@
+package com.bourhym.exambackend.security;
+
+import com.bourhym.exambackend.security.repositories.UserRepository;
+import com.bourhym.exambackend.utils.ExistenceFilter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.bourhym.exambackend.utils.TransactionHooks.afterCommit;
+
+/**
+ * Filtres de Bloom des noms d'utilisateur et des emails des utilisateurs, consultés à l'inscription :
+ * une valeur absente du filtre n'est pas vérifiée en base. Les index uniques uk_users_username et
+ * uk_users_email restent la garantie d'unicité.
+ */
+@Component
+public class UserIdentityFilter {
+
+    // Nombre d'utilisateurs lus par requête lors de la construction
+    private static final int PAGE_SIZE = 1000;
+
+    @Value("${existence-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${existence-filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${existence-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private ExistenceFilter usernames;
+    private ExistenceFilter emails;
+
+    @PostConstruct
+    void init() {
+        usernames = new ExistenceFilter(expectedInsertions, falsePositiveRate);
+        emails = new ExistenceFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${existence-filter.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long count = userRepository.count();
+        usernames.rebuild(count, sink -> forEachIdentity(1, sink));
+        emails.rebuild(count, sink -> forEachIdentity(2, sink));
+    }
+
+    // Parcourt une colonne de (id, username, email) par pages d'IDs
+    private void forEachIdentity(int column, Consumer<String> sink) {
+        long afterId = 0L;
+        while (true) {
+            List<Object[]> rows = userRepository.findIdentityPage(afterId, PageRequest.ofSize(PAGE_SIZE));
+            if (rows.isEmpty()) {
+                break;
+            }
+            rows.forEach(row -> sink.accept((String) row[column]));
+            afterId = ((Number) rows.get(rows.size() - 1)[0]).longValue();
+        }
+    }
+
+    /**
+     * @return false si le nom d'utilisateur n'est certainement pas pris
+     */
+    public boolean mightBeTakenUsername(String username) {
+        return !enabled || usernames.mightContain(username);
+    }
+
+    /**
+     * @return false si l'email n'est certainement utilisé par aucun utilisateur
+     */
+    public boolean mightBeTakenEmail(String email) {
+        return !enabled || emails.mightContain(email);
+    }
+
+    /**
+     * Ajoute un utilisateur enregistré, avant l'insertion puis à nouveau après la validation.
+     */
+    public void recordRegistered(String username, String email) {
+        usernames.add(username);
+        emails.add(email);
+        afterCommit(() -> {
+            usernames.add(username);
+            emails.add(email);
+        });
+    }
+}
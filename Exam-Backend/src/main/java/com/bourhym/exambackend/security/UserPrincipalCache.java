@@ -0,0 +1,46 @@
+package com.bourhym.exambackend.security;
+
+import com.bourhym.exambackend.security.entities.User;
+import com.bourhym.exambackend.security.repositories.UserRepository;
+import com.bourhym.exambackend.utils.LruCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache borné et à durée de vie courte des utilisateurs par nom d'utilisateur, pour les rares cas
+ * qui ont besoin de l'entité User (utilisateur courant, tokens sans claims de rôle).
+ * Les entités retournées sont détachées et partagées : elles ne doivent pas être modifiées.
+ */
+@Component
+public class UserPrincipalCache {
+
+    @Value("${security.principal-cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${security.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private LruCache<String, User> users;
+
+    @PostConstruct
+    void init() {
+        users = new LruCache<>(maxEntries, TimeUnit.SECONDS.toMillis(ttlSeconds));
+    }
+
+    public Optional<User> get(String username) {
+        return Optional.ofNullable(users.computeIfAbsent(username,
+                key -> userRepository.findByUsername(key).orElse(null)));
+    }
+
+    public void clear() {
+        users.clear();
+    }
+}
@@ -0,0 +1,23 @@
+package com.bourhym.exambackend.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Mesures de l'exécuteur BCrypt et de la limitation des tentatives d'authentification.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthMetricsDTO {
+    private int hashingThreads;
+    private int activeHashes;
+    private int queueDepth;
+    private int queueCapacity;
+    private long hashCount;
+    private double averageHashMillis;
+    private double maxHashMillis;
+    private long rejectedCount; // File pleine ou délai dépassé (503)
+    private long throttledCount; // Tentatives limitées par IP ou nom d'utilisateur (429)
+}
@@ -1,20 +1,26 @@
 package com.bourhym.exambackend.security.dto;
 
-import com.bourhym.exambackend.security.enums.Role;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
+/**
+ * Réponse de connexion et d'inscription, au format AuthResponse du client Angular.
+ */
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class JwtResponse {
-    private String token;
-    private String type = "Bearer";
+    private String accessToken;
+    private String refreshToken;
+    @Builder.Default
+    private String tokenType = "Bearer";
     private Long id;
     private String username;
     private String email;
-    private Role role;
+    private List<String> roles;
 }
@@ -0,0 +1,48 @@
+package com.bourhym.exambackend.security.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Token de rafraîchissement, stocké sous forme d'empreinte SHA-256 (le token lui-même n'est jamais enregistré).
+ * Chaque rafraîchissement remplace le token par un nouveau de la même famille (session) ; la réutilisation
+ * d'un token déjà remplacé révoque toute la famille.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "uk_refresh_tokens_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+        @Index(name = "idx_refresh_tokens_user", columnList = "user_id"), // Révocation de toutes les sessions
+        @Index(name = "idx_refresh_tokens_revoked_at", columnList = "revoked_at"), // Index des sessions révoquées
+        @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at") // Purge des expirés
+})
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 64, nullable = false)
+    private String tokenHash;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(length = 36, nullable = false)
+    private String familyId; // Identifiant de session, porté par le claim « sid » des tokens d'accès
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date expiresAt;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date rotatedAt; // Remplacé par un nouveau token (null : token courant de la famille)
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date revokedAt; // Famille révoquée (déconnexion, réutilisation, révocation de l'utilisateur)
+}
@@ -16,13 +16,17 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "uk_users_username", columnList = "username", unique = true),
+        @Index(name = "uk_users_email", columnList = "email", unique = true),
+        @Index(name = "idx_users_token_version", columnList = "token_version") // Versions révoquées
+})
 public class User implements UserDetails {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String username;
 
     @Column(nullable = false)
@@ -30,7 +34,6 @@ public class User implements UserDetails {
 
     private String fullName;
 
-    @Column(unique = true)
     private String email;
 
     @Enumerated(EnumType.STRING)
@@ -38,6 +41,10 @@ public class User implements UserDetails {
 
     private boolean enabled = true;
 
+    // Version des tokens : incrémentée pour révoquer tous les tokens émis jusque-là
+    @Column(nullable = false)
+    private int tokenVersion;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority(role.name()));
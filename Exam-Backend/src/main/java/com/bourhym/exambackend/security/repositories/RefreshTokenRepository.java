@@ -0,0 +1,42 @@
+package com.bourhym.exambackend.security.repositories;
+
+import com.bourhym.exambackend.security.entities.RefreshToken;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    // Verrouillé : deux rafraîchissements concurrents du même token sont sérialisés
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RefreshToken r WHERE r.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHashForUpdate(String tokenHash);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE RefreshToken r SET r.revokedAt = :now WHERE r.familyId = :familyId AND r.revokedAt IS NULL")
+    int revokeFamily(String familyId, Date now);
+
+    // Familles (sessions) actives de l'utilisateur, avant leur révocation
+    @Query("SELECT DISTINCT r.familyId FROM RefreshToken r WHERE r.userId = :userId AND r.revokedAt IS NULL")
+    List<String> findActiveFamilyIdsByUserId(Long userId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE RefreshToken r SET r.revokedAt = :now WHERE r.userId = :userId AND r.revokedAt IS NULL")
+    int revokeAllByUserId(Long userId, Date now);
+
+    // Paires (famille, date de révocation) des sessions révoquées depuis la date donnée
+    @Query("SELECT r.familyId, MAX(r.revokedAt) FROM RefreshToken r WHERE r.revokedAt > :since GROUP BY r.familyId")
+    List<Object[]> findFamiliesRevokedSince(Date since);
+
+    // Purge des tokens expirés
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :now")
+    int deleteExpired(Date now);
+}
@@ -0,0 +1,139 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.utils.LruCache;
+import org.springframework.stereotype.Component;
+
+import static com.bourhym.exambackend.utils.AmortizationMath.cents;
+import static com.bourhym.exambackend.utils.AmortizationMath.installment;
+import static com.bourhym.exambackend.utils.AmortizationMath.validate;
+
+/**
+ * Calcul des tableaux d'amortissement à mensualités constantes.
+ * Les colonnes sont stockées dans des tableaux primitifs (aucun objet par échéance) et les
+ * tableaux calculés sont mis en cache par (montant, durée, taux). Le montant total dû et le solde
+ * restant, calculés sans tableau, sont dans AmortizationMath.
+ */
+@Component
+public class AmortizationEngine {
+
+    private static final int CACHE_SIZE = 1024;
+
+    private final LruCache<ScheduleKey, Schedule> cache = new LruCache<>(CACHE_SIZE);
+
+    /**
+     * Retourne le tableau d'amortissement d'un crédit, depuis le cache si possible.
+     *
+     * @param amount Le montant emprunté
+     * @param duration La durée en mois
+     * @param interestRate Le taux d'intérêt annuel en pourcentage
+     * @throws IllegalArgumentException si les paramètres du crédit sont invalides
+     */
+    public Schedule schedule(Double amount, Integer duration, Double interestRate) {
+        validate(amount, duration, interestRate);
+        return cache.computeIfAbsent(new ScheduleKey(amount, duration, interestRate),
+                key -> compute(key.amount(), key.duration(), key.interestRate()));
+    }
+
+    /**
+     * Calcule le tableau d'amortissement complet (montants arrondis au centime).
+     * La dernière échéance solde le capital restant dû.
+     */
+    static Schedule compute(double amount, int duration, double interestRate) {
+        double monthlyRate = interestRate / 100 / 12;
+        double installment = cents(installment(amount, duration, monthlyRate));
+
+        double[] installments = new double[duration];
+        double[] interests = new double[duration];
+        double[] principals = new double[duration];
+        double[] outstandings = new double[duration];
+
+        double outstanding = amount;
+        double totalInterest = 0.0;
+        for (int month = 0; month < duration; month++) {
+            double interest = cents(outstanding * monthlyRate);
+            double principal = month == duration - 1 ? outstanding : installment - interest;
+            outstanding = cents(outstanding - principal);
+
+            installments[month] = cents(principal + interest);
+            interests[month] = interest;
+            principals[month] = cents(principal);
+            outstandings[month] = outstanding;
+            totalInterest += interest;
+        }
+        return new Schedule(installments, interests, principals, outstandings, cents(totalInterest), cents(amount + totalInterest));
+    }
+
+    private record ScheduleKey(double amount, int duration, double interestRate) {
+    }
+
+    /**
+     * Tableau d'amortissement stocké par colonnes. Les instances sont partagées via le cache :
+     * les accesseurs de colonnes retournent des copies.
+     */
+    public static final class Schedule {
+        private final double[] installments;
+        private final double[] interests;
+        private final double[] principals;
+        private final double[] outstandings;
+        private final double totalInterest;
+        private final double totalPayable;
+
+        Schedule(double[] installments, double[] interests, double[] principals, double[] outstandings,
+                 double totalInterest, double totalPayable) {
+            this.installments = installments;
+            this.interests = interests;
+            this.principals = principals;
+            this.outstandings = outstandings;
+            this.totalInterest = totalInterest;
+            this.totalPayable = totalPayable;
+        }
+
+        public int getDuration() {
+            return installments.length;
+        }
+
+        public double getMonthlyInstallment() {
+            return installments[0];
+        }
+
+        public double getTotalInterest() {
+            return totalInterest;
+        }
+
+        public double getTotalPayable() {
+            return totalPayable;
+        }
+
+        public double installmentAt(int month) {
+            return installments[month];
+        }
+
+        public double interestAt(int month) {
+            return interests[month];
+        }
+
+        public double principalAt(int month) {
+            return principals[month];
+        }
+
+        public double outstandingAt(int month) {
+            return outstandings[month];
+        }
+
+        public double[] getInstallments() {
+            return installments.clone();
+        }
+
+        public double[] getInterests() {
+            return interests.clone();
+        }
+
+        public double[] getPrincipals() {
+            return principals.clone();
+        }
+
+        public double[] getOutstandings() {
+            return outstandings.clone();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.dtos.CacheStatisticsDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lecture des statistiques du cache de second niveau (compteurs cumulés depuis le démarrage
+ * ou la dernière remise à zéro).
+ */
+@Service
+public class CacheStatisticsService {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public CacheStatisticsDTO getStatistics() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        Statistics statistics = sessionFactory.getStatistics();
+
+        List<CacheStatisticsDTO.Region> regions = new ArrayList<>();
+        String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regionNames);
+        for (String name : regionNames) {
+            // Régions d'entités, de collections et de requêtes (null pour la région des horodatages)
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+            if (region == null) {
+                continue;
+            }
+            regions.add(new CacheStatisticsDTO.Region(name, region.getHitCount(), region.getMissCount(),
+                    region.getPutCount(), region.getElementCountInMemory(),
+                    ratio(region.getHitCount(), region.getMissCount())));
+        }
+
+        return new CacheStatisticsDTO(
+                sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled(),
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(),
+                ratio(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount()),
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                ratio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()),
+                regions
+        );
+    }
+
+    /**
+     * Remet à zéro les compteurs (par exemple avant une mesure).
+     */
+    public void resetStatistics() {
+        entityManagerFactory.unwrap(SessionFactory.class).getStatistics().clear();
+    }
+
+    private static Double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total > 0 ? (double) hits / total : null;
+    }
+}
@@ -0,0 +1,83 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.repositories.ClientRepository;
+import com.bourhym.exambackend.utils.ExistenceFilter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static com.bourhym.exambackend.utils.TransactionHooks.afterCommit;
+
+/**
+ * Filtre de Bloom des emails de clients : un email absent du filtre n'est pas vérifié en base.
+ * Le filtre est construit au démarrage puis chaque nuit (les emails supprimés ou modifiés y restent
+ * jusque-là, ce qui ne produit que des faux positifs). L'index unique uk_client_email reste la garantie
+ * d'unicité, notamment pour les emails enregistrés par une autre instance.
+ */
+@Component
+public class ClientEmailFilter {
+
+    // Nombre de clients lus par requête lors de la construction
+    private static final int PAGE_SIZE = 1000;
+
+    @Value("${existence-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${existence-filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${existence-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    private ExistenceFilter emails;
+
+    @PostConstruct
+    void init() {
+        emails = new ExistenceFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${existence-filter.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        emails.rebuild(clientRepository.count(), sink -> {
+            long afterId = 0L;
+            while (true) {
+                List<Object[]> rows = clientRepository.findEmailPage(afterId, PageRequest.ofSize(PAGE_SIZE));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                rows.forEach(row -> sink.accept((String) row[1]));
+                afterId = ((Number) rows.get(rows.size() - 1)[0]).longValue();
+            }
+        });
+    }
+
+    /**
+     * @return false si l'email n'est certainement utilisé par aucun client
+     */
+    public boolean mightBeUsed(String email) {
+        return !enabled || emails.mightContain(email);
+    }
+
+    /**
+     * Ajoute l'email d'un client enregistré, avant l'insertion puis à nouveau après la validation
+     * (pour qu'il figure dans un filtre reconstruit entre-temps).
+     */
+    public void recordUsed(String email) {
+        emails.add(email);
+        afterCommit(() -> emails.add(email));
+    }
+}
@@ -0,0 +1,162 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.dtos.ClientDTO;
+import com.bourhym.exambackend.utils.LruCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.bourhym.exambackend.utils.TransactionHooks.afterCompletion;
+
+/**
+ * Cache local des recherches de clients, borné en taille et en durée de vie :
+ * clients par ID, ID du client par email, et emails utilisés ou non (cache négatif, plus court).
+ *
+ * Une modification invalide les entrées concernées immédiatement, puis à nouveau après la validation
+ * de sa transaction. Une valeur lue en base n'est mise en cache que si aucune invalidation n'a eu lieu
+ * depuis le début de sa lecture : une lecture concurrente d'une modification ne remet pas en cache
+ * une valeur périmée. Chaque instance a son propre cache : entre instances, la durée de vie borne l'écart.
+ */
+@Component
+public class ClientLookupCache {
+
+    @Value("${clients.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${clients.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${clients.cache.negative-ttl-seconds:30}")
+    private long negativeTtlSeconds;
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private LruCache<Long, ClientDTO> clientsById;
+    private LruCache<String, Long> idsByEmail;
+    private LruCache<String, Boolean> usedEmails;
+    private LruCache<String, Boolean> unusedEmails;
+
+    @PostConstruct
+    void init() {
+        long ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        clientsById = new LruCache<>(maxEntries, ttlMillis);
+        idsByEmail = new LruCache<>(maxEntries, ttlMillis);
+        usedEmails = new LruCache<>(maxEntries, ttlMillis);
+        unusedEmails = new LruCache<>(maxEntries, TimeUnit.SECONDS.toMillis(negativeTtlSeconds));
+    }
+
+    /**
+     * Marque le début d'une lecture en base ; à passer aux méthodes put.
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * @return Une copie du client en cache, ou null
+     */
+    public ClientDTO getById(Long id) {
+        return copy(clientsById.get(id));
+    }
+
+    public void putById(ClientDTO client, long stamp) {
+        if (invalidations.get() == stamp) {
+            clientsById.put(client.getId(), copy(client));
+        }
+    }
+
+    /**
+     * @return L'ID du premier client ayant cet email, ou null s'il n'est pas en cache
+     */
+    public Long getIdByEmail(String email) {
+        return idsByEmail.get(email);
+    }
+
+    public void putIdByEmail(String email, Long id, long stamp) {
+        if (invalidations.get() == stamp) {
+            idsByEmail.put(email, id);
+        }
+    }
+
+    /**
+     * @return true ou false si l'utilisation de l'email est en cache, null sinon
+     */
+    public Boolean isEmailUsed(String email) {
+        if (usedEmails.get(email) != null) {
+            return true;
+        }
+        return unusedEmails.get(email) != null ? false : null;
+    }
+
+    public void putEmailUsed(String email, boolean used, long stamp) {
+        if (invalidations.get() == stamp) {
+            (used ? usedEmails : unusedEmails).put(email, true);
+        }
+    }
+
+    /**
+     * Invalide un client et ses emails (ancien et nouveau en cas de modification),
+     * maintenant puis après la validation de la transaction en cours.
+     */
+    public void invalidate(Long id, String... emails) {
+        List<String> keys = Arrays.stream(emails).filter(Objects::nonNull).toList();
+        evict(id, keys);
+        afterCompletion(() -> evict(id, keys));
+    }
+
+    /**
+     * Vide les quatre espaces de clés ; les lectures en cours ne sont pas remises en cache.
+     */
+    public void clear() {
+        invalidations.incrementAndGet();
+        clientsById.clear();
+        idsByEmail.clear();
+        usedEmails.clear();
+        unusedEmails.clear();
+    }
+
+    private void evict(Long id, List<String> emails) {
+        invalidations.incrementAndGet();
+        if (id != null) {
+            clientsById.remove(id);
+        }
+        for (String email : emails) {
+            idsByEmail.remove(email);
+            usedEmails.remove(email);
+            unusedEmails.remove(email);
+        }
+    }
+
+    /**
+     * Compteurs de succès et d'échecs, et taille de chaque espace de clés.
+     */
+    public Map<String, Map<String, Long>> statistics() {
+        Map<String, Map<String, Long>> statistics = new LinkedHashMap<>();
+        statistics.put("clientsById", statistics(clientsById));
+        statistics.put("idsByEmail", statistics(idsByEmail));
+        statistics.put("usedEmails", statistics(usedEmails));
+        statistics.put("unusedEmails", statistics(unusedEmails));
+        return statistics;
+    }
+
+    private static Map<String, Long> statistics(LruCache<?, ?> cache) {
+        return Map.of("hits", cache.getHits(), "misses", cache.getMisses(), "size", (long) cache.size());
+    }
+
+    private static ClientDTO copy(ClientDTO client) {
+        if (client == null) {
+            return null;
+        }
+        List<Long> creditIds = client.getCreditIds() != null ? new ArrayList<>(client.getCreditIds()) : null;
+        return new ClientDTO(client.getId(), client.getName(), client.getEmail(), creditIds);
+    }
+}
@@ -0,0 +1,292 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.dtos.ClientDTO;
+import com.bourhym.exambackend.repositories.ClientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import static com.bourhym.exambackend.utils.TransactionHooks.afterCommit;
+
+/**
+ * Index en mémoire des noms de clients par trigrammes, pour la recherche « contient ».
+ * Les noms sont normalisés (minuscules, sans accents) ; une recherche intersecte les listes des
+ * trigrammes du terme, vérifie les candidats puis les classe (début du nom, début d'un mot, position,
+ * longueur). L'index est construit au démarrage, mis à jour à la validation des modifications de
+ * clients, et reconstruit périodiquement pour prendre en compte les écritures des autres instances.
+ * Tant qu'il n'est pas construit, la recherche passe par la base.
+ */
+@Component
+public class ClientNameIndex {
+
+    // Nombre de clients lus par requête lors de la construction
+    private static final int PAGE_SIZE = 1000;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    @Value("${clients.name-index.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private Index index = new Index();
+    private boolean ready;
+
+    // Modifications validées pendant une reconstruction (null pour une suppression), rejouées sur le nouvel index
+    private Map<Long, ClientDTO> pendingChanges;
+
+    /**
+     * Reconstruit l'index depuis la base, par pages de clients triés par ID.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${clients.name-index.rebuild-interval-ms:600000}",
+            fixedDelayString = "${clients.name-index.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            withWriteLock(() -> pendingChanges = new HashMap<>());
+            List<ClientDTO> clients = new ArrayList<>();
+            long afterId = 0L;
+            while (true) {
+                List<ClientDTO> page = clientRepository.findDtoPage(afterId, PageRequest.ofSize(PAGE_SIZE));
+                if (page.isEmpty()) {
+                    break;
+                }
+                clients.addAll(page);
+                afterId = page.get(page.size() - 1).getId();
+            }
+            replace(clients);
+        } finally {
+            withWriteLock(() -> pendingChanges = null);
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Remplace le contenu de l'index, puis rejoue les modifications validées pendant la lecture.
+     */
+    void replace(List<ClientDTO> clients) {
+        Index rebuilt = new Index();
+        for (ClientDTO client : clients) {
+            rebuilt.add(client);
+        }
+        withWriteLock(() -> {
+            if (pendingChanges != null) {
+                pendingChanges.forEach((id, client) -> {
+                    if (client != null) {
+                        rebuilt.add(client);
+                    } else {
+                        rebuilt.remove(id);
+                    }
+                });
+            }
+            index = rebuilt;
+            ready = true;
+        });
+    }
+
+    /**
+     * Ajoute ou remplace un client, à la validation de la transaction en cours.
+     */
+    public void put(Long id, String name, String email) {
+        ClientDTO client = new ClientDTO(id, name, email);
+        afterCommit(() -> withWriteLock(() -> {
+            index.add(client);
+            if (pendingChanges != null) {
+                pendingChanges.put(id, client);
+            }
+        }));
+    }
+
+    /**
+     * Retire un client, à la validation de la transaction en cours.
+     */
+    public void remove(Long id) {
+        afterCommit(() -> withWriteLock(() -> {
+            index.remove(id);
+            if (pendingChanges != null) {
+                pendingChanges.put(id, null);
+            }
+        }));
+    }
+
+    /**
+     * Recherche les clients dont le nom contient le terme, classés par pertinence.
+     *
+     * @return Les clients (sans les IDs de leurs crédits), ou empty si l'index n'est pas encore construit
+     */
+    public Optional<List<ClientDTO>> search(String term) {
+        String normalized = normalize(term);
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            return Optional.of(index.search(normalized));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ordre de pertinence pour un terme : nom commençant par le terme, puis terme en début de mot,
+     * puis position du terme, puis nom le plus court, puis ID.
+     */
+    public static Comparator<ClientDTO> ranking(String term) {
+        Comparator<Match> relevance = relevance(normalize(term));
+        return Comparator.comparing((ClientDTO client) -> new Match(client.getId(),
+                new Entry(client.getName(), client.getEmail(), normalize(client.getName()))), relevance);
+    }
+
+    // Minuscules et sans accents
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static Comparator<Match> relevance(String term) {
+        return Comparator.comparingInt((Match match) -> rank(match.entry().normalizedName(), term))
+                .thenComparingInt(match -> match.entry().normalizedName().indexOf(term))
+                .thenComparingInt(match -> match.entry().normalizedName().length())
+                .thenComparing(Match::id, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
+    private static int rank(String name, String term) {
+        int position = name.indexOf(term);
+        if (position == 0) {
+            return 0;
+        }
+        if (position > 0 && !Character.isLetterOrDigit(name.charAt(position - 1))) {
+            return 1;
+        }
+        return 2;
+    }
+
+    private static long trigram(String value, int start) {
+        return ((long) value.charAt(start) << 32) | ((long) value.charAt(start + 1) << 16) | value.charAt(start + 2);
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Noms normalisés par ID et listes d'IDs par trigramme
+    private static final class Index {
+        private final Map<Long, Entry> entries = new HashMap<>();
+        private final Map<Long, Set<Long>> postings = new HashMap<>();
+
+        void add(ClientDTO client) {
+            remove(client.getId());
+            Entry entry = new Entry(client.getName(), client.getEmail(), normalize(client.getName()));
+            entries.put(client.getId(), entry);
+            for (int i = 0; i + 3 <= entry.normalizedName().length(); i++) {
+                postings.computeIfAbsent(trigram(entry.normalizedName(), i), key -> new HashSet<>()).add(client.getId());
+            }
+        }
+
+        void remove(Long id) {
+            Entry entry = entries.remove(id);
+            if (entry == null) {
+                return;
+            }
+            for (int i = 0; i + 3 <= entry.normalizedName().length(); i++) {
+                long key = trigram(entry.normalizedName(), i);
+                Set<Long> ids = postings.get(key);
+                if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        }
+
+        List<ClientDTO> search(String term) {
+            List<Match> matches = new ArrayList<>();
+            if (term.length() < 3) {
+                // Terme trop court pour les trigrammes : parcours des noms, en mémoire
+                entries.forEach((id, entry) -> {
+                    if (entry.normalizedName().contains(term)) {
+                        matches.add(new Match(id, entry));
+                    }
+                });
+            } else {
+                for (Long id : candidates(term)) {
+                    Entry entry = entries.get(id);
+                    // Les trigrammes peuvent être présents sans être consécutifs
+                    if (entry.normalizedName().contains(term)) {
+                        matches.add(new Match(id, entry));
+                    }
+                }
+            }
+            matches.sort(relevance(term));
+            List<ClientDTO> clients = new ArrayList<>(matches.size());
+            for (Match match : matches) {
+                clients.add(new ClientDTO(match.id(), match.entry().name(), match.entry().email()));
+            }
+            return clients;
+        }
+
+        // Intersection des listes des trigrammes du terme, de la plus courte à la plus longue
+        private Set<Long> candidates(String term) {
+            List<Set<Long>> lists = new ArrayList<>();
+            for (int i = 0; i + 3 <= term.length(); i++) {
+                Set<Long> ids = postings.get(trigram(term, i));
+                if (ids == null) {
+                    return Set.of();
+                }
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+            Set<Long> result = new HashSet<>(lists.get(0));
+            for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+                result.retainAll(lists.get(i));
+            }
+            return result;
+        }
+    }
+
+    private record Entry(String name, String email, String normalizedName) {
+    }
+
+    private record Match(Long id, Entry entry) {
+    }
+}
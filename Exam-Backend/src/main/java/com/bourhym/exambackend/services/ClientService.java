@@ -1,13 +1,17 @@
 package com.bourhym.exambackend.services;
 
 import com.bourhym.exambackend.dtos.ClientDTO;
+import com.bourhym.exambackend.dtos.CursorPage;
 import com.bourhym.exambackend.entities.Client;
 import com.bourhym.exambackend.mappers.ClientMapper;
 import com.bourhym.exambackend.repositories.ClientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +25,15 @@ public class ClientService {
     @Autowired
     private ClientMapper clientMapper;
 
+    @Autowired
+    private ClientLookupCache lookupCache;
+
+    @Autowired
+    private ClientNameIndex nameIndex;
+
+    @Autowired
+    private ClientEmailFilter emailFilter;
+
     /**
      * Enregistre un nouveau client.
      *
@@ -28,8 +41,12 @@ public class ClientService {
      * @return Le client enregistré avec son ID généré
      */
     public ClientDTO saveClient(ClientDTO clientDTO) {
+        emailFilter.recordUsed(clientDTO.getEmail());
         Client client = clientMapper.toEntity(clientDTO);
         client = clientRepository.save(client);
+        // L'email peut être en cache comme inutilisé
+        lookupCache.invalidate(client.getId(), client.getEmail());
+        nameIndex.put(client.getId(), client.getName(), client.getEmail());
         return clientMapper.toDto(client);
     }
 
@@ -40,20 +57,40 @@ public class ClientService {
      */
     @Transactional(readOnly = true)
     public List<ClientDTO> getAllClients() {
-        List<Client> clients = clientRepository.findAll();
-        return clientMapper.toDto(clients);
+        return clientMapper.withCreditIds(clientRepository.findAllDto());
     }
 
     /**
-     * Récupère un client par son ID.
+     * Récupère une page de clients triés par ID, à partir d'un curseur.
+     *
+     * @param afterId L'ID du dernier client de la page précédente (0 pour la première page)
+     * @param limit Le nombre maximal de clients à retourner
+     * @return La page de clients et le curseur de la page suivante
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ClientDTO> getClientsPage(long afterId, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<ClientDTO> clients = clientRepository.findDtoPage(afterId, PageRequest.ofSize(pageSize + 1));
+        return CursorPage.of(clientMapper.withCreditIds(clients), pageSize, ClientDTO::getId);
+    }
+
+    /**
+     * Récupère un client par son ID, depuis le cache quand il y est, sans ouvrir de transaction.
      *
      * @param id L'ID du client à récupérer
      * @return Le client correspondant ou null s'il n'existe pas
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<ClientDTO> getClientById(Long id) {
-        return clientRepository.findById(id)
-                .map(clientMapper::toDto);
+        ClientDTO cached = lookupCache.getById(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long stamp = lookupCache.stamp();
+        Optional<ClientDTO> client = clientRepository.findDtoById(id)
+                .map(clientMapper::withCreditIds);
+        client.ifPresent(dto -> lookupCache.putById(dto, stamp));
+        return client;
     }
 
     /**
@@ -62,10 +99,24 @@ public class ClientService {
      * @param email L'email du client à rechercher
      * @return Le client correspondant ou null s'il n'existe pas
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<ClientDTO> getClientByEmail(String email) {
-        return clientRepository.findFirstByEmail(email)
-                .map(clientMapper::toDto);
+        Long cachedId = lookupCache.getIdByEmail(email);
+        if (cachedId != null) {
+            Optional<ClientDTO> client = getClientById(cachedId);
+            if (client.isPresent() && email.equals(client.get().getEmail())) {
+                return client;
+            }
+        }
+        long stamp = lookupCache.stamp();
+        Optional<ClientDTO> client = clientRepository.findDtoByEmail(email).stream()
+                .findFirst()
+                .map(clientMapper::withCreditIds);
+        client.ifPresent(dto -> {
+            lookupCache.putIdByEmail(email, dto.getId(), stamp);
+            lookupCache.putById(dto, stamp);
+        });
+        return client;
     }
 
     /**
@@ -76,20 +127,34 @@ public class ClientService {
      */
     @Transactional(readOnly = true)
     public List<ClientDTO> getAllClientsByEmail(String email) {
-        List<Client> clients = clientRepository.findByEmail(email);
-        return clientMapper.toDto(clients);
+        return clientMapper.withCreditIds(clientRepository.findDtoByEmail(email));
     }
 
     /**
      * Recherche des clients par nom (recherche partielle, insensible à la casse).
+     * Passe par l'index des noms, ou par la base tant que l'index n'est pas construit.
      *
      * @param name Le nom ou partie du nom à rechercher
-     * @return Liste des clients dont le nom contient le terme recherché
+     * @return Liste des clients dont le nom contient le terme recherché, classés par pertinence
      */
     @Transactional(readOnly = true)
     public List<ClientDTO> searchClientsByName(String name) {
-        List<Client> clients = clientRepository.findByNameContainingIgnoreCase(name);
-        return clientMapper.toDto(clients);
+        Optional<List<ClientDTO>> indexed = nameIndex.search(name);
+        if (indexed.isPresent()) {
+            return clientMapper.withCreditIds(indexed.get());
+        }
+        List<ClientDTO> clients = new ArrayList<>(clientRepository.findDtoByNameLike(likePattern(name)));
+        clients.sort(ClientNameIndex.ranking(name));
+        return clientMapper.withCreditIds(clients);
+    }
+
+    // Motif LIKE "contient" en minuscules, avec les caractères spéciaux échappés
+    private static String likePattern(String term) {
+        String escaped = term.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
     }
 
     /**
@@ -99,12 +164,20 @@ public class ClientService {
      * @return Le client mis à jour, ou null si le client n'existe pas
      */
     public Optional<ClientDTO> updateClient(ClientDTO clientDTO) {
-        if (clientDTO.getId() == null || !clientRepository.existsById(clientDTO.getId())) {
+        if (clientDTO.getId() == null) {
+            return Optional.empty();
+        }
+        Optional<String> previousEmail = clientRepository.findById(clientDTO.getId()).map(Client::getEmail);
+        if (previousEmail.isEmpty()) {
             return Optional.empty();
         }
 
+        emailFilter.recordUsed(clientDTO.getEmail());
         Client client = clientMapper.toEntity(clientDTO);
         client = clientRepository.save(client);
+        // Invalide l'ancien et le nouvel email
+        lookupCache.invalidate(client.getId(), previousEmail.get(), client.getEmail());
+        nameIndex.put(client.getId(), client.getName(), client.getEmail());
         return Optional.of(clientMapper.toDto(client));
     }
 
@@ -115,11 +188,14 @@ public class ClientService {
      * @return true si le client a été supprimé, false sinon
      */
     public boolean deleteClient(Long id) {
-        if (!clientRepository.existsById(id)) {
+        Optional<Client> client = clientRepository.findById(id);
+        if (client.isEmpty()) {
             return false;
         }
 
-        clientRepository.deleteById(id);
+        clientRepository.delete(client.get());
+        lookupCache.invalidate(id, client.get().getEmail());
+        nameIndex.remove(id);
         return true;
     }
 
@@ -129,8 +205,19 @@ public class ClientService {
      * @param email L'email à vérifier
      * @return true si l'email est déjà utilisé, false sinon
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean isEmailAlreadyUsed(String email) {
-        return clientRepository.existsByEmail(email);
+        // Absent du filtre de Bloom : certainement inutilisé, sans requête
+        if (!emailFilter.mightBeUsed(email)) {
+            return false;
+        }
+        Boolean cached = lookupCache.isEmailUsed(email);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = lookupCache.stamp();
+        boolean used = clientRepository.existsByEmail(email);
+        lookupCache.putEmailUsed(email, used, stamp);
+        return used;
     }
 }
@@ -0,0 +1,123 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.repositories.CreditRepository;
+import com.bourhym.exambackend.repositories.RepaymentRepository;
+import com.bourhym.exambackend.utils.AmortizationMath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Vérifie le solde dénormalisé des crédits (totalRepaid, outstanding) par rapport à la somme
+ * réelle de leurs remboursements, et corrige les écarts. Exécuté chaque nuit, et au démarrage seulement
+ * si credits.balance-reconciliation.on-startup est activé (parcours complet de la table des crédits).
+ */
+@Component
+public class CreditBalanceReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(CreditBalanceReconciler.class);
+
+    private static final int PAGE_SIZE = 1000;
+
+    // Écart toléré, en dessous du centime
+    private static final double TOLERANCE = 0.005;
+
+    @Value("${credits.balance-reconciliation.on-startup:false}")
+    private boolean onStartup;
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    @Autowired
+    private RepaymentRepository repaymentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (onStartup) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Parcourt tous les crédits par tranches d'IDs et corrige ceux dont le solde est incohérent.
+     */
+    @Scheduled(cron = "${credits.balance-reconciliation.cron:0 0 3 * * *}")
+    public void reconcile() {
+        int corrected = 0;
+        long afterId = 0L;
+        while (true) {
+            List<Object[]> rows = creditRepository.findBalancesWithRepaidSum(afterId, PageRequest.ofSize(PAGE_SIZE));
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            List<Long> mismatched = new ArrayList<>();
+            for (Object[] row : rows) {
+                if (isMismatched(row)) {
+                    mismatched.add(((Number) row[0]).longValue());
+                }
+            }
+            for (Long creditId : mismatched) {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> fix(creditId)))) {
+                    corrected++;
+                }
+            }
+            afterId = ((Number) rows.get(rows.size() - 1)[0]).longValue();
+        }
+        if (corrected > 0) {
+            log.warn("Solde corrigé pour {} crédit(s)", corrected);
+        }
+    }
+
+    // Recalcule le solde sous verrou : la lecture de la tranche a pu précéder un remboursement concurrent
+    private boolean fix(Long creditId) {
+        Credit credit = creditRepository.findByIdForUpdate(creditId).orElse(null);
+        if (credit == null) {
+            return false;
+        }
+        Double sum = repaymentRepository.sumAmountByCreditId(creditId);
+        double totalRepaid = Math.round((sum != null ? sum : 0.0) * 100) / 100.0;
+        Double outstanding = AmortizationMath.outstanding(credit.getAmount(), credit.getDuration(),
+                credit.getInterestRate(), totalRepaid);
+        if (!differs(credit.getTotalRepaid(), totalRepaid) && !differs(credit.getOutstanding(), outstanding)) {
+            return false;
+        }
+        credit.setTotalRepaid(totalRepaid);
+        credit.setOutstanding(outstanding);
+        return true;
+    }
+
+    private static boolean isMismatched(Object[] row) {
+        Double amount = (Double) row[1];
+        Integer duration = (Integer) row[2];
+        Double interestRate = (Double) row[3];
+        Double storedTotal = (Double) row[4];
+        Double storedOutstanding = (Double) row[5];
+        double actualTotal = ((Number) row[6]).doubleValue();
+
+        return differs(storedTotal, actualTotal)
+                || differs(storedOutstanding, AmortizationMath.outstanding(amount, duration, interestRate, actualTotal));
+    }
+
+    private static boolean differs(Double stored, Double expected) {
+        if (stored == null || expected == null) {
+            return !Objects.equals(stored, expected);
+        }
+        return Math.abs(stored - expected) > TOLERANCE;
+    }
+}
@@ -1,27 +1,55 @@
 package com.bourhym.exambackend.services;
 
+import com.bourhym.exambackend.dtos.AmortizationScheduleDTO;
+import com.bourhym.exambackend.dtos.BulkCreditResultDTO;
+import com.bourhym.exambackend.dtos.CreditApplicationDTO;
 import com.bourhym.exambackend.dtos.CreditDTO;
+import com.bourhym.exambackend.dtos.CreditDecisionRequestDTO;
+import com.bourhym.exambackend.dtos.CreditDecisionResultDTO;
+import com.bourhym.exambackend.dtos.CursorPage;
 import com.bourhym.exambackend.dtos.PersonalCreditDTO;
 import com.bourhym.exambackend.dtos.ProfessionalCreditDTO;
 import com.bourhym.exambackend.dtos.RealEstateCreditDTO;
 import com.bourhym.exambackend.entities.*;
 import com.bourhym.exambackend.enums.CreditStatus;
+import com.bourhym.exambackend.enums.CreditType;
 import com.bourhym.exambackend.exceptions.ResourceNotFoundException;
 import com.bourhym.exambackend.mappers.*;
 import com.bourhym.exambackend.repositories.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class CreditService {
 
+    // Nombre maximal de demandes (ou de crédits) traités dans un envoi en lot
+    public static final int MAX_BULK_SIZE = 10_000;
+
+    // Nombre d'insertions envoyées avant de vider le contexte de persistance (multiple de hibernate.jdbc.batch_size)
+    private static final int BULK_FLUSH_SIZE = 500;
+
+    // Taille maximale d'une clause IN
+    private static final int MAX_IN_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Autowired
     private CreditRepository creditRepository;
 
@@ -49,6 +77,15 @@ public class CreditService {
     @Autowired
     private RealEstateCreditMapper realEstateCreditMapper;
 
+    @Autowired
+    private CreditStatisticsStore statisticsStore;
+
+    @Autowired
+    private ClientLookupCache clientLookupCache;
+
+    @Autowired
+    private AmortizationEngine amortizationEngine;
+
     /**
      * Crée une demande de crédit personnel.
      *
@@ -66,6 +103,9 @@ public class CreditService {
         credit.setStatus(CreditStatus.IN_PROGRESS);
 
         credit = personalCreditRepository.save(credit);
+        statisticsStore.recordCreated(CreditType.PERSONAL, credit.getStatus(), credit.getAmount(), credit.getInterestRate());
+        // Les IDs de crédits du client en cache ont changé
+        clientLookupCache.invalidate(creditDTO.getClientId());
         return personalCreditMapper.toDto(credit);
     }
 
@@ -86,6 +126,9 @@ public class CreditService {
         credit.setStatus(CreditStatus.IN_PROGRESS);
 
         credit = professionalCreditRepository.save(credit);
+        statisticsStore.recordCreated(CreditType.PROFESSIONAL, credit.getStatus(), credit.getAmount(), credit.getInterestRate());
+        // Les IDs de crédits du client en cache ont changé
+        clientLookupCache.invalidate(creditDTO.getClientId());
         return professionalCreditMapper.toDto(credit);
     }
 
@@ -106,9 +149,134 @@ public class CreditService {
         credit.setStatus(CreditStatus.IN_PROGRESS);
 
         credit = realEstateCreditRepository.save(credit);
+        statisticsStore.recordCreated(CreditType.REAL_ESTATE, credit.getStatus(), credit.getAmount(), credit.getInterestRate());
+        // Les IDs de crédits du client en cache ont changé
+        clientLookupCache.invalidate(creditDTO.getClientId());
         return realEstateCreditMapper.toDto(credit);
     }
 
+    /**
+     * Crée en lot des demandes de crédit de types mélangés.
+     * Les clients sont vérifiés en une requête IN, référencés sans être chargés, et les crédits
+     * sont insérés par lots JDBC. Une demande invalide n'empêche pas l'enregistrement des autres.
+     *
+     * @param applications Les demandes de crédit
+     * @return Le résultat de chaque demande, dans l'ordre de l'envoi
+     * @throws IllegalArgumentException si l'envoi dépasse la taille maximale autorisée
+     */
+    public List<BulkCreditResultDTO> createCreditsInBulk(List<CreditApplicationDTO> applications) {
+        if (applications.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("Un envoi ne peut pas dépasser " + MAX_BULK_SIZE + " demandes");
+        }
+
+        Set<Long> existingClientIds = findExistingClientIds(applications);
+        List<BulkCreditResultDTO> results = new ArrayList<>(applications.size());
+        List<Credit> pending = new ArrayList<>(BULK_FLUSH_SIZE);
+        List<Integer> pendingIndexes = new ArrayList<>(BULK_FLUSH_SIZE);
+        Date requestDate = new Date();
+
+        for (int i = 0; i < applications.size(); i++) {
+            CreditApplicationDTO application = applications.get(i);
+            String error = validateApplication(application, existingClientIds);
+            if (error != null) {
+                results.add(BulkCreditResultDTO.failure(i, error));
+                continue;
+            }
+
+            Credit credit = toCredit(application);
+            credit.setRequestDate(requestDate);
+            credit.setStatus(CreditStatus.IN_PROGRESS);
+            credit.setClient(clientRepository.getReferenceById(application.getClientId()));
+            entityManager.persist(credit);
+            statisticsStore.recordCreated(application.getCreditType(), credit.getStatus(), credit.getAmount(), credit.getInterestRate());
+            clientLookupCache.invalidate(application.getClientId());
+
+            results.add(null); // Complété une fois l'ID attribué
+            pending.add(credit);
+            pendingIndexes.add(i);
+            if (pending.size() == BULK_FLUSH_SIZE) {
+                flushBulk(pending, pendingIndexes, results);
+            }
+        }
+        flushBulk(pending, pendingIndexes, results);
+        return results;
+    }
+
+    // Envoie les insertions en attente puis vide le contexte de persistance
+    private void flushBulk(List<Credit> pending, List<Integer> pendingIndexes, List<BulkCreditResultDTO> results) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        for (int i = 0; i < pending.size(); i++) {
+            int index = pendingIndexes.get(i);
+            results.set(index, BulkCreditResultDTO.success(index, pending.get(i).getId()));
+        }
+        entityManager.clear();
+        pending.clear();
+        pendingIndexes.clear();
+    }
+
+    private Set<Long> findExistingClientIds(List<CreditApplicationDTO> applications) {
+        List<Long> clientIds = applications.stream()
+                .map(CreditApplicationDTO::getClientId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        Set<Long> existing = new HashSet<>(clientIds.size());
+        for (int from = 0; from < clientIds.size(); from += MAX_IN_SIZE) {
+            existing.addAll(clientRepository.findExistingIds(
+                    clientIds.subList(from, Math.min(from + MAX_IN_SIZE, clientIds.size()))));
+        }
+        return existing;
+    }
+
+    private static String validateApplication(CreditApplicationDTO application, Set<Long> existingClientIds) {
+        if (application == null || application.getCreditType() == null) {
+            return "Type de crédit manquant";
+        }
+        if (application.getClientId() == null || !existingClientIds.contains(application.getClientId())) {
+            return "Client non trouvé avec l'ID: " + application.getClientId();
+        }
+        if (application.getAmount() == null || application.getAmount() <= 0) {
+            return "Le montant doit être positif";
+        }
+        if (application.getDuration() == null || application.getDuration() <= 0) {
+            return "La durée doit être positive";
+        }
+        if (application.getInterestRate() == null || application.getInterestRate() < 0) {
+            return "Le taux d'intérêt doit être positif ou nul";
+        }
+        return null;
+    }
+
+    private static Credit toCredit(CreditApplicationDTO application) {
+        Credit credit;
+        switch (application.getCreditType()) {
+            case PERSONAL -> {
+                PersonalCredit personalCredit = new PersonalCredit();
+                personalCredit.setReason(application.getReason());
+                credit = personalCredit;
+            }
+            case PROFESSIONAL -> {
+                ProfessionalCredit professionalCredit = new ProfessionalCredit();
+                professionalCredit.setReason(application.getReason());
+                professionalCredit.setCompanyName(application.getCompanyName());
+                credit = professionalCredit;
+            }
+            default -> {
+                RealEstateCredit realEstateCredit = new RealEstateCredit();
+                realEstateCredit.setPropertyType(application.getPropertyType());
+                credit = realEstateCredit;
+            }
+        }
+        credit.setAmount(application.getAmount());
+        credit.setDuration(application.getDuration());
+        credit.setInterestRate(application.getInterestRate());
+        return credit;
+    }
+
     /**
      * Récupère tous les crédits.
      *
@@ -116,8 +284,21 @@ public class CreditService {
      */
     @Transactional(readOnly = true)
     public List<CreditDTO> getAllCredits() {
-        List<Credit> credits = creditRepository.findAll();
-        return creditMapper.toDto(credits);
+        return creditMapper.withRepaymentIds(creditRepository.findAllDto());
+    }
+
+    /**
+     * Récupère une page de crédits triés par ID, à partir d'un curseur.
+     *
+     * @param afterId L'ID du dernier crédit de la page précédente (0 pour la première page)
+     * @param limit Le nombre maximal de crédits à retourner
+     * @return La page de crédits et le curseur de la page suivante
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<CreditDTO> getCreditsPage(long afterId, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<CreditDTO> credits = creditRepository.findDtoPage(afterId, PageRequest.ofSize(pageSize + 1));
+        return CursorPage.of(creditMapper.withRepaymentIds(credits), pageSize, CreditDTO::getId);
     }
 
     /**
@@ -128,8 +309,28 @@ public class CreditService {
      */
     @Transactional(readOnly = true)
     public Optional<CreditDTO> getCreditById(Long id) {
-        return creditRepository.findById(id)
-                .map(creditMapper::toDto);
+        return creditRepository.findDtoById(id)
+                .map(creditMapper::withRepaymentIds);
+    }
+
+    /**
+     * Calcule le tableau d'amortissement d'un crédit.
+     *
+     * @param id L'ID du crédit
+     * @return Le tableau d'amortissement ou empty si le crédit n'existe pas
+     * @throws IllegalArgumentException si le montant, la durée ou le taux du crédit sont invalides
+     */
+    @Transactional(readOnly = true)
+    public Optional<AmortizationScheduleDTO> getCreditSchedule(Long id) {
+        return creditRepository.findDtoById(id)
+                .map(credit -> {
+                    AmortizationEngine.Schedule schedule = amortizationEngine.schedule(
+                            credit.getAmount(), credit.getDuration(), credit.getInterestRate());
+                    return new AmortizationScheduleDTO(credit.getId(), credit.getAmount(), credit.getDuration(),
+                            credit.getInterestRate(), schedule.getMonthlyInstallment(), schedule.getTotalInterest(),
+                            schedule.getTotalPayable(), schedule.getInstallments(), schedule.getInterests(),
+                            schedule.getPrincipals(), schedule.getOutstandings());
+                });
     }
 
     /**
@@ -145,9 +346,12 @@ public class CreditService {
         }
 
         Credit credit = creditOptional.get();
+        CreditStatus previousStatus = credit.getStatus();
         credit.setStatus(CreditStatus.ACCEPTED);
         credit.setAcceptanceDate(new Date());
         credit = creditRepository.save(credit);
+        recordTransition(CreditType.ofNullable(credit), previousStatus, CreditStatus.ACCEPTED,
+                credit.getAmount(), credit.getInterestRate());
 
         return Optional.of(creditMapper.toDto(credit));
     }
@@ -165,12 +369,115 @@ public class CreditService {
         }
 
         Credit credit = creditOptional.get();
+        CreditStatus previousStatus = credit.getStatus();
         credit.setStatus(CreditStatus.REJECTED);
         credit = creditRepository.save(credit);
+        recordTransition(CreditType.ofNullable(credit), previousStatus, CreditStatus.REJECTED,
+                credit.getAmount(), credit.getInterestRate());
 
         return Optional.of(creditMapper.toDto(credit));
     }
 
+    /**
+     * Approuve en lot les crédits en cours désignés par leurs IDs ou par un filtre.
+     *
+     * @param request Les IDs des crédits, ou le filtre de sélection
+     * @return Les IDs des crédits approuvés et ceux qui ont été ignorés ; au plus MAX_BULK_SIZE crédits
+     *         sont traités par filtre, truncated signale qu'il en reste à traiter
+     * @throws IllegalArgumentException si ni IDs ni critère de filtre ne sont fournis
+     */
+    public CreditDecisionResultDTO approveCredits(CreditDecisionRequestDTO request) {
+        Date acceptanceDate = new Date();
+        return transitionCredits(request, CreditStatus.ACCEPTED,
+                ids -> creditRepository.approveInProgress(ids, acceptanceDate));
+    }
+
+    /**
+     * Rejette en lot les crédits en cours désignés par leurs IDs ou par un filtre.
+     *
+     * @param request Les IDs des crédits, ou le filtre de sélection
+     * @return Les IDs des crédits rejetés et ceux qui ont été ignorés ; au plus MAX_BULK_SIZE crédits
+     *         sont traités par filtre, truncated signale qu'il en reste à traiter
+     * @throws IllegalArgumentException si ni IDs ni critère de filtre ne sont fournis
+     */
+    public CreditDecisionResultDTO rejectCredits(CreditDecisionRequestDTO request) {
+        return transitionCredits(request, CreditStatus.REJECTED, creditRepository::rejectInProgress);
+    }
+
+    // Verrouille les crédits en cours sélectionnés, les met à jour en une requête par tranche d'IDs,
+    // puis répercute chaque transition sur les statistiques
+    private CreditDecisionResultDTO transitionCredits(CreditDecisionRequestDTO request, CreditStatus target,
+                                                      ToIntFunction<List<Long>> update) {
+        List<Long> requestedIds = request.getIds() != null
+                ? request.getIds().stream().filter(Objects::nonNull).distinct().collect(Collectors.toList())
+                : null;
+        if (requestedIds != null && requestedIds.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("Une décision en lot ne peut pas dépasser " + MAX_BULK_SIZE + " crédits");
+        }
+
+        List<Object[]> candidates = new ArrayList<>();
+        if (requestedIds != null) {
+            for (int from = 0; from < requestedIds.size(); from += MAX_IN_SIZE) {
+                candidates.addAll(creditRepository.lockInProgressByIds(
+                        requestedIds.subList(from, Math.min(from + MAX_IN_SIZE, requestedIds.size()))));
+            }
+        } else {
+            if (request.getClientId() == null && request.getMinAmount() == null && request.getMaxAmount() == null) {
+                throw new IllegalArgumentException("Une liste d'IDs ou au moins un critère de filtre est requis");
+            }
+            // Une ligne de plus que la limite pour savoir si la sélection est tronquée
+            candidates.addAll(creditRepository.lockInProgressByFilter(request.getClientId(),
+                    request.getMinAmount(), request.getMaxAmount(), PageRequest.ofSize(MAX_BULK_SIZE + 1)));
+        }
+        boolean truncated = candidates.size() > MAX_BULK_SIZE;
+        if (truncated) {
+            candidates.remove(MAX_BULK_SIZE);
+        }
+
+        List<Long> transitionedIds = new ArrayList<>(candidates.size());
+        for (Object[] candidate : candidates) {
+            transitionedIds.add(((Number) candidate[0]).longValue());
+        }
+        // Les lignes sont verrouillées : chaque candidat change effectivement de statut
+        for (int from = 0; from < transitionedIds.size(); from += MAX_IN_SIZE) {
+            update.applyAsInt(transitionedIds.subList(from, Math.min(from + MAX_IN_SIZE, transitionedIds.size())));
+        }
+        for (Object[] candidate : candidates) {
+            recordTransition(trackedType(candidate[1]), CreditStatus.IN_PROGRESS, target,
+                    (Double) candidate[2], (Double) candidate[3]);
+        }
+
+        List<Long> skippedIds = new ArrayList<>();
+        if (requestedIds != null) {
+            Set<Long> transitioned = new HashSet<>(transitionedIds);
+            for (Long id : requestedIds) {
+                if (!transitioned.contains(id)) {
+                    skippedIds.add(id);
+                }
+            }
+        }
+        return new CreditDecisionResultDTO(target, transitionedIds, skippedIds, truncated);
+    }
+
+    // Répercute un changement de statut sur les statistiques, qui ne comptent que les crédits typés :
+    // un crédit sans sous-classe (type null) change de statut sans y figurer
+    private void recordTransition(CreditType type, CreditStatus from, CreditStatus to, Double amount, Double interestRate) {
+        if (type != null) {
+            statisticsStore.recordTransition(type, from, to, amount, interestRate);
+        }
+    }
+
+    // Type suivi par les statistiques pour un code CREDIT_TYPE_CODE ; null pour un crédit sans sous-classe,
+    // comme CreditType.ofNullable
+    private static CreditType trackedType(Object typeCode) {
+        for (CreditType type : CreditType.values()) {
+            if (type.name().equals(typeCode)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
     /**
      * Récupère tous les crédits d'un client.
      *
@@ -179,8 +486,7 @@ public class CreditService {
      */
     @Transactional(readOnly = true)
     public List<CreditDTO> getCreditsByClient(Long clientId) {
-        List<Credit> credits = creditRepository.findByClientId(clientId);
-        return creditMapper.toDto(credits);
+        return creditMapper.withRepaymentIds(creditRepository.findDtoByClientId(clientId));
     }
 
     /**
@@ -191,50 +497,60 @@ public class CreditService {
      */
     @Transactional(readOnly = true)
     public List<CreditDTO> getCreditsByStatus(CreditStatus status) {
-        List<Credit> credits = creditRepository.findByStatus(status);
-        return creditMapper.toDto(credits);
+        return creditMapper.withRepaymentIds(creditRepository.findDtoByStatus(status));
     }
 
     /**
-     * Calcule le montant total des crédits acceptés.
+     * Récupère une page de crédits ayant un statut donné, triés par ID, à partir d'un curseur.
      *
-     * @return Le montant total
+     * @param status Le statut des crédits recherchés
+     * @param afterId L'ID du dernier crédit de la page précédente (0 pour la première page)
+     * @param limit Le nombre maximal de crédits à retourner
+     * @return La page de crédits et le curseur de la page suivante
      */
     @Transactional(readOnly = true)
+    public CursorPage<CreditDTO> getCreditsByStatusPage(CreditStatus status, long afterId, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<CreditDTO> credits = creditRepository.findDtoPageByStatus(status, afterId, PageRequest.ofSize(pageSize + 1));
+        return CursorPage.of(creditMapper.withRepaymentIds(credits), pageSize, CreditDTO::getId);
+    }
+
+    /**
+     * Calcule le montant total des crédits acceptés à partir des statistiques maintenues en mémoire.
+     *
+     * @return Le montant total
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Double getTotalAmountOfAcceptedCredits() {
-        List<Credit> acceptedCredits = creditRepository.findByStatus(CreditStatus.ACCEPTED);
-        return acceptedCredits.stream()
-                .mapToDouble(Credit::getAmount)
-                .sum();
+        double total = 0.0;
+        for (CreditType type : CreditType.values()) {
+            total += statisticsStore.getAmountSum(type, CreditStatus.ACCEPTED);
+        }
+        return total;
     }
 
     /**
-     * Calcule le montant total des crédits par type et par statut.
+     * Calcule le montant total des crédits par type et par statut à partir des statistiques
+     * maintenues en mémoire.
      *
      * @param status Le statut des crédits à analyser
-     * @return Une Map contenant les montants par type de crédit
+     * @return Les montants par type de crédit
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public CreditStatistics getCreditStatisticsByStatus(CreditStatus status) {
-        List<Credit> credits = creditRepository.findByStatus(status);
-
-        // Filtrer par type et calculer les sommes
-        double personalAmount = credits.stream()
-                .filter(c -> c instanceof PersonalCredit)
-                .mapToDouble(Credit::getAmount)
-                .sum();
-
-        double professionalAmount = credits.stream()
-                .filter(c -> c instanceof ProfessionalCredit)
-                .mapToDouble(Credit::getAmount)
-                .sum();
-
-        double realEstateAmount = credits.stream()
-                .filter(c -> c instanceof RealEstateCredit)
-                .mapToDouble(Credit::getAmount)
-                .sum();
+        long count = 0;
+        double interestRateSum = 0.0;
+        for (CreditType type : CreditType.values()) {
+            count += statisticsStore.getCount(type, status);
+            interestRateSum += statisticsStore.getInterestRateSum(type, status);
+        }
 
-        return new CreditStatistics(personalAmount, professionalAmount, realEstateAmount);
+        return new CreditStatistics(
+                statisticsStore.getAmountSum(CreditType.PERSONAL, status),
+                statisticsStore.getAmountSum(CreditType.PROFESSIONAL, status),
+                statisticsStore.getAmountSum(CreditType.REAL_ESTATE, status),
+                count,
+                count > 0 ? interestRateSum / count : 0.0);
     }
 
     /**
@@ -245,12 +561,21 @@ public class CreditService {
         private final double professionalCreditAmount;
         private final double realEstateCreditAmount;
         private final double totalAmount;
+        private final long totalCount;
+        private final double averageInterestRate;
 
         public CreditStatistics(double personalCreditAmount, double professionalCreditAmount, double realEstateCreditAmount) {
+            this(personalCreditAmount, professionalCreditAmount, realEstateCreditAmount, 0, 0.0);
+        }
+
+        public CreditStatistics(double personalCreditAmount, double professionalCreditAmount, double realEstateCreditAmount,
+                                long totalCount, double averageInterestRate) {
             this.personalCreditAmount = personalCreditAmount;
             this.professionalCreditAmount = professionalCreditAmount;
             this.realEstateCreditAmount = realEstateCreditAmount;
             this.totalAmount = personalCreditAmount + professionalCreditAmount + realEstateCreditAmount;
+            this.totalCount = totalCount;
+            this.averageInterestRate = averageInterestRate;
         }
 
         public double getPersonalCreditAmount() {
@@ -268,5 +593,13 @@ public class CreditService {
         public double getTotalAmount() {
             return totalAmount;
         }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        public double getAverageInterestRate() {
+            return averageInterestRate;
+        }
     }
 }
@@ -0,0 +1,172 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.enums.CreditStatus;
+import com.bourhym.exambackend.enums.CreditType;
+import com.bourhym.exambackend.repositories.PersonalCreditRepository;
+import com.bourhym.exambackend.repositories.ProfessionalCreditRepository;
+import com.bourhym.exambackend.repositories.RealEstateCreditRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.bourhym.exambackend.utils.TransactionHooks.afterCommit;
+
+/**
+ * Statistiques des crédits maintenues de façon incrémentale par (type de crédit × statut).
+ * Les compteurs sont mis à jour à la validation de chaque transaction qui crée un crédit ou change
+ * son statut, et rechargés depuis la base au démarrage puis périodiquement, pour prendre en compte
+ * les écritures des autres instances et corriger une éventuelle dérive.
+ */
+@Component
+public class CreditStatisticsStore {
+
+    @Autowired
+    private PersonalCreditRepository personalCreditRepository;
+
+    @Autowired
+    private ProfessionalCreditRepository professionalCreditRepository;
+
+    @Autowired
+    private RealEstateCreditRepository realEstateCreditRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    // Compteurs courants ; remplacés en bloc par une reconstruction (accès sous le verrou de l'instance)
+    private Matrix matrix = new Matrix();
+
+    // Variations validées pendant une reconstruction, rejouées sur les nouveaux compteurs
+    private List<Delta> pendingDeltas;
+
+    /**
+     * Recharge les compteurs depuis les agrégats de la base (une requête par type de crédit, dans une
+     * même transaction). Les compteurs sont construits à part puis substitués aux compteurs courants,
+     * après y avoir rejoué les variations validées pendant la lecture.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${credits.statistics.refresh-interval-ms:300000}",
+            fixedDelayString = "${credits.statistics.refresh-interval-ms:300000}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                pendingDeltas = new ArrayList<>();
+            }
+            Matrix rebuilt = transactionTemplate.execute(status -> {
+                Matrix loaded = new Matrix();
+                loaded.load(CreditType.PERSONAL, personalCreditRepository.aggregateByStatus());
+                loaded.load(CreditType.PROFESSIONAL, professionalCreditRepository.aggregateByStatus());
+                loaded.load(CreditType.REAL_ESTATE, realEstateCreditRepository.aggregateByStatus());
+                return loaded;
+            });
+            // Une variation validée juste avant la lecture mais appliquée après le début de la
+            // reconstruction est comptée deux fois ; la reconstruction suivante corrige l'écart
+            synchronized (this) {
+                for (Delta delta : pendingDeltas) {
+                    rebuilt.apply(delta);
+                }
+                matrix = rebuilt;
+            }
+        } finally {
+            synchronized (this) {
+                pendingDeltas = null;
+            }
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Enregistre la création d'un crédit.
+     */
+    public void recordCreated(CreditType type, CreditStatus status, Double amount, Double interestRate) {
+        Delta delta = new Delta(type, null, status, value(amount), value(interestRate));
+        // Les compteurs ne sont modifiés qu'une fois la transaction validée
+        afterCommit(() -> apply(delta));
+    }
+
+    /**
+     * Enregistre le passage d'un crédit d'un statut à un autre.
+     */
+    public void recordTransition(CreditType type, CreditStatus from, CreditStatus to, Double amount, Double interestRate) {
+        if (from == to) {
+            return;
+        }
+        Delta delta = new Delta(type, from, to, value(amount), value(interestRate));
+        afterCommit(() -> apply(delta));
+    }
+
+    public synchronized long getCount(CreditType type, CreditStatus status) {
+        return matrix.counts[Matrix.index(type, status)];
+    }
+
+    public synchronized double getAmountSum(CreditType type, CreditStatus status) {
+        return matrix.amountSums[Matrix.index(type, status)];
+    }
+
+    public synchronized double getInterestRateSum(CreditType type, CreditStatus status) {
+        return matrix.interestRateSums[Matrix.index(type, status)];
+    }
+
+    private synchronized void apply(Delta delta) {
+        matrix.apply(delta);
+        if (pendingDeltas != null) {
+            pendingDeltas.add(delta);
+        }
+    }
+
+    private static double value(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    // Crédit ajouté au statut to et, si from n'est pas null, retiré du statut from
+    private record Delta(CreditType type, CreditStatus from, CreditStatus to, double amount, double interestRate) {
+    }
+
+    // Compteurs indexés par (type × statut)
+    private static final class Matrix {
+        private final long[] counts = new long[CreditType.values().length * CreditStatus.values().length];
+        private final double[] amountSums = new double[counts.length];
+        private final double[] interestRateSums = new double[counts.length];
+
+        static int index(CreditType type, CreditStatus status) {
+            return type.ordinal() * CreditStatus.values().length + status.ordinal();
+        }
+
+        void apply(Delta delta) {
+            if (delta.from() != null) {
+                add(index(delta.type(), delta.from()), -1, -delta.amount(), -delta.interestRate());
+            }
+            add(index(delta.type(), delta.to()), 1, delta.amount(), delta.interestRate());
+        }
+
+        void load(CreditType type, List<Object[]> rows) {
+            for (Object[] row : rows) {
+                CreditStatus status = (CreditStatus) row[0];
+                if (status == null) {
+                    continue;
+                }
+                add(index(type, status),
+                        ((Number) row[1]).longValue(),
+                        row[2] != null ? ((Number) row[2]).doubleValue() : 0.0,
+                        row[3] != null ? ((Number) row[3]).doubleValue() : 0.0);
+            }
+        }
+
+        private void add(int index, long count, double amount, double interestRate) {
+            counts[index] += count;
+            amountSums[index] += amount;
+            interestRateSums[index] += interestRate;
+        }
+    }
+}
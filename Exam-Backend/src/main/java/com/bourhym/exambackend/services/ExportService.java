@@ -0,0 +1,168 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.dtos.CreditDTO;
+import com.bourhym.exambackend.dtos.RepaymentDTO;
+import com.bourhym.exambackend.enums.ExportFormat;
+import com.bourhym.exambackend.repositories.CreditRepository;
+import com.bourhym.exambackend.repositories.RepaymentRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Export en flux des crédits et des remboursements au format NDJSON ou CSV.
+ * Les lignes sont lues une à une depuis la base (projection DTO, sans entités gérées)
+ * et écrites directement dans la réponse : la mémoire utilisée ne dépend pas du volume exporté.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final List<Column<CreditDTO>> CREDIT_COLUMNS = List.of(
+            new Column<>("id", CreditDTO::getId),
+            new Column<>("creditType", CreditDTO::getCreditType),
+            new Column<>("status", CreditDTO::getStatus),
+            new Column<>("requestDate", CreditDTO::getRequestDate),
+            new Column<>("acceptanceDate", CreditDTO::getAcceptanceDate),
+            new Column<>("amount", CreditDTO::getAmount),
+            new Column<>("duration", CreditDTO::getDuration),
+            new Column<>("interestRate", CreditDTO::getInterestRate),
+            new Column<>("clientId", CreditDTO::getClientId)
+    );
+
+    private static final List<Column<RepaymentDTO>> REPAYMENT_COLUMNS = List.of(
+            new Column<>("id", RepaymentDTO::getId),
+            new Column<>("date", RepaymentDTO::getDate),
+            new Column<>("amount", RepaymentDTO::getAmount),
+            new Column<>("type", RepaymentDTO::getType),
+            new Column<>("creditId", RepaymentDTO::getCreditId)
+    );
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    @Autowired
+    private RepaymentRepository repaymentRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Écrit tous les crédits dans le flux de sortie.
+     *
+     * @param format Le format d'export
+     * @param out Le flux de sortie (non fermé par cette méthode)
+     */
+    public void exportCredits(ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<CreditDTO> rows = creditRepository.streamAllForExport()) {
+            write(rows, CREDIT_COLUMNS, format, out);
+        }
+    }
+
+    /**
+     * Écrit tous les remboursements dans le flux de sortie.
+     *
+     * @param format Le format d'export
+     * @param out Le flux de sortie (non fermé par cette méthode)
+     */
+    public void exportRepayments(ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<RepaymentDTO> rows = repaymentRepository.streamAllForExport()) {
+            write(rows, REPAYMENT_COLUMNS, format, out);
+        }
+    }
+
+    private <T> void write(Stream<T> rows, List<Column<T>> columns, ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == ExportFormat.CSV) {
+            writeCsv(rows, columns, writer);
+        } else {
+            writeNdjson(rows, columns, writer);
+        }
+        writer.flush();
+    }
+
+    private <T> void writeNdjson(Stream<T> rows, List<Column<T>> columns, Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+
+        boolean empty = true;
+        for (T row : (Iterable<T>) rows::iterator) {
+            empty = false;
+            generator.writeStartObject();
+            for (Column<T> column : columns) {
+                Object value = column.extractor().apply(row);
+                generator.writeFieldName(column.name());
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Number number) {
+                    generator.writeNumber(number.toString());
+                } else {
+                    generator.writeString(format(value));
+                }
+            }
+            generator.writeEndObject();
+        }
+        if (!empty) {
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    private <T> void writeCsv(Stream<T> rows, List<Column<T>> columns, Writer writer) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(columns.get(i).name());
+        }
+        writer.write('\n');
+
+        for (T row : (Iterable<T>) rows::iterator) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = columns.get(i).extractor().apply(row);
+                if (value != null) {
+                    writer.write(escapeCsv(format(value)));
+                }
+            }
+            writer.write('\n');
+        }
+    }
+
+    // Les dates sont stockées sans heure (TemporalType.DATE) : format ISO yyyy-MM-dd
+    private static String format(Object value) {
+        if (value instanceof Date date) {
+            return new java.sql.Date(date.getTime()).toString();
+        }
+        return value.toString();
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private record Column<T>(String name, Function<T, Object> extractor) {
+    }
+}
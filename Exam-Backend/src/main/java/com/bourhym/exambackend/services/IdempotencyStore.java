@@ -0,0 +1,127 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.entities.IdempotencyRecord;
+import com.bourhym.exambackend.repositories.IdempotencyRecordRepository;
+import com.bourhym.exambackend.utils.LruCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Stockage des réponses associées aux clés d'idempotence.
+ * Les réponses terminées sont conservées dans un cache local borné (LRU, avec expiration),
+ * et dans une table partagée qui sert aussi de verrou entre instances pour les requêtes en cours.
+ */
+@Component
+public class IdempotencyStore {
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.local-cache-size:10000}")
+    private int localCacheSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private LruCache<String, StoredResponse> localCache;
+
+    @PostConstruct
+    void init() {
+        localCache = new LruCache<>(localCacheSize, ttlMillis());
+    }
+
+    /**
+     * @return L'état de la clé (réponse terminée ou requête en cours), ou empty si elle est inconnue ou expirée
+     */
+    public Optional<StoredResponse> find(String key) {
+        StoredResponse cached = localCache.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return recordRepository.findById(key)
+                .filter(record -> record.getExpiresAt().after(new Date()))
+                .map(record -> {
+                    StoredResponse response = new StoredResponse(record.getRequestHash(), record.isCompleted(),
+                            record.getStatus(), record.getContentType(), record.getBody());
+                    if (response.completed()) {
+                        localCache.put(key, response);
+                    }
+                    return response;
+                });
+    }
+
+    /**
+     * Réserve la clé pour une nouvelle requête. Un enregistrement expiré est remplacé.
+     *
+     * @return false si une autre requête détient déjà la clé
+     */
+    public boolean tryClaim(String key, String requestHash) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                IdempotencyRecord existing = entityManager.find(IdempotencyRecord.class, key);
+                if (existing != null) {
+                    if (existing.getExpiresAt().after(new Date())) {
+                        return false;
+                    }
+                    entityManager.remove(existing);
+                    entityManager.flush();
+                }
+                entityManager.persist(new IdempotencyRecord(key, requestHash, false, 0, null, null, expiresAt()));
+                entityManager.flush();
+                return true;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            // Insertion concurrente de la même clé par une autre requête
+            return false;
+        }
+    }
+
+    /**
+     * Enregistre la réponse d'une requête réservée.
+     */
+    public void complete(String key, String requestHash, int status, String contentType, byte[] body) {
+        transactionTemplate.executeWithoutResult(tx -> recordRepository.save(
+                new IdempotencyRecord(key, requestHash, true, status, contentType, body, expiresAt())));
+        localCache.put(key, new StoredResponse(requestHash, true, status, contentType, body));
+    }
+
+    /**
+     * Libère une clé dont la requête a échoué, pour qu'elle puisse être rejouée.
+     */
+    public void release(String key) {
+        transactionTemplate.executeWithoutResult(tx -> recordRepository.deleteById(key));
+        localCache.remove(key);
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        transactionTemplate.executeWithoutResult(tx -> recordRepository.deleteExpired(new Date()));
+    }
+
+    private long ttlMillis() {
+        return ttlHours * 3600_000L;
+    }
+
+    private Date expiresAt() {
+        return new Date(System.currentTimeMillis() + ttlMillis());
+    }
+
+    public record StoredResponse(String requestHash, boolean completed, int status, String contentType, byte[] body) {
+    }
+}
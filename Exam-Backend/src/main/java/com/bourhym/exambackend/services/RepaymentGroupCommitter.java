@@ -0,0 +1,279 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.dtos.RepaymentDTO;
+import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.entities.Repayment;
+import com.bourhym.exambackend.enums.CreditStatus;
+import com.bourhym.exambackend.enums.RepaymentType;
+import com.bourhym.exambackend.exceptions.ResourceNotFoundException;
+import com.bourhym.exambackend.mappers.RepaymentMapper;
+import com.bourhym.exambackend.repositories.CreditRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Écriture groupée des remboursements (group commit), activée par repayments.group-commit.enabled.
+ * Les demandes concurrentes sont mises en file, regroupées en lots bornés en taille et en attente,
+ * puis écrites par un seul thread dans une transaction par lot : une seule validation (et une seule
+ * synchronisation disque) est partagée par toutes les demandes du lot. Chaque appelant reçoit son
+ * propre résultat, ou sa propre erreur de validation. L'attente d'un appelant est bornée
+ * (repayments.group-commit.timeout-ms) : un thread d'écriture arrêté ou bloqué produit un refus, pas un blocage.
+ */
+@Component
+public class RepaymentGroupCommitter {
+
+    @Value("${repayments.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${repayments.group-commit.max-batch-size:64}")
+    private int maxBatchSize;
+
+    @Value("${repayments.group-commit.max-wait-ms:5}")
+    private long maxWaitMillis;
+
+    @Value("${repayments.group-commit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${repayments.group-commit.timeout-ms:5000}")
+    private long timeoutMillis;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    @Autowired
+    private RepaymentMapper repaymentMapper;
+
+    @Autowired
+    private RepaymentRollupService rollupService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private BlockingQueue<PendingRepayment> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::writeLoop, "repayment-group-commit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        // Demandes arrivées après la fin du thread d'écriture
+        for (PendingRepayment pending; (pending = queue.poll()) != null; ) {
+            pending.result().completeExceptionally(new RejectedExecutionException("Écriture groupée des remboursements arrêtée"));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Met un remboursement en file et attend la validation du lot qui le contient.
+     *
+     * @return Le remboursement créé
+     * @throws ResourceNotFoundException si le crédit n'existe pas
+     * @throws IllegalStateException si le crédit n'est pas accepté
+     * @throws RejectedExecutionException si la file est pleine, l'écriture groupée arrêtée ou le délai d'attente dépassé
+     */
+    public RepaymentDTO submitAndWait(Long creditId, Double amount, RepaymentType type) {
+        if (!running) {
+            throw new RejectedExecutionException("L'écriture groupée des remboursements n'est pas active");
+        }
+        PendingRepayment pending = new PendingRepayment(creditId, amount, type, new CompletableFuture<>());
+        if (!queue.offer(pending)) {
+            throw new RejectedExecutionException("File des remboursements pleine");
+        }
+        // Arrêt survenu entre la vérification et la mise en file : la demande ne sera pas lue par le thread d'écriture
+        if (!running && queue.remove(pending)) {
+            throw new RejectedExecutionException("Écriture groupée des remboursements arrêtée");
+        }
+        try {
+            return pending.result().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw abandon(pending, "Délai d'écriture du remboursement dépassé");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw abandon(pending, "Attente de l'écriture du remboursement interrompue");
+        }
+    }
+
+    // Une demande encore en file est retirée et ne sera pas écrite ; une demande déjà dans un lot peut l'être
+    private RejectedExecutionException abandon(PendingRepayment pending, String message) {
+        boolean notWritten = queue.remove(pending);
+        RejectedExecutionException rejection = new RejectedExecutionException(notWritten
+                ? message
+                : message + " (le remboursement a pu être enregistré)");
+        pending.result().completeExceptionally(rejection);
+        return rejection;
+    }
+
+    private void writeLoop() {
+        List<PendingRepayment> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingRepayment first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Compléter le lot jusqu'à sa taille maximale ou l'expiration du délai d'attente
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingRepayment next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Arrêt demandé : la boucle vide la file avant de se terminer
+                queue.drainTo(batch, maxBatchSize - batch.size());
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch = new ArrayList<>(maxBatchSize);
+            }
+        }
+    }
+
+    // Écrit le lot dans une transaction ; les futures ne sont complétées qu'après la validation
+    private void writeBatch(List<PendingRepayment> batch) {
+        Map<PendingRepayment, Object> outcomes;
+        try {
+            outcomes = transactionTemplate.execute(status -> writeInTransaction(batch));
+        } catch (RuntimeException e) {
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+            return;
+        }
+        for (PendingRepayment pending : batch) {
+            Object outcome = outcomes.get(pending);
+            if (outcome == null) {
+                continue;
+            }
+            if (outcome instanceof RuntimeException error) {
+                pending.result().completeExceptionally(error);
+            } else {
+                pending.result().complete((RepaymentDTO) outcome);
+            }
+        }
+    }
+
+    private Map<PendingRepayment, Object> writeInTransaction(List<PendingRepayment> batch) {
+        List<Long> creditIds = batch.stream()
+                .map(PendingRepayment::creditId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, Credit> credits = new HashMap<>(creditIds.size() * 2);
+        for (Credit credit : creditRepository.findAllByIdForUpdate(creditIds)) {
+            credits.put(credit.getId(), credit);
+        }
+
+        Map<PendingRepayment, Repayment> created = new HashMap<>(batch.size() * 2);
+        Map<PendingRepayment, Object> outcomes = new HashMap<>(batch.size() * 2);
+        Date date = new Date();
+        for (PendingRepayment pending : batch) {
+            // Demande abandonnée par son appelant (délai dépassé) avant l'écriture du lot
+            if (pending.result().isDone()) {
+                continue;
+            }
+            Credit credit = credits.get(pending.creditId());
+            if (credit == null) {
+                outcomes.put(pending, new ResourceNotFoundException("Crédit non trouvé avec l'ID: " + pending.creditId()));
+                continue;
+            }
+            if (credit.getStatus() != CreditStatus.ACCEPTED) {
+                outcomes.put(pending, new IllegalStateException("Impossible d'effectuer un remboursement sur un crédit non accepté"));
+                continue;
+            }
+
+            Repayment repayment = new Repayment();
+            repayment.setDate(date);
+            repayment.setAmount(pending.amount());
+            repayment.setType(pending.type());
+            repayment.setCredit(credit);
+            entityManager.persist(repayment);
+            RepaymentService.applyToBalance(credit, pending.amount());
+            created.put(pending, repayment);
+        }
+        rollupService.recordCreated(created.values());
+        entityManager.flush();
+        created.forEach((pending, repayment) -> outcomes.put(pending, repaymentMapper.toDto(repayment)));
+        return outcomes;
+    }
+
+    // Identité par référence : deux demandes identiques restent deux remboursements distincts
+    private static final class PendingRepayment {
+        private final Long creditId;
+        private final Double amount;
+        private final RepaymentType type;
+        private final CompletableFuture<RepaymentDTO> result;
+
+        PendingRepayment(Long creditId, Double amount, RepaymentType type, CompletableFuture<RepaymentDTO> result) {
+            this.creditId = creditId;
+            this.amount = amount;
+            this.type = type;
+            this.result = result;
+        }
+
+        Long creditId() {
+            return creditId;
+        }
+
+        Double amount() {
+            return amount;
+        }
+
+        RepaymentType type() {
+            return type;
+        }
+
+        CompletableFuture<RepaymentDTO> result() {
+            return result;
+        }
+    }
+}
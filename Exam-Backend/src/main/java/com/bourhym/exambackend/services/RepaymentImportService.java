@@ -0,0 +1,285 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.dtos.RepaymentImportReportDTO;
+import com.bourhym.exambackend.dtos.RepaymentImportReportDTO.RejectedLine;
+import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.entities.Repayment;
+import com.bourhym.exambackend.entities.RepaymentImportCheckpoint;
+import com.bourhym.exambackend.enums.CreditStatus;
+import com.bourhym.exambackend.enums.RepaymentType;
+import com.bourhym.exambackend.repositories.CreditRepository;
+import com.bourhym.exambackend.repositories.RepaymentImportCheckpointRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Import en flux de remboursements depuis un fichier CSV (creditId,amount[,type][,date]), champs
+ * éventuellement entre guillemets.
+ * Le fichier est lu ligne à ligne et traité par tranches : chaque tranche vérifie ses crédits
+ * en une requête IN, insère ses remboursements par lots JDBC et valide sa transaction avec le
+ * point de reprise, ce qui permet de relancer un import interrompu avec le même identifiant.
+ */
+@Service
+public class RepaymentImportService {
+
+    // Nombre de lignes traitées par transaction (multiple de hibernate.jdbc.batch_size)
+    private static final int CHUNK_SIZE = 1000;
+
+    // Nombre maximal de lignes rejetées détaillées dans le rapport
+    private static final int MAX_REPORTED_REJECTIONS = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    @Autowired
+    private RepaymentImportCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private RepaymentRollupService rollupService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Importe les remboursements du fichier, en reprenant après la dernière tranche validée
+     * si l'identifiant correspond à un import déjà commencé.
+     *
+     * @param input Le contenu CSV, avec une ligne d'en-tête
+     * @param importId L'identifiant de l'import (généré s'il est absent)
+     * @return Le rapport de l'import
+     * @throws IllegalStateException si le même import progresse en parallèle
+     */
+    public RepaymentImportReportDTO importRepayments(InputStream input, String importId) throws IOException {
+        String id = importId != null && !importId.isBlank() ? importId : UUID.randomUUID().toString();
+        RepaymentImportCheckpoint checkpoint = checkpointRepository.findById(id)
+                .orElseGet(() -> transactionTemplate.execute(status ->
+                        checkpointRepository.save(new RepaymentImportCheckpoint(id, 0, 0, 0, false, new Date()))));
+
+        ImportRun run = new ImportRun(checkpoint);
+        if (checkpoint.isCompleted()) {
+            return run.report();
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<ParsedLine> chunk = new ArrayList<>(CHUNK_SIZE);
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            // La ligne 1 est l'en-tête ; les lignes déjà validées sont ignorées
+            if (lineNumber == 1 || lineNumber <= run.resumedFromLine || line.isBlank()) {
+                continue;
+            }
+            chunk.add(parse(lineNumber, line));
+            if (chunk.size() == CHUNK_SIZE) {
+                processChunk(run, chunk, lineNumber);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        processChunk(run, chunk, lineNumber);
+        run.completed = transactionTemplate.execute(status -> {
+            RepaymentImportCheckpoint current = lockCheckpoint(run);
+            current.setCompleted(true);
+            current.setUpdatedAt(new Date());
+            return true;
+        });
+        return run.report();
+    }
+
+    // Insère les lignes valides de la tranche et avance le point de reprise, dans une même transaction
+    private void processChunk(ImportRun run, List<ParsedLine> chunk, long lastLine) {
+        if (lastLine <= run.lastCommittedLine) {
+            return;
+        }
+        ChunkResult result = transactionTemplate.execute(status -> {
+            RepaymentImportCheckpoint checkpoint = lockCheckpoint(run);
+
+            List<Long> creditIds = chunk.stream()
+                    .filter(parsed -> parsed.error() == null)
+                    .map(ParsedLine::creditId)
+                    .distinct()
+                    .collect(Collectors.toList());
+            Map<Long, Credit> credits = new HashMap<>(creditIds.size() * 2);
+            if (!creditIds.isEmpty()) {
+                for (Credit credit : creditRepository.findAllByIdForUpdate(creditIds)) {
+                    credits.put(credit.getId(), credit);
+                }
+            }
+
+            List<Repayment> imported = new ArrayList<>(chunk.size());
+            List<RejectedLine> rejections = new ArrayList<>();
+            for (ParsedLine parsed : chunk) {
+                String error = parsed.error();
+                Credit credit = error == null ? credits.get(parsed.creditId()) : null;
+                if (error == null && credit == null) {
+                    error = "Crédit non trouvé avec l'ID: " + parsed.creditId();
+                } else if (error == null && credit.getStatus() != CreditStatus.ACCEPTED) {
+                    error = "Le crédit " + parsed.creditId() + " n'est pas accepté";
+                }
+                if (error != null) {
+                    rejections.add(new RejectedLine(parsed.line(), error));
+                    continue;
+                }
+
+                Repayment repayment = new Repayment();
+                repayment.setDate(parsed.date());
+                repayment.setAmount(parsed.amount());
+                repayment.setType(parsed.type());
+                repayment.setCredit(credit);
+                entityManager.persist(repayment);
+                RepaymentService.applyToBalance(credit, parsed.amount());
+                imported.add(repayment);
+            }
+            rollupService.recordCreated(imported);
+
+            checkpoint.setLastCommittedLine(lastLine);
+            checkpoint.setImportedCount(checkpoint.getImportedCount() + imported.size());
+            checkpoint.setRejectedCount(checkpoint.getRejectedCount() + rejections.size());
+            checkpoint.setUpdatedAt(new Date());
+            entityManager.flush();
+            entityManager.clear();
+            return new ChunkResult(imported.size(), rejections);
+        });
+
+        // Les compteurs et les rejets ne sont pris en compte qu'une fois la tranche validée
+        run.lastCommittedLine = lastLine;
+        run.importedCount += result.imported();
+        run.rejectedCount += result.rejections().size();
+        run.addRejections(result.rejections());
+    }
+
+    // Verrouille le point de reprise et vérifie qu'aucune autre exécution ne l'a fait avancer
+    private RepaymentImportCheckpoint lockCheckpoint(ImportRun run) {
+        RepaymentImportCheckpoint checkpoint = entityManager.find(RepaymentImportCheckpoint.class, run.importId,
+                LockModeType.PESSIMISTIC_WRITE);
+        if (checkpoint == null || checkpoint.getLastCommittedLine() != run.lastCommittedLine) {
+            throw new IllegalStateException("L'import " + run.importId + " est en cours dans une autre exécution");
+        }
+        return checkpoint;
+    }
+
+    private static ParsedLine parse(long lineNumber, String line) {
+        List<String> fields = splitCsv(line);
+        if (fields == null) {
+            return ParsedLine.invalid(lineNumber, "Guillemet non fermé");
+        }
+        if (fields.size() < 2) {
+            return ParsedLine.invalid(lineNumber, "Format attendu: creditId,amount[,type][,date]");
+        }
+        try {
+            long creditId = Long.parseLong(fields.get(0));
+            double amount = Double.parseDouble(fields.get(1));
+            if (!(amount > 0) || Double.isInfinite(amount)) {
+                return ParsedLine.invalid(lineNumber, "Le montant doit être positif");
+            }
+            RepaymentType type = fields.size() > 2 && !fields.get(2).isEmpty()
+                    ? RepaymentType.valueOf(fields.get(2))
+                    : RepaymentType.MONTHLY_PAYMENT;
+            Date date = fields.size() > 3 && !fields.get(3).isEmpty()
+                    ? java.sql.Date.valueOf(LocalDate.parse(fields.get(3)))
+                    : new Date();
+            return new ParsedLine(lineNumber, creditId, amount, type, date, null);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ParsedLine.invalid(lineNumber, "Valeur invalide: " + e.getMessage());
+        }
+    }
+
+    // Découpe une ligne CSV (RFC 4180, comme l'export) : un champ entre guillemets peut contenir des
+    // virgules et des guillemets doublés. Les champs sont rognés ; null si un guillemet n'est pas fermé.
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else if (c == '"' && field.toString().isBlank()) {
+                field.setLength(0);
+                quoted = true;
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private record ParsedLine(long line, Long creditId, Double amount, RepaymentType type, Date date, String error) {
+        static ParsedLine invalid(long line, String error) {
+            return new ParsedLine(line, null, null, null, null, error);
+        }
+    }
+
+    private record ChunkResult(long imported, List<RejectedLine> rejections) {
+    }
+
+    // État d'une exécution d'import, en mémoire
+    private static final class ImportRun {
+        private final String importId;
+        private final long resumedFromLine;
+        private long lastCommittedLine;
+        private long importedCount;
+        private long rejectedCount;
+        private boolean completed;
+        private final List<RejectedLine> rejections = new ArrayList<>();
+        private boolean truncated;
+
+        ImportRun(RepaymentImportCheckpoint checkpoint) {
+            this.importId = checkpoint.getImportId();
+            this.resumedFromLine = checkpoint.getLastCommittedLine();
+            this.lastCommittedLine = checkpoint.getLastCommittedLine();
+            this.importedCount = checkpoint.getImportedCount();
+            this.rejectedCount = checkpoint.getRejectedCount();
+            this.completed = checkpoint.isCompleted();
+        }
+
+        void addRejections(List<RejectedLine> chunkRejections) {
+            int room = MAX_REPORTED_REJECTIONS - rejections.size();
+            if (chunkRejections.size() > room) {
+                truncated = true;
+            }
+            rejections.addAll(chunkRejections.subList(0, Math.max(0, Math.min(room, chunkRejections.size()))));
+        }
+
+        RepaymentImportReportDTO report() {
+            return new RepaymentImportReportDTO(importId, resumedFromLine, lastCommittedLine, importedCount,
+                    rejectedCount, completed, rejections, truncated);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.dtos.RepaymentTimeseriesPointDTO;
+import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.entities.Repayment;
+import com.bourhym.exambackend.entities.RepaymentRollup;
+import com.bourhym.exambackend.entities.RepaymentRollupId;
+import com.bourhym.exambackend.enums.CreditType;
+import com.bourhym.exambackend.enums.RepaymentType;
+import com.bourhym.exambackend.repositories.RepaymentRollupRepository;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Agrégats mensuels des remboursements (mois × type de remboursement × type de crédit).
+ * Les écritures de remboursements appellent ce service dans leur propre transaction : les montants
+ * d'un lot sont d'abord regroupés par agrégat, puis appliqués par un upsert par agrégat, dans un
+ * ordre fixe pour que deux lots concurrents ne se bloquent pas mutuellement.
+ */
+@Service
+public class RepaymentRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(RepaymentRollupService.class);
+
+    public static final String GRANULARITY_MONTH = "month";
+    public static final String GRANULARITY_QUARTER = "quarter";
+
+    // Nombre maximal de mois couverts par une série temporelle (100 ans)
+    private static final int MAX_MONTHS = 1200;
+
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator.comparing(RollupKey::month)
+            .thenComparing(RollupKey::repaymentType)
+            .thenComparing(RollupKey::creditType);
+
+    @Autowired
+    private RepaymentRollupRepository rollupRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Ajoute des remboursements créés aux agrégats, dans la transaction qui les insère.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Collection<Repayment> repayments) {
+        apply(repayments, 1);
+    }
+
+    /**
+     * Retire un remboursement supprimé des agrégats, dans la transaction qui le supprime.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Repayment repayment) {
+        apply(List.of(repayment), -1);
+    }
+
+    private void apply(Collection<Repayment> repayments, int sign) {
+        Map<RollupKey, double[]> deltas = new TreeMap<>(KEY_ORDER);
+        for (Repayment repayment : repayments) {
+            if (repayment.getDate() == null || repayment.getType() == null
+                    || repayment.getAmount() == null || repayment.getCredit() == null) {
+                continue;
+            }
+            RollupKey key = new RollupKey(monthOf(repayment.getDate()), repayment.getType(),
+                    CreditType.codeOf((Credit) Hibernate.unproxy(repayment.getCredit())));
+            double[] delta = deltas.computeIfAbsent(key, k -> new double[2]);
+            delta[0] += sign * repayment.getAmount();
+            delta[1] += sign;
+        }
+        deltas.forEach((key, delta) -> rollupRepository.increment(toDate(key.month()), key.repaymentType().name(),
+                key.creditType(), Math.round(delta[0] * 100) / 100.0, (long) delta[1]));
+    }
+
+    /**
+     * Série temporelle des remboursements entre deux mois inclus.
+     *
+     * @param from Le premier mois (par défaut 11 mois avant le dernier)
+     * @param to Le dernier mois (par défaut le mois courant)
+     * @param granularity month ou quarter
+     * @return Les points de la série, triés par période, type de remboursement et type de crédit
+     * @throws IllegalArgumentException si la période ou la granularité sont invalides
+     */
+    @Transactional(readOnly = true)
+    public List<RepaymentTimeseriesPointDTO> getTimeseries(YearMonth from, YearMonth to, String granularity) {
+        boolean quarterly;
+        if (granularity == null || GRANULARITY_MONTH.equalsIgnoreCase(granularity)) {
+            quarterly = false;
+        } else if (GRANULARITY_QUARTER.equalsIgnoreCase(granularity)) {
+            quarterly = true;
+        } else {
+            throw new IllegalArgumentException("Granularité invalide: " + granularity + " (month ou quarter)");
+        }
+        YearMonth last = to != null ? to : YearMonth.now();
+        YearMonth first = from != null ? from : last.minusMonths(11);
+        if (first.isAfter(last)) {
+            throw new IllegalArgumentException("Le mois de début doit précéder le mois de fin");
+        }
+        if (first.plusMonths(MAX_MONTHS).isBefore(last)) {
+            throw new IllegalArgumentException("La période ne peut pas dépasser " + MAX_MONTHS + " mois");
+        }
+
+        // Quelques centaines d'agrégats au plus : regroupement par trimestre en mémoire
+        Map<RollupKey, RepaymentTimeseriesPointDTO> points = new HashMap<>();
+        for (RepaymentRollup rollup : rollupRepository.findByMonthBetween(toDate(first), toDate(last))) {
+            RepaymentRollupId id = rollup.getId();
+            YearMonth month = monthOf(id.getMonth());
+            YearMonth periodStart = quarterly ? month.withMonth((month.getMonthValue() - 1) / 3 * 3 + 1) : month;
+            RepaymentTimeseriesPointDTO point = points.computeIfAbsent(
+                    new RollupKey(periodStart, id.getRepaymentType(), id.getCreditType()),
+                    key -> new RepaymentTimeseriesPointDTO(period(periodStart, quarterly), key.repaymentType(),
+                            key.creditType(), 0.0, 0L));
+            point.setTotalAmount(Math.round((point.getTotalAmount() + rollup.getTotalAmount()) * 100) / 100.0);
+            point.setCount(point.getCount() + rollup.getRepaymentCount());
+        }
+
+        List<RepaymentTimeseriesPointDTO> result = new ArrayList<>(points.values());
+        result.sort(Comparator.comparing(RepaymentTimeseriesPointDTO::getPeriod)
+                .thenComparing(RepaymentTimeseriesPointDTO::getRepaymentType)
+                .thenComparing(RepaymentTimeseriesPointDTO::getCreditType));
+        return result;
+    }
+
+    /**
+     * Construit les agrégats au démarrage s'ils sont vides (première mise en service, données initiales).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (rollupRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Recalcule tous les agrégats à partir de la table des remboursements, en une transaction.
+     */
+    public void rebuild() {
+        Integer rows = transactionTemplate.execute(status -> {
+            rollupRepository.deleteAllRollups();
+            return rollupRepository.insertFromRepayments();
+        });
+        log.info("Agrégats de remboursements reconstruits: {} ligne(s)", rows);
+    }
+
+    private static String period(YearMonth start, boolean quarterly) {
+        return quarterly ? start.getYear() + "-Q" + ((start.getMonthValue() - 1) / 3 + 1) : start.toString();
+    }
+
+    private static YearMonth monthOf(Date date) {
+        // java.sql.Date ne supporte pas toInstant()
+        LocalDate localDate = date instanceof java.sql.Date sqlDate
+                ? sqlDate.toLocalDate()
+                : LocalDate.ofInstant(date.toInstant(), ZoneId.systemDefault());
+        return YearMonth.from(localDate);
+    }
+
+    private static Date toDate(YearMonth month) {
+        return java.sql.Date.valueOf(month.atDay(1));
+    }
+
+    // Le type de crédit est un code (CreditType.codeOf) : les crédits sans sous-classe ont leur propre agrégat
+    private record RollupKey(YearMonth month, RepaymentType repaymentType, String creditType) {
+    }
+}
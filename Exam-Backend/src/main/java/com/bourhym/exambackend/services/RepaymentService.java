@@ -1,5 +1,7 @@
 package com.bourhym.exambackend.services;
 
+import com.bourhym.exambackend.dtos.CreditBalanceDTO;
+import com.bourhym.exambackend.dtos.CursorPage;
 import com.bourhym.exambackend.dtos.RepaymentDTO;
 import com.bourhym.exambackend.entities.Credit;
 import com.bourhym.exambackend.entities.Repayment;
@@ -9,18 +11,31 @@ import com.bourhym.exambackend.exceptions.ResourceNotFoundException;
 import com.bourhym.exambackend.mappers.RepaymentMapper;
 import com.bourhym.exambackend.repositories.CreditRepository;
 import com.bourhym.exambackend.repositories.RepaymentRepository;
+import com.bourhym.exambackend.utils.AmortizationMath;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class RepaymentService {
 
+    // Nombre maximal de crédits dans une demande de soldes en lot
+    public static final int MAX_BALANCE_IDS = 10_000;
+
+    // Taille maximale d'une clause IN
+    private static final int MAX_IN_SIZE = 1000;
+
     @Autowired
     private RepaymentRepository repaymentRepository;
 
@@ -30,6 +45,9 @@ public class RepaymentService {
     @Autowired
     private RepaymentMapper repaymentMapper;
 
+    @Autowired
+    private RepaymentRollupService rollupService;
+
     /**
      * Enregistre un nouveau remboursement mensuel pour un crédit.
      *
@@ -39,7 +57,7 @@ public class RepaymentService {
      * @throws ResourceNotFoundException si le crédit n'existe pas ou n'est pas accepté
      */
     public RepaymentDTO createMonthlyRepayment(Long creditId, Double amount) {
-        Credit credit = creditRepository.findById(creditId)
+        Credit credit = creditRepository.findByIdForUpdate(creditId)
                 .orElseThrow(() -> new ResourceNotFoundException("Crédit non trouvé avec l'ID: " + creditId));
 
         if (credit.getStatus() != CreditStatus.ACCEPTED) {
@@ -53,6 +71,8 @@ public class RepaymentService {
         repayment.setCredit(credit);
 
         repayment = repaymentRepository.save(repayment);
+        applyToBalance(credit, amount);
+        rollupService.recordCreated(List.of(repayment));
         return repaymentMapper.toDto(repayment);
     }
 
@@ -65,7 +85,7 @@ public class RepaymentService {
      * @throws ResourceNotFoundException si le crédit n'existe pas ou n'est pas accepté
      */
     public RepaymentDTO createEarlyRepayment(Long creditId, Double amount) {
-        Credit credit = creditRepository.findById(creditId)
+        Credit credit = creditRepository.findByIdForUpdate(creditId)
                 .orElseThrow(() -> new ResourceNotFoundException("Crédit non trouvé avec l'ID: " + creditId));
 
         if (credit.getStatus() != CreditStatus.ACCEPTED) {
@@ -79,6 +99,8 @@ public class RepaymentService {
         repayment.setCredit(credit);
 
         repayment = repaymentRepository.save(repayment);
+        applyToBalance(credit, amount);
+        rollupService.recordCreated(List.of(repayment));
         return repaymentMapper.toDto(repayment);
     }
 
@@ -94,8 +116,7 @@ public class RepaymentService {
             throw new ResourceNotFoundException("Crédit non trouvé avec l'ID: " + creditId);
         }
 
-        List<Repayment> repayments = repaymentRepository.findByCreditId(creditId);
-        return repaymentMapper.toDto(repayments);
+        return repaymentRepository.findDtoByCreditId(creditId);
     }
 
     /**
@@ -106,8 +127,22 @@ public class RepaymentService {
      */
     @Transactional(readOnly = true)
     public List<RepaymentDTO> getRepaymentsByType(RepaymentType type) {
-        List<Repayment> repayments = repaymentRepository.findByType(type);
-        return repaymentMapper.toDto(repayments);
+        return repaymentRepository.findDtoByType(type);
+    }
+
+    /**
+     * Récupère une page de remboursements d'un type donné, triés par ID, à partir d'un curseur.
+     *
+     * @param type Le type de remboursement
+     * @param afterId L'ID du dernier remboursement de la page précédente (0 pour la première page)
+     * @param limit Le nombre maximal de remboursements à retourner
+     * @return La page de remboursements et le curseur de la page suivante
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<RepaymentDTO> getRepaymentsByTypePage(RepaymentType type, long afterId, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<RepaymentDTO> repayments = repaymentRepository.findDtoPageByType(type, afterId, PageRequest.ofSize(pageSize + 1));
+        return CursorPage.of(repayments, pageSize, RepaymentDTO::getId);
     }
 
     /**
@@ -119,12 +154,10 @@ public class RepaymentService {
      */
     @Transactional(readOnly = true)
     public Double calculateTotalRepaidAmount(Long creditId) {
-        if (!creditRepository.existsById(creditId)) {
-            throw new ResourceNotFoundException("Crédit non trouvé avec l'ID: " + creditId);
-        }
+        CreditBalanceDTO balance = creditRepository.findBalanceById(creditId)
+                .orElseThrow(() -> new ResourceNotFoundException("Crédit non trouvé avec l'ID: " + creditId));
 
-        Double totalAmount = repaymentRepository.sumAmountByCreditId(creditId);
-        return totalAmount != null ? totalAmount : 0.0;
+        return balance.getTotalRepaid() != null ? balance.getTotalRepaid() : 0.0;
     }
 
     /**
@@ -133,23 +166,52 @@ public class RepaymentService {
      * @param creditId L'ID du crédit
      * @return Le montant restant à payer
      * @throws ResourceNotFoundException si le crédit n'existe pas
+     * @throws IllegalArgumentException si le montant, la durée ou le taux du crédit sont invalides
      */
     @Transactional(readOnly = true)
     public Double calculateRemainingAmount(Long creditId) {
-        Credit credit = creditRepository.findById(creditId)
+        CreditBalanceDTO balance = creditRepository.findBalanceById(creditId)
                 .orElseThrow(() -> new ResourceNotFoundException("Crédit non trouvé avec l'ID: " + creditId));
 
-        Double totalRepaid = repaymentRepository.sumAmountByCreditId(creditId);
-        if (totalRepaid == null) {
-            totalRepaid = 0.0;
+        // Le restant n'est pas calculable si le montant, la durée ou le taux du crédit sont invalides
+        if (balance.getOutstanding() == null) {
+            throw new IllegalArgumentException("Montant, durée ou taux invalides pour le crédit " + creditId);
         }
+        return balance.getOutstanding();
+    }
 
-        // Calcul approximatif du montant total à rembourser (principal + intérêts)
-        double totalCreditAmount = credit.getAmount();
-        // Un calcul plus précis tiendrait compte des intérêts composés
-        double estimatedTotalWithInterest = totalCreditAmount * (1 + (credit.getInterestRate() * credit.getDuration() / 12) / 100);
+    /**
+     * Récupère en lot le solde de plusieurs crédits (une requête par tranche de 1000 IDs).
+     *
+     * @param creditIds Les IDs des crédits
+     * @return Les soldes des crédits existants, dans l'ordre des IDs demandés
+     * @throws IllegalArgumentException si le nombre d'IDs dépasse la limite autorisée
+     */
+    @Transactional(readOnly = true)
+    public List<CreditBalanceDTO> getBalances(List<Long> creditIds) {
+        List<Long> ids = creditIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (ids.size() > MAX_BALANCE_IDS) {
+            throw new IllegalArgumentException("Au plus " + MAX_BALANCE_IDS + " crédits par requête");
+        }
 
-        return Math.max(0, estimatedTotalWithInterest - totalRepaid);
+        Map<Long, CreditBalanceDTO> balances = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += MAX_IN_SIZE) {
+            for (CreditBalanceDTO balance : creditRepository.findBalancesByIds(ids.subList(from, Math.min(from + MAX_IN_SIZE, ids.size())))) {
+                balances.put(balance.getCreditId(), balance);
+            }
+        }
+
+        List<CreditBalanceDTO> result = new ArrayList<>(balances.size());
+        for (Long id : ids) {
+            CreditBalanceDTO balance = balances.get(id);
+            if (balance != null) {
+                result.add(balance);
+            }
+        }
+        return result;
     }
 
     /**
@@ -159,11 +221,27 @@ public class RepaymentService {
      * @return true si le remboursement a été supprimé, false sinon
      */
     public boolean deleteRepayment(Long id) {
-        if (!repaymentRepository.existsById(id)) {
+        Optional<Repayment> repayment = repaymentRepository.findById(id);
+        if (repayment.isEmpty()) {
             return false;
         }
 
-        repaymentRepository.deleteById(id);
+        // Verrouiller le crédit avant de toucher au remboursement, dans le même ordre qu'à la création
+        Credit credit = repayment.get().getCredit();
+        if (credit != null) {
+            creditRepository.findByIdForUpdate(credit.getId())
+                    .ifPresent(locked -> applyToBalance(locked, -repayment.get().getAmount()));
+        }
+        rollupService.recordDeleted(repayment.get());
+        repaymentRepository.delete(repayment.get());
         return true;
     }
+
+    // Met à jour le solde dénormalisé d'un crédit verrouillé (delta positif pour un remboursement, négatif pour une suppression)
+    static void applyToBalance(Credit credit, Double delta) {
+        double totalRepaid = (credit.getTotalRepaid() != null ? credit.getTotalRepaid() : 0.0) + (delta != null ? delta : 0.0);
+        credit.setTotalRepaid(Math.round(totalRepaid * 100) / 100.0);
+        credit.setOutstanding(AmortizationMath.outstanding(credit.getAmount(), credit.getDuration(),
+                credit.getInterestRate(), credit.getTotalRepaid()));
+    }
 }
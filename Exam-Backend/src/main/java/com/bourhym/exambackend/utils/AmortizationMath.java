@@ -0,0 +1,79 @@
+package com.bourhym.exambackend.utils;
+
+/**
+ * Calculs d'amortissement à mensualités constantes, sans état : montant total dû et solde restant.
+ * Utilisés par les entités (solde initial d'un crédit) comme par les services ; les tableaux
+ * d'amortissement complets sont construits par AmortizationEngine.
+ */
+public final class AmortizationMath {
+
+    // Durée maximale acceptée, en mois (50 ans)
+    public static final int MAX_DURATION = 600;
+
+    private AmortizationMath() {
+    }
+
+    /**
+     * Montant total à rembourser (capital + intérêts), calculé sans construire le tableau.
+     *
+     * @throws IllegalArgumentException si les paramètres du crédit sont invalides
+     */
+    public static double totalPayable(Double amount, Integer duration, Double interestRate) {
+        validate(amount, duration, interestRate);
+        double monthlyRate = interestRate / 100 / 12;
+        double installment = cents(installment(amount, duration, monthlyRate));
+        double outstanding = amount;
+        double total = 0.0;
+        for (int month = 0; month < duration; month++) {
+            double interest = cents(outstanding * monthlyRate);
+            double principal = month == duration - 1 ? outstanding : installment - interest;
+            total += principal + interest;
+            outstanding = cents(outstanding - principal);
+        }
+        return cents(total);
+    }
+
+    /**
+     * Montant restant à payer après un total remboursé donné (jamais négatif).
+     *
+     * @return Le montant restant, ou null si les paramètres du crédit sont invalides
+     */
+    public static Double outstanding(Double amount, Integer duration, Double interestRate, double totalRepaid) {
+        try {
+            return Math.max(0.0, cents(totalPayable(amount, duration, interestRate) - totalRepaid));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Mensualité constante, non arrondie.
+     *
+     * @param monthlyRate Le taux mensuel (taux annuel en pourcentage / 100 / 12)
+     */
+    public static double installment(double amount, int duration, double monthlyRate) {
+        if (monthlyRate == 0.0) {
+            return amount / duration;
+        }
+        return amount * monthlyRate / (1 - Math.pow(1 + monthlyRate, -duration));
+    }
+
+    public static double cents(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * @throws IllegalArgumentException si les paramètres du crédit sont invalides
+     */
+    public static void validate(Double amount, Integer duration, Double interestRate) {
+        if (amount == null || amount <= 0) {
+            throw new IllegalArgumentException("Le montant du crédit doit être positif");
+        }
+        if (duration == null || duration <= 0 || duration > MAX_DURATION) {
+            throw new IllegalArgumentException("La durée du crédit doit être comprise entre 1 et " + MAX_DURATION + " mois");
+        }
+        if (interestRate == null || interestRate < 0) {
+            throw new IllegalArgumentException("Le taux d'intérêt doit être positif ou nul");
+        }
+    }
+}
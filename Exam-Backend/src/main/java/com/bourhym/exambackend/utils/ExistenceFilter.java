@@ -0,0 +1,103 @@
+package com.bourhym.exambackend.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Filtre d'existence reconstructible, fondé sur un filtre de Bloom : une valeur absente du filtre
+ * n'existe certainement pas en base, une valeur présente doit être confirmée par la base.
+ * Tant que le filtre n'a pas été construit, toute valeur est considérée comme possiblement présente.
+ *
+ * Les valeurs sont normalisées (minuscules, sans accents, sans espaces finaux) : deux valeurs
+ * confondues par la collation de la base le sont aussi par le filtre. Les valeurs ajoutées pendant
+ * une reconstruction sont aussi ajoutées au nouveau filtre.
+ */
+public final class ExistenceFilter {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final long minExpectedInsertions;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter current;
+    private BloomFilter building;
+
+    /**
+     * @param minExpectedInsertions Le nombre d'éléments prévu au minimum (dimensionnement du filtre)
+     * @param falsePositiveRate Le taux de faux positifs visé
+     */
+    public ExistenceFilter(long minExpectedInsertions, double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("Le taux de faux positifs doit être compris entre 0 et 1");
+        }
+        this.minExpectedInsertions = Math.max(1, minExpectedInsertions);
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * @return false si la valeur n'existe certainement pas
+     */
+    public boolean mightContain(String value) {
+        BloomFilter filter = current;
+        return filter == null || value == null || filter.mightContain(normalize(value));
+    }
+
+    public synchronized void add(String value) {
+        if (value == null) {
+            return;
+        }
+        String key = normalize(value);
+        if (current != null) {
+            current.put(key);
+        }
+        if (building != null) {
+            building.put(key);
+        }
+    }
+
+    /**
+     * Reconstruit le filtre, dimensionné pour le double du nombre d'éléments actuel.
+     *
+     * @param count Le nombre d'éléments actuel
+     * @param loader Parcourt les valeurs existantes et les passe au consommateur fourni
+     */
+    public void rebuild(long count, Consumer<Consumer<String>> loader) {
+        BloomFilter rebuilt = new BloomFilter(Math.max(minExpectedInsertions, 2 * count), falsePositiveRate);
+        synchronized (this) {
+            building = rebuilt;
+        }
+        try {
+            loader.accept(value -> {
+                if (value != null) {
+                    rebuilt.put(normalize(value));
+                }
+            });
+            synchronized (this) {
+                current = rebuilt;
+            }
+        } finally {
+            synchronized (this) {
+                building = null;
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    /**
+     * @return La taille du filtre en bits, ou 0 s'il n'est pas construit
+     */
+    public long getBitCount() {
+        BloomFilter filter = current;
+        return filter != null ? filter.getBitCount() : 0;
+    }
+
+    static String normalize(String value) {
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT).stripTrailing();
+    }
+}
@@ -0,0 +1,119 @@
+package com.bourhym.exambackend.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Table d'association clé long → liste d'identifiants long, sans boxing.
+ * Les clés sont rangées par adressage ouvert ; les valeurs d'une même clé sont chaînées
+ * dans des tableaux primitifs et restituées dans leur ordre d'insertion.
+ * Utilisée pour rattacher en mémoire les IDs enfants (remboursements, crédits) lus en une requête.
+ */
+public final class LongIdMultimap {
+
+    private static final int NO_ENTRY = -1;
+
+    private long[] keys;
+    private int[] heads;
+    private int[] tails;
+    private int keyCount;
+
+    private long[] values;
+    private int[] next;
+    private int valueCount;
+
+    public LongIdMultimap() {
+        this(16);
+    }
+
+    public LongIdMultimap(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedKeys * 2 - 1)) << 1;
+        keys = new long[capacity];
+        heads = new int[capacity];
+        tails = new int[capacity];
+        Arrays.fill(heads, NO_ENTRY);
+        values = new long[Math.max(16, expectedKeys)];
+        next = new int[values.length];
+    }
+
+    public void put(long key, long value) {
+        if ((keyCount + 1) * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+        int slot = slotOf(key, keys, heads);
+        if (valueCount == values.length) {
+            values = Arrays.copyOf(values, values.length << 1);
+            next = Arrays.copyOf(next, next.length << 1);
+        }
+        int entry = valueCount++;
+        values[entry] = value;
+        next[entry] = NO_ENTRY;
+
+        if (heads[slot] == NO_ENTRY) {
+            keys[slot] = key;
+            heads[slot] = entry;
+            keyCount++;
+        } else {
+            next[tails[slot]] = entry;
+        }
+        tails[slot] = entry;
+    }
+
+    /**
+     * @return Les valeurs associées à la clé dans leur ordre d'insertion (liste vide si absente)
+     */
+    public List<Long> get(long key) {
+        int slot = slotOf(key, keys, heads);
+        List<Long> result = new ArrayList<>();
+        for (int entry = heads[slot]; entry != NO_ENTRY; entry = next[entry]) {
+            result.add(values[entry]);
+        }
+        return result;
+    }
+
+    public boolean containsKey(long key) {
+        return heads[slotOf(key, keys, heads)] != NO_ENTRY;
+    }
+
+    public int keyCount() {
+        return keyCount;
+    }
+
+    public int valueCount() {
+        return valueCount;
+    }
+
+    private void rehash(int capacity) {
+        long[] newKeys = new long[capacity];
+        int[] newHeads = new int[capacity];
+        int[] newTails = new int[capacity];
+        Arrays.fill(newHeads, NO_ENTRY);
+        for (int i = 0; i < keys.length; i++) {
+            if (heads[i] != NO_ENTRY) {
+                int slot = slotOf(keys[i], newKeys, newHeads);
+                newKeys[slot] = keys[i];
+                newHeads[slot] = heads[i];
+                newTails[slot] = tails[i];
+            }
+        }
+        keys = newKeys;
+        heads = newHeads;
+        tails = newTails;
+    }
+
+    // Sonde linéaire : retourne la case de la clé, ou la première case libre rencontrée
+    private static int slotOf(long key, long[] keys, int[] heads) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (heads[slot] != NO_ENTRY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,55 @@
+package com.bourhym.exambackend.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Empreintes SHA-256 en hexadécimal (64 caractères), pour indexer des tokens ou des requêtes
+ * sans conserver leur contenu.
+ */
+public final class Sha256 {
+
+    private Sha256() {
+    }
+
+    /**
+     * Empreinte d'une chaîne (encodée en UTF-8).
+     */
+    public static String hex(String value) {
+        return HexFormat.of().formatHex(digest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Empreinte d'une suite de valeurs, chacune suivie d'un octet nul pour que ("ab", "c") et ("a", "bc")
+     * donnent des empreintes différentes.
+     */
+    public static String hexOfParts(byte[]... parts) {
+        MessageDigest digest = digest();
+        for (byte[] part : parts) {
+            digest.update(part);
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Comme {@link #hexOfParts(byte[]...)}, les valeurs nulles étant traitées comme des chaînes vides.
+     */
+    public static String hexOfParts(String... parts) {
+        byte[][] bytes = new byte[parts.length][];
+        for (int i = 0; i < parts.length; i++) {
+            bytes[i] = parts[i] != null ? parts[i].getBytes(StandardCharsets.UTF_8) : new byte[0];
+        }
+        return hexOfParts(bytes);
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
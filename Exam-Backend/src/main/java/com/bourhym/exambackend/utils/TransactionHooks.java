@@ -0,0 +1,47 @@
+package com.bourhym.exambackend.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Actions différées jusqu'à la fin de la transaction en cours, pour les structures en mémoire
+ * (index, caches, filtres) qui ne doivent refléter que des écritures validées.
+ * Sans transaction synchronisée, l'action s'exécute immédiatement.
+ */
+public final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    /**
+     * Exécute l'action après la validation de la transaction en cours (jamais en cas d'annulation).
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Exécute l'action à la fin de la transaction en cours, qu'elle soit validée ou annulée.
+     */
+    public static void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,87 @@
+package com.bourhym.exambackend.web;
+
+import com.bourhym.exambackend.security.AuthService;
+import com.bourhym.exambackend.security.LoginThrottle;
+import com.bourhym.exambackend.security.dto.LoginRequest;
+import com.bourhym.exambackend.security.dto.RefreshTokenRequest;
+import com.bourhym.exambackend.security.dto.RegisterRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/auth")
+@CrossOrigin("*")
+public class AuthController {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    @PostMapping("/login")
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        // Limitation avant tout calcul BCrypt
+        long retryAfter = loginThrottle.tryAcquire(httpRequest.getRemoteAddr(), request.getUsername());
+        if (retryAfter > 0) {
+            return tooManyRequests(retryAfter);
+        }
+        try {
+            return ResponseEntity.ok(authService.login(request));
+        } catch (AuthenticationException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Identifiants invalides");
+        } catch (RejectedExecutionException e) {
+            return serviceUnavailable(e);
+        }
+    }
+
+    @PostMapping("/register")
+    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest request, HttpServletRequest httpRequest) {
+        long retryAfter = loginThrottle.tryAcquire(httpRequest.getRemoteAddr(), null);
+        if (retryAfter > 0) {
+            return tooManyRequests(retryAfter);
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(authService.register(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return serviceUnavailable(e);
+        }
+    }
+
+    @PostMapping("/refresh-token")
+    public ResponseEntity<?> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
+        return authService.refreshToken(request.getRefreshToken())
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token de rafraîchissement invalide"));
+    }
+
+    // Toujours 204 : la réponse ne révèle pas si le token était valide
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@Valid @RequestBody RefreshTokenRequest request) {
+        authService.logout(request.getRefreshToken());
+        return ResponseEntity.noContent().build();
+    }
+
+    private static ResponseEntity<?> tooManyRequests(long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body("Trop de tentatives, réessayez plus tard");
+    }
+
+    // Exécuteur BCrypt saturé : réponse immédiate, sans occuper de thread
+    private static ResponseEntity<?> serviceUnavailable(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+}
@@ -0,0 +1,38 @@
+package com.bourhym.exambackend.web;
+
+import com.bourhym.exambackend.dtos.CacheStatisticsDTO;
+import com.bourhym.exambackend.services.CacheStatisticsService;
+import com.bourhym.exambackend.services.ClientLookupCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/cache")
+@CrossOrigin("*")
+public class CacheAdminController {
+
+    @Autowired
+    private CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    private ClientLookupCache clientLookupCache;
+
+    @GetMapping("/statistics")
+    public ResponseEntity<CacheStatisticsDTO> getStatistics() {
+        return ResponseEntity.ok(cacheStatisticsService.getStatistics());
+    }
+
+    @DeleteMapping("/statistics")
+    public ResponseEntity<Void> resetStatistics() {
+        cacheStatisticsService.resetStatistics();
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/clients")
+    public ResponseEntity<Map<String, Map<String, Long>>> getClientLookupStatistics() {
+        return ResponseEntity.ok(clientLookupCache.statistics());
+    }
+}
@@ -1,8 +1,10 @@
 package com.bourhym.exambackend.web;
 
 import com.bourhym.exambackend.dtos.ClientDTO;
+import com.bourhym.exambackend.dtos.CursorPage;
 import com.bourhym.exambackend.services.ClientService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -22,6 +24,17 @@ public class ClientController {
         return ResponseEntity.ok(clientService.getAllClients());
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<?> getClientsPage(
+            @RequestParam Integer limit,
+            @RequestParam(required = false) String after) {
+        try {
+            return ResponseEntity.ok(clientService.getClientsPage(CursorPage.decodeCursor(after), limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ClientDTO> getClientById(@PathVariable Long id) {
         return clientService.getClientById(id)
@@ -36,8 +49,13 @@ public class ClientController {
             return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
 
-        ClientDTO savedClient = clientService.saveClient(clientDTO);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedClient);
+        try {
+            ClientDTO savedClient = clientService.saveClient(clientDTO);
+            return ResponseEntity.status(HttpStatus.CREATED).body(savedClient);
+        } catch (DataIntegrityViolationException e) {
+            // Email enregistré entre la vérification et l'insertion (index unique uk_client_email)
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
     }
 
     @PutMapping("/{id}")
@@ -49,9 +67,14 @@ public class ClientController {
             return ResponseEntity.badRequest().build();
         }
 
-        return clientService.updateClient(clientDTO)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+        try {
+            return clientService.updateClient(clientDTO)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (DataIntegrityViolationException e) {
+            // Email déjà utilisé par un autre client
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
     }
 
     @DeleteMapping("/{id}")
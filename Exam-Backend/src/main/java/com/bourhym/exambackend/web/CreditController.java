@@ -1,16 +1,24 @@
 package com.bourhym.exambackend.web;
 
+import com.bourhym.exambackend.dtos.CreditApplicationDTO;
 import com.bourhym.exambackend.dtos.CreditDTO;
+import com.bourhym.exambackend.dtos.CreditDecisionRequestDTO;
+import com.bourhym.exambackend.dtos.CursorPage;
 import com.bourhym.exambackend.dtos.PersonalCreditDTO;
 import com.bourhym.exambackend.dtos.ProfessionalCreditDTO;
 import com.bourhym.exambackend.dtos.RealEstateCreditDTO;
 import com.bourhym.exambackend.enums.CreditStatus;
+import com.bourhym.exambackend.enums.ExportFormat;
 import com.bourhym.exambackend.exceptions.ResourceNotFoundException;
 import com.bourhym.exambackend.services.CreditService;
+import com.bourhym.exambackend.services.ExportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -22,11 +30,25 @@ public class CreditController {
     @Autowired
     private CreditService creditService;
 
+    @Autowired
+    private ExportService exportService;
+
     @GetMapping
     public ResponseEntity<List<CreditDTO>> getAllCredits() {
         return ResponseEntity.ok(creditService.getAllCredits());
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<?> getCreditsPage(
+            @RequestParam Integer limit,
+            @RequestParam(required = false) String after) {
+        try {
+            return ResponseEntity.ok(creditService.getCreditsPage(CursorPage.decodeCursor(after), limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<CreditDTO> getCreditById(@PathVariable Long id) {
         return creditService.getCreditById(id)
@@ -34,6 +56,17 @@ public class CreditController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/schedule")
+    public ResponseEntity<?> getCreditSchedule(@PathVariable Long id) {
+        try {
+            return creditService.getCreditSchedule(id)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PostMapping("/personal")
     public ResponseEntity<?> createPersonalCredit(@RequestBody PersonalCreditDTO creditDTO) {
         try {
@@ -64,6 +97,33 @@ public class CreditController {
         }
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createCreditsInBulk(@RequestBody List<CreditApplicationDTO> applications) {
+        try {
+            return ResponseEntity.ok(creditService.createCreditsInBulk(applications));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PutMapping("/approve")
+    public ResponseEntity<?> approveCredits(@RequestBody CreditDecisionRequestDTO request) {
+        try {
+            return ResponseEntity.ok(creditService.approveCredits(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PutMapping("/reject")
+    public ResponseEntity<?> rejectCredits(@RequestBody CreditDecisionRequestDTO request) {
+        try {
+            return ResponseEntity.ok(creditService.rejectCredits(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}/approve")
     public ResponseEntity<CreditDTO> approveCredit(@PathVariable Long id) {
         return creditService.approveCredit(id)
@@ -88,6 +148,18 @@ public class CreditController {
         return ResponseEntity.ok(creditService.getCreditsByStatus(status));
     }
 
+    @GetMapping(value = "/status/{status}", params = "limit")
+    public ResponseEntity<?> getCreditsByStatusPage(
+            @PathVariable CreditStatus status,
+            @RequestParam Integer limit,
+            @RequestParam(required = false) String after) {
+        try {
+            return ResponseEntity.ok(creditService.getCreditsByStatusPage(status, CursorPage.decodeCursor(after), limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/statistics/total-accepted")
     public ResponseEntity<Double> getTotalAmountOfAcceptedCredits() {
         return ResponseEntity.ok(creditService.getTotalAmountOfAcceptedCredits());
@@ -97,4 +169,13 @@ public class CreditController {
     public ResponseEntity<CreditService.CreditStatistics> getCreditStatisticsByStatus(@PathVariable CreditStatus status) {
         return ResponseEntity.ok(creditService.getCreditStatisticsByStatus(status));
     }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCredits(@RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        StreamingResponseBody body = out -> exportService.exportCredits(format, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"credits." + format.getExtension() + "\"")
+                .body(body);
+    }
 }
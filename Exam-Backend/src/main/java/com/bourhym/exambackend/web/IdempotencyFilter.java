@@ -0,0 +1,257 @@
+package com.bourhym.exambackend.web;
+
+import com.bourhym.exambackend.services.IdempotencyStore;
+import com.bourhym.exambackend.services.IdempotencyStore.StoredResponse;
+import com.bourhym.exambackend.utils.Sha256;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Prise en charge de l'en-tête Idempotency-Key sur les créations de remboursements et de crédits.
+ * La première requête portant une clé est exécutée et sa réponse enregistrée ; une requête rejouée
+ * avec la même clé reçoit la réponse enregistrée sans que le service soit appelé à nouveau.
+ * Enregistré comme filtre de servlet, il s'exécute après la chaîne Spring Security.
+ *
+ * L'empreinte de la requête couvre ses paramètres et son corps. Un corps de formulaire n'est pas lu
+ * directement (les paramètres sont analysés par le conteneur, pour les @RequestParam) ; un autre corps
+ * est lu en mémoire, dans la limite de idempotency.max-body-bytes (413 au-delà). Les requêtes
+ * multipart ne sont pas prises en charge et passent sans idempotence.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final Set<String> IDEMPOTENT_PATHS = Set.of(
+            "/api/repayments/monthly",
+            "/api/repayments/early",
+            "/api/credits/personal",
+            "/api/credits/professional",
+            "/api/credits/real-estate",
+            "/api/credits/bulk"
+    );
+
+    @Value("${idempotency.max-body-bytes:1048576}")
+    private int maxBodyBytes;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod()) || request.getHeader(HEADER) == null || isContentType(request,
+                MediaType.MULTIPART_FORM_DATA)) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !IDEMPOTENT_PATHS.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(HEADER).trim();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "En-tête " + HEADER + " invalide");
+            return;
+        }
+
+        // La clé est propre à l'utilisateur et au point d'accès ; l'empreinte couvre paramètres et corps
+        HttpServletRequest forwardedRequest = request;
+        byte[] content;
+        if (isContentType(request, MediaType.APPLICATION_FORM_URLENCODED)) {
+            // Le conteneur lit le corps du formulaire et le garde en paramètres : il reste disponible pour les contrôleurs
+            content = parametersDigest(request.getParameterMap()).getBytes(StandardCharsets.UTF_8);
+        } else {
+            if (request.getContentLengthLong() > maxBodyBytes) {
+                response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(), "Corps trop volumineux pour une requête idempotente");
+                return;
+            }
+            content = readBody(request.getInputStream());
+            if (content == null) {
+                response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(), "Corps trop volumineux pour une requête idempotente");
+                return;
+            }
+            forwardedRequest = new CachedBodyRequest(request, content);
+        }
+        String key = Sha256.hexOfParts(currentUser(), request.getMethod(), request.getRequestURI(), idempotencyKey);
+        String requestHash = Sha256.hexOfParts(
+                Sha256.hexOfParts(request.getQueryString()).getBytes(StandardCharsets.UTF_8), content);
+
+        StoredResponse stored = idempotencyStore.find(key).orElse(null);
+        if (stored == null && !idempotencyStore.tryClaim(key, requestHash)) {
+            stored = idempotencyStore.find(key).orElse(null);
+        }
+        if (stored != null) {
+            if (!stored.requestHash().equals(requestHash)) {
+                response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                        "Clé d'idempotence déjà utilisée pour une requête différente");
+            } else if (!stored.completed()) {
+                response.sendError(HttpStatus.CONFLICT.value(), "Requête en cours de traitement pour cette clé d'idempotence");
+            } else {
+                replay(stored, response);
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper cachedResponse = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(forwardedRequest, cachedResponse);
+        } catch (IOException | ServletException | RuntimeException e) {
+            // Échec du traitement : la clé est libérée pour que la requête puisse être rejouée
+            idempotencyStore.release(key);
+            throw e;
+        }
+
+        if (cachedResponse.getStatus() >= 500) {
+            // Les erreurs serveur ne sont pas enregistrées : la requête pourra être rejouée
+            idempotencyStore.release(key);
+        } else {
+            try {
+                idempotencyStore.complete(key, requestHash, cachedResponse.getStatus(),
+                        cachedResponse.getContentType(), cachedResponse.getContentAsByteArray());
+            } catch (RuntimeException e) {
+                // La requête a été traitée : la clé reste réservée (409 jusqu'à son expiration) plutôt que
+                // libérée, pour qu'un nouvel essai ne l'exécute pas une seconde fois
+                log.error("Réponse non enregistrée pour une clé d'idempotence", e);
+            }
+        }
+        cachedResponse.copyBodyToResponse();
+    }
+
+    private static void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        if (stored.body() != null) {
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+        }
+    }
+
+    /**
+     * @return Le corps lu, ou null s'il dépasse la taille maximale (longueur inconnue à l'avance)
+     */
+    private byte[] readBody(InputStream input) throws IOException {
+        byte[] body = input.readNBytes(maxBodyBytes + 1);
+        return body.length > maxBodyBytes ? null : body;
+    }
+
+    // Paramètres triés par nom, pour une empreinte indépendante de leur ordre
+    private static String parametersDigest(Map<String, String[]> parameters) {
+        Map<String, String[]> sorted = new TreeMap<>(parameters);
+        String[] parts = new String[sorted.size() * 2];
+        int i = 0;
+        for (Map.Entry<String, String[]> parameter : sorted.entrySet()) {
+            parts[i++] = parameter.getKey();
+            parts[i++] = String.join("\0", parameter.getValue());
+        }
+        return Sha256.hexOfParts(parts);
+    }
+
+    private static boolean isContentType(HttpServletRequest request, MediaType mediaType) {
+        String contentType = request.getContentType();
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            return mediaType.includes(MediaType.parseMediaType(contentType));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "";
+    }
+
+    // Requête dont le corps est lu une fois et peut être relu par les contrôleurs
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // Corps déjà en mémoire : toutes les données sont disponibles dès l'enregistrement du listener
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
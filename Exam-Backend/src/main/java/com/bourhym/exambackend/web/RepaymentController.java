@@ -1,16 +1,34 @@
 package com.bourhym.exambackend.web;
 
+import com.bourhym.exambackend.dtos.CreditBalanceDTO;
+import com.bourhym.exambackend.dtos.CursorPage;
 import com.bourhym.exambackend.dtos.RepaymentDTO;
+import com.bourhym.exambackend.enums.ExportFormat;
 import com.bourhym.exambackend.enums.RepaymentType;
 import com.bourhym.exambackend.exceptions.ResourceNotFoundException;
+import com.bourhym.exambackend.services.ExportService;
+import com.bourhym.exambackend.services.RepaymentGroupCommitter;
+import com.bourhym.exambackend.services.RepaymentImportService;
+import com.bourhym.exambackend.services.RepaymentRollupService;
 import com.bourhym.exambackend.services.RepaymentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/repayments")
@@ -20,17 +38,33 @@ public class RepaymentController {
     @Autowired
     private RepaymentService repaymentService;
 
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private RepaymentImportService repaymentImportService;
+
+    @Autowired
+    private RepaymentGroupCommitter groupCommitter;
+
+    @Autowired
+    private RepaymentRollupService rollupService;
+
     @PostMapping("/monthly")
     public ResponseEntity<?> createMonthlyRepayment(
             @RequestParam Long creditId,
             @RequestParam Double amount) {
         try {
-            RepaymentDTO repaymentDTO = repaymentService.createMonthlyRepayment(creditId, amount);
+            RepaymentDTO repaymentDTO = groupCommitter.isEnabled()
+                    ? groupCommitter.submitAndWait(creditId, amount, RepaymentType.MONTHLY_PAYMENT)
+                    : repaymentService.createMonthlyRepayment(creditId, amount);
             return ResponseEntity.status(HttpStatus.CREATED).body(repaymentDTO);
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         }
     }
 
@@ -39,12 +73,16 @@ public class RepaymentController {
             @RequestParam Long creditId,
             @RequestParam Double amount) {
         try {
-            RepaymentDTO repaymentDTO = repaymentService.createEarlyRepayment(creditId, amount);
+            RepaymentDTO repaymentDTO = groupCommitter.isEnabled()
+                    ? groupCommitter.submitAndWait(creditId, amount, RepaymentType.EARLY_REPAYMENT)
+                    : repaymentService.createEarlyRepayment(creditId, amount);
             return ResponseEntity.status(HttpStatus.CREATED).body(repaymentDTO);
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         }
     }
 
@@ -63,6 +101,18 @@ public class RepaymentController {
         return ResponseEntity.ok(repaymentService.getRepaymentsByType(type));
     }
 
+    @GetMapping(value = "/type/{type}", params = "limit")
+    public ResponseEntity<?> getRepaymentsByTypePage(
+            @PathVariable RepaymentType type,
+            @RequestParam Integer limit,
+            @RequestParam(required = false) String after) {
+        try {
+            return ResponseEntity.ok(repaymentService.getRepaymentsByTypePage(type, CursorPage.decodeCursor(after), limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/total/{creditId}")
     public ResponseEntity<?> calculateTotalRepaidAmount(@PathVariable Long creditId) {
         try {
@@ -83,6 +133,51 @@ public class RepaymentController {
             ));
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/timeseries")
+    public ResponseEntity<?> getTimeseries(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to,
+            @RequestParam(defaultValue = RepaymentRollupService.GRANULARITY_MONTH) String granularity) {
+        try {
+            return ResponseEntity.ok(rollupService.getTimeseries(from, to, granularity));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/remaining")
+    public ResponseEntity<?> getRemainingAmounts(@RequestBody List<Long> creditIds) {
+        try {
+            List<CreditBalanceDTO> balances = repaymentService.getBalances(creditIds);
+            Set<Long> found = balances.stream().map(CreditBalanceDTO::getCreditId).collect(Collectors.toSet());
+            List<Long> notFound = creditIds.stream()
+                    .filter(id -> id != null && !found.contains(id))
+                    .distinct()
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(Map.of(
+                "balances", balances,
+                "notFoundIds", notFound
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/import")
+    public ResponseEntity<?> importRepayments(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String importId) {
+        try (InputStream input = file.getInputStream()) {
+            return ResponseEntity.ok(repaymentImportService.importRepayments(input, importId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Lecture du fichier impossible: " + e.getMessage());
         }
     }
 
@@ -94,4 +189,13 @@ public class RepaymentController {
         }
         return ResponseEntity.notFound().build();
     }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportRepayments(@RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        StreamingResponseBody body = out -> exportService.exportRepayments(format, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"repayments." + format.getExtension() + "\"")
+                .body(body);
+    }
 }
@@ -0,0 +1,47 @@
+package com.bourhym.exambackend.web;
+
+import com.bourhym.exambackend.security.LoginThrottle;
+import com.bourhym.exambackend.security.PasswordHashingExecutor;
+import com.bourhym.exambackend.security.TokenVersionStore;
+import com.bourhym.exambackend.security.dto.AuthMetricsDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin("*")
+public class SecurityAdminController {
+
+    @Autowired
+    private TokenVersionStore tokenVersionStore;
+
+    @Autowired
+    private PasswordHashingExecutor hashingExecutor;
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    // Révoque tous les tokens émis pour l'utilisateur
+    @PostMapping("/users/{id}/revoke-tokens")
+    public ResponseEntity<Void> revokeTokens(@PathVariable Long id) {
+        if (!tokenVersionStore.revokeAll(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/auth/metrics")
+    public ResponseEntity<AuthMetricsDTO> getAuthMetrics() {
+        return ResponseEntity.ok(new AuthMetricsDTO(
+                hashingExecutor.getThreads(),
+                hashingExecutor.getActiveCount(),
+                hashingExecutor.getQueueDepth(),
+                hashingExecutor.getQueueCapacity(),
+                hashingExecutor.getExecutedCount(),
+                hashingExecutor.getAverageMillis(),
+                hashingExecutor.getMaxMillis(),
+                hashingExecutor.getRejectedCount(),
+                loginThrottle.getThrottledCount()));
+    }
+}
@@ -0,0 +1,66 @@
+-- Migration de la hiérarchie Credit de JOINED vers SINGLE_TABLE (MariaDB / MySQL).
+--
+-- À exécuter application arrêtée, avant le premier démarrage avec le profil single-table-credits.
+-- Inutile avec spring.jpa.hibernate.ddl-auto=create, qui recrée le schéma à chaque démarrage.
+-- Les ID sont conservés : les remboursements et les agrégats restent rattachés à leurs crédits.
+
+-- Tout s'exécute dans une procédure, dans cet ordre :
+--   1. contrôle : si un crédit n'a pas de type ou pas de ligne dans la table de son type, SIGNAL interrompt
+--      le script (client mysql/mariadb) avant toute modification du schéma ou des données ;
+--   2. ajout des colonnes des sous-classes dans la table credit (mêmes types que ceux générés par Hibernate),
+--      sauf si elles existent déjà, pour pouvoir relancer le script après un échec ;
+--   3. recopie des colonnes des sous-classes ; le type est réécrit depuis la table de la sous-classe ;
+--   4. mise de côté des tables des sous-classes : elles sont renommées en *_old et non supprimées,
+--      pour pouvoir revenir en arrière.
+DROP PROCEDURE IF EXISTS migrate_credit_single_table;
+
+DELIMITER //
+CREATE PROCEDURE migrate_credit_single_table()
+BEGIN
+    DECLARE orphans BIGINT;
+
+    -- 1. Contrôle
+    SELECT COUNT(*) INTO orphans
+    FROM credit c
+    WHERE c.credit_type IS NULL
+       OR (c.credit_type = 'PERSONAL' AND NOT EXISTS (SELECT 1 FROM personal_credit p WHERE p.id = c.id))
+       OR (c.credit_type = 'PROFESSIONAL' AND NOT EXISTS (SELECT 1 FROM professional_credit p WHERE p.id = c.id))
+       OR (c.credit_type = 'REAL_ESTATE' AND NOT EXISTS (SELECT 1 FROM real_estate_credit r WHERE r.id = c.id));
+
+    IF orphans > 0 THEN
+        SIGNAL SQLSTATE '45000'
+            SET MESSAGE_TEXT = 'Migration interrompue : des crédits n''ont pas de type ou pas de ligne dans la table de leur type';
+    END IF;
+
+    -- 2. Colonnes des sous-classes
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = DATABASE() AND table_name = 'credit' AND column_name = 'reason') THEN
+        ALTER TABLE credit
+            ADD COLUMN reason VARCHAR(255) NULL,
+            ADD COLUMN company_name VARCHAR(255) NULL,
+            ADD COLUMN property_type ENUM ('APARTMENT', 'HOUSE', 'COMMERCIAL_PROPERTY') NULL;
+    END IF;
+
+    -- 3. Recopie des colonnes et du type
+    UPDATE credit c JOIN personal_credit p ON p.id = c.id
+    SET c.reason = p.reason, c.credit_type = 'PERSONAL';
+
+    UPDATE credit c JOIN professional_credit p ON p.id = c.id
+    SET c.reason = p.reason, c.company_name = p.company_name, c.credit_type = 'PROFESSIONAL';
+
+    UPDATE credit c JOIN real_estate_credit r ON r.id = c.id
+    SET c.property_type = r.property_type, c.credit_type = 'REAL_ESTATE';
+
+    -- 4. Mise de côté des tables des sous-classes
+    RENAME TABLE personal_credit TO personal_credit_old,
+                 professional_credit TO professional_credit_old,
+                 real_estate_credit TO real_estate_credit_old;
+END //
+DELIMITER ;
+
+CALL migrate_credit_single_table();
+DROP PROCEDURE migrate_credit_single_table;
+
+-- Une fois l'application vérifiée avec le profil single-table-credits, supprimer les copies
+--    (leurs clés étrangères vers credit empêchent la suppression des crédits tant qu'elles existent) :
+-- DROP TABLE personal_credit_old, professional_credit_old, real_estate_credit_old;
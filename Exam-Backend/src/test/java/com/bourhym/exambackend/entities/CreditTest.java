@@ -0,0 +1,49 @@
+package com.bourhym.exambackend.entities;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CreditTest {
+
+    @Test
+    void initBalanceStartsANewCreditWithNothingRepaid() {
+        Credit credit = credit(12_000.0, 12);
+        credit.setTotalRepaid(null);
+
+        credit.initBalance();
+
+        assertThat(credit.getTotalRepaid()).isZero();
+        assertThat(credit.getOutstanding()).isEqualTo(12_000.0);
+    }
+
+    @Test
+    void initBalanceKeepsAnExistingTotalRepaid() {
+        Credit credit = credit(12_000.0, 12);
+        credit.setTotalRepaid(2000.0);
+
+        credit.initBalance();
+
+        assertThat(credit.getTotalRepaid()).isEqualTo(2000.0);
+        assertThat(credit.getOutstanding()).isEqualTo(10_000.0);
+    }
+
+    @Test
+    void initBalanceLeavesTheOutstandingUnknownForAnInvalidCredit() {
+        Credit credit = credit(12_000.0, 0);
+
+        credit.initBalance();
+
+        assertThat(credit.getTotalRepaid()).isZero();
+        assertThat(credit.getOutstanding()).isNull();
+    }
+
+    // Taux nul : le montant dû est le montant emprunté
+    private static Credit credit(Double amount, Integer duration) {
+        Credit credit = new PersonalCredit();
+        credit.setAmount(amount);
+        credit.setDuration(duration);
+        credit.setInterestRate(0.0);
+        return credit;
+    }
+}
@@ -0,0 +1,124 @@
+package com.bourhym.exambackend.mappers;
+
+import com.bourhym.exambackend.dtos.ClientDTO;
+import com.bourhym.exambackend.dtos.CreditDTO;
+import com.bourhym.exambackend.entities.Client;
+import com.bourhym.exambackend.entities.PersonalCredit;
+import com.bourhym.exambackend.entities.Repayment;
+import com.bourhym.exambackend.enums.CreditStatus;
+import com.bourhym.exambackend.enums.RepaymentType;
+import com.bourhym.exambackend.repositories.ClientRepository;
+import com.bourhym.exambackend.repositories.CreditRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({CreditMapper.class, ClientMapper.class, RelationIdLoader.class})
+class MapperQueryCountTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    @Autowired
+    private CreditMapper creditMapper;
+
+    @Autowired
+    private ClientMapper clientMapper;
+
+    private final Map<Long, List<Long>> repaymentIdsByCredit = new HashMap<>();
+
+    @BeforeEach
+    void seed() {
+        for (int c = 0; c < 10; c++) {
+            Client client = new Client();
+            client.setName("Client " + c);
+            client.setEmail("client" + c + "@example.com");
+            entityManager.persist(client);
+
+            for (int k = 0; k < 2; k++) {
+                PersonalCredit credit = new PersonalCredit();
+                credit.setRequestDate(new Date());
+                credit.setStatus(CreditStatus.ACCEPTED);
+                credit.setAmount(1000.0 * (k + 1));
+                credit.setDuration(12);
+                credit.setInterestRate(4.0);
+                credit.setClient(client);
+                entityManager.persist(credit);
+
+                List<Long> repaymentIds = new ArrayList<>();
+                for (int r = 0; r < 3; r++) {
+                    Repayment repayment = new Repayment();
+                    repayment.setDate(new Date());
+                    repayment.setAmount(100.0);
+                    repayment.setType(RepaymentType.MONTHLY_PAYMENT);
+                    repayment.setCredit(credit);
+                    entityManager.persist(repayment);
+                    repaymentIds.add(repayment.getId());
+                }
+                repaymentIdsByCredit.put(credit.getId(), repaymentIds);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void creditListIsMappedWithConstantQueryCount() {
+        Statistics statistics = statistics();
+
+        List<CreditDTO> credits = creditMapper.toDto(creditRepository.findAll());
+
+        // Une requête pour les crédits, une pour les IDs des remboursements, quel que soit le nombre de crédits
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(credits).hasSizeGreaterThanOrEqualTo(repaymentIdsByCredit.size());
+        for (CreditDTO credit : credits) {
+            if (repaymentIdsByCredit.containsKey(credit.getId())) {
+                assertThat(credit.getRepaymentIds()).isEqualTo(repaymentIdsByCredit.get(credit.getId()));
+            }
+        }
+    }
+
+    @Test
+    void clientListIsMappedWithConstantQueryCount() {
+        Statistics statistics = statistics();
+
+        List<ClientDTO> clients = clientMapper.toDto(clientRepository.findAll());
+
+        // Une requête pour les clients, une pour les IDs des crédits
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(clients).allSatisfy(client -> assertThat(client.getCreditIds()).isNotNull());
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,161 @@
+package com.bourhym.exambackend.mappers;
+
+import com.bourhym.exambackend.dtos.ClientDTO;
+import com.bourhym.exambackend.dtos.CreditDTO;
+import com.bourhym.exambackend.entities.Client;
+import com.bourhym.exambackend.entities.PersonalCredit;
+import com.bourhym.exambackend.entities.Repayment;
+import com.bourhym.exambackend.enums.CreditStatus;
+import com.bourhym.exambackend.enums.RepaymentType;
+import com.bourhym.exambackend.repositories.ClientRepository;
+import com.bourhym.exambackend.repositories.CreditRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lecture des listes de clients et de crédits : entités gérées copiées par les mappers, puis
+ * projections JPQL directement dans les DTOs (les IDs enfants sont chargés de la même façon dans
+ * les deux cas). Chaque lecture se fait dans sa propre transaction, contexte de persistance vide.
+ * Désactivé par défaut :
+ *
+ *   mvn test -Dtest=ProjectionBenchmarkTest -Dbenchmark.projections=20000
+ *
+ * H2 en mémoire par défaut ; pour MariaDB, mêmes options que CreditLayoutBenchmarkTest.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=${benchmark.dialect:org.hibernate.dialect.H2Dialect}",
+        "spring.jpa.show-sql=false"
+})
+@Import({ClientMapper.class, CreditMapper.class, RelationIdLoader.class})
+@EnabledIfSystemProperty(named = "benchmark.projections", matches = "\\d+")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProjectionBenchmarkTest {
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int CREDITS_PER_CLIENT = 4;
+    private static final int REPAYMENTS_PER_CREDIT = 3;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 10;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    @Autowired
+    private ClientMapper clientMapper;
+
+    @Autowired
+    private CreditMapper creditMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void compareEntityMappingWithDtoProjections() {
+        int credits = Integer.getInteger("benchmark.projections");
+        seed(credits);
+
+        Supplier<List<ClientDTO>> clientEntities = () -> clientMapper.toDto(clientRepository.findAll());
+        Supplier<List<ClientDTO>> clientProjection = () -> clientMapper.withCreditIds(clientRepository.findAllDto());
+        Supplier<List<CreditDTO>> creditEntities = () -> creditMapper.toDto(creditRepository.findAll());
+        Supplier<List<CreditDTO>> creditProjection = () -> creditMapper.withRepaymentIds(creditRepository.findAllDto());
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            read(clientEntities);
+            read(clientProjection);
+            read(creditEntities);
+            read(creditProjection);
+        }
+        Result clientsFromEntities = measure(clientEntities);
+        Result clientsFromProjection = measure(clientProjection);
+        Result creditsFromEntities = measure(creditEntities);
+        Result creditsFromProjection = measure(creditProjection);
+
+        System.out.printf("%nListes complètes, %d crédits (%d clients), moyenne sur %d lectures%n",
+                credits, clientsFromEntities.size(), ROUNDS);
+        System.out.printf("  clients, entités + mapper : %8.1f ms%n", clientsFromEntities.millis());
+        System.out.printf("  clients, projection DTO   : %8.1f ms%n", clientsFromProjection.millis());
+        System.out.printf("  crédits, entités + mapper : %8.1f ms%n", creditsFromEntities.millis());
+        System.out.printf("  crédits, projection DTO   : %8.1f ms%n", creditsFromProjection.millis());
+
+        assertThat(clientsFromProjection.size()).isEqualTo(clientsFromEntities.size());
+        assertThat(creditsFromProjection.size()).isEqualTo(creditsFromEntities.size()).isGreaterThanOrEqualTo(credits);
+    }
+
+    private void seed(int credits) {
+        for (int from = 0; from < credits; from += CHUNK_SIZE) {
+            int chunkStart = from;
+            transactionTemplate.executeWithoutResult(status -> {
+                Client client = null;
+                for (int i = chunkStart; i < Math.min(chunkStart + CHUNK_SIZE, credits); i++) {
+                    if (i % CREDITS_PER_CLIENT == 0) {
+                        client = new Client();
+                        client.setName("Client " + i);
+                        client.setEmail("client" + i + "@example.com");
+                        entityManager.persist(client);
+                    }
+                    PersonalCredit credit = new PersonalCredit();
+                    credit.setRequestDate(new Date());
+                    credit.setStatus(CreditStatus.ACCEPTED);
+                    credit.setAmount(10_000.0 + i % 1000);
+                    credit.setDuration(12 + i % 240);
+                    credit.setInterestRate(3.5);
+                    credit.setReason("Travaux");
+                    credit.setClient(client);
+                    entityManager.persist(credit);
+                    for (int r = 0; r < REPAYMENTS_PER_CREDIT; r++) {
+                        Repayment repayment = new Repayment();
+                        repayment.setDate(new Date());
+                        repayment.setAmount(100.0);
+                        repayment.setType(RepaymentType.MONTHLY_PAYMENT);
+                        repayment.setCredit(credit);
+                        entityManager.persist(repayment);
+                    }
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+    }
+
+    private <T> Result measure(Supplier<List<T>> reader) {
+        long start = System.nanoTime();
+        int size = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            size = read(reader);
+        }
+        return new Result((System.nanoTime() - start) / 1e6 / ROUNDS, size);
+    }
+
+    // Une transaction en lecture seule par lecture, comme les méthodes de service
+    private <T> int read(Supplier<List<T>> reader) {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            int size = reader.get().size();
+            entityManager.clear();
+            return size;
+        });
+    }
+
+    private record Result(double millis, int size) {
+    }
+}
@@ -0,0 +1,181 @@
+package com.bourhym.exambackend.repositories;
+
+import com.bourhym.exambackend.entities.Client;
+import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.entities.PersonalCredit;
+import com.bourhym.exambackend.entities.ProfessionalCredit;
+import com.bourhym.exambackend.entities.RealEstateCredit;
+import com.bourhym.exambackend.enums.CreditStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.SingleTableEntityPersister;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comparaison des stratégies d'héritage de Credit (JOINED par défaut, SINGLE_TABLE avec le profil
+ * single-table-credits) : insertions, lecture polymorphe complète par pages et lectures par client.
+ * Désactivé par défaut ; à lancer une fois par stratégie puis comparer les deux rapports :
+ *
+ *   mvn test -Dtest=CreditLayoutBenchmarkTest -Dbenchmark.credits=1000000
+ *   mvn test -Dtest=CreditLayoutBenchmarkTest -Dbenchmark.credits=1000000 -Dspring.profiles.active=single-table-credits
+ *
+ * H2 en mémoire par défaut ; pour MariaDB, ajouter -Dspring.test.database.replace=none,
+ * -Dspring.datasource.url=... (une base dédiée : le schéma est recréé) et
+ * -Dbenchmark.dialect=org.hibernate.dialect.MariaDBDialect.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=${benchmark.dialect:org.hibernate.dialect.H2Dialect}",
+        "spring.jpa.show-sql=false"
+})
+@EnabledIfSystemProperty(named = "benchmark.credits", matches = "\\d+")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CreditLayoutBenchmarkTest {
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int CREDITS_PER_CLIENT = 10;
+    private static final int CLIENT_LOOKUPS = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void compareInsertsAndPolymorphicReads() {
+        int credits = Integer.getInteger("benchmark.credits");
+        boolean singleTable = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getMappingMetamodel()
+                .getEntityDescriptor(Credit.class) instanceof SingleTableEntityPersister;
+        String layout = singleTable ? "SINGLE_TABLE" : "JOINED";
+
+        // Insertions par tranches, une transaction par tranche
+        List<Long> clientIds = new ArrayList<>(credits / CREDITS_PER_CLIENT + 1);
+        long start = System.nanoTime();
+        for (int from = 0; from < credits; from += CHUNK_SIZE) {
+            int chunkStart = from;
+            transactionTemplate.executeWithoutResult(status -> {
+                Client client = null;
+                for (int i = chunkStart; i < Math.min(chunkStart + CHUNK_SIZE, credits); i++) {
+                    if (i % CREDITS_PER_CLIENT == 0) {
+                        client = new Client();
+                        client.setName("Client " + i);
+                        client.setEmail("client" + i + "@example.com");
+                        entityManager.persist(client);
+                        clientIds.add(client.getId());
+                    }
+                    entityManager.persist(credit(i, client));
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        long insertNanos = System.nanoTime() - start;
+
+        // Lecture polymorphe de tous les crédits, par pages d'IDs
+        start = System.nanoTime();
+        long scanned = transactionTemplate.execute(status -> {
+            long count = 0;
+            long afterId = 0L;
+            while (true) {
+                List<Credit> page = entityManager
+                        .createQuery("SELECT c FROM Credit c WHERE c.id > :afterId ORDER BY c.id", Credit.class)
+                        .setParameter("afterId", afterId)
+                        .setMaxResults(CHUNK_SIZE)
+                        .getResultList();
+                if (page.isEmpty()) {
+                    return count;
+                }
+                count += page.size();
+                afterId = page.get(page.size() - 1).getId();
+                entityManager.clear();
+            }
+        });
+        long scanNanos = System.nanoTime() - start;
+
+        // Crédits de clients tirés au hasard
+        Random random = new Random(42);
+        start = System.nanoTime();
+        long found = transactionTemplate.execute(status -> {
+            long count = 0;
+            for (int i = 0; i < CLIENT_LOOKUPS; i++) {
+                count += creditRepository.findByClientId(clientIds.get(random.nextInt(clientIds.size()))).size();
+                entityManager.clear();
+            }
+            return count;
+        });
+        long lookupNanos = System.nanoTime() - start;
+
+        // Lecture polymorphe filtrée par statut
+        start = System.nanoTime();
+        long accepted = transactionTemplate.execute(status -> (long) creditRepository.findByStatus(CreditStatus.ACCEPTED).size());
+        long statusNanos = System.nanoTime() - start;
+
+        System.out.printf("%nHéritage %s, %d crédits%n", layout, credits);
+        System.out.printf("  insertions               : %8d ms (%.0f crédits/s)%n", millis(insertNanos), credits / seconds(insertNanos));
+        System.out.printf("  lecture complète         : %8d ms (%.0f crédits/s)%n", millis(scanNanos), scanned / seconds(scanNanos));
+        System.out.printf("  findByClientId x %d    : %8d ms (%.2f ms/requête)%n", CLIENT_LOOKUPS, millis(lookupNanos),
+                millis(lookupNanos) / (double) CLIENT_LOOKUPS);
+        System.out.printf("  findByStatus(ACCEPTED)   : %8d ms (%d crédits)%n", millis(statusNanos), accepted);
+
+        assertThat(scanned).isGreaterThanOrEqualTo(credits);
+        assertThat(found).isPositive();
+    }
+
+    private static Credit credit(int i, Client client) {
+        Credit credit;
+        switch (i % 3) {
+            case 0 -> {
+                PersonalCredit personal = new PersonalCredit();
+                personal.setReason("Travaux");
+                credit = personal;
+            }
+            case 1 -> {
+                ProfessionalCredit professional = new ProfessionalCredit();
+                professional.setReason("Équipement");
+                professional.setCompanyName("Société " + i);
+                credit = professional;
+            }
+            default -> {
+                RealEstateCredit realEstate = new RealEstateCredit();
+                realEstate.setPropertyType(RealEstateCredit.PropertyType.APARTMENT);
+                credit = realEstate;
+            }
+        }
+        credit.setRequestDate(new Date());
+        credit.setStatus(CreditStatus.values()[i % CreditStatus.values().length]);
+        credit.setAmount(10_000.0 + i % 1000);
+        credit.setDuration(12 + i % 240);
+        credit.setInterestRate(3.5);
+        credit.setClient(client);
+        return credit;
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    private static double seconds(long nanos) {
+        return Math.max(nanos, 1) / 1e9;
+    }
+}
@@ -0,0 +1,67 @@
+package com.bourhym.exambackend.repositories;
+
+import com.bourhym.exambackend.dtos.CreditDTO;
+import com.bourhym.exambackend.entities.Client;
+import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.entities.PersonalCredit;
+import com.bourhym.exambackend.enums.CreditStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class CreditRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    @Test
+    void projectionsGiveATypeToCreditsWithoutSubclass() {
+        Client client = new Client();
+        client.setName("Client Projection");
+        client.setEmail("client1@example.com");
+        entityManager.persist(client);
+        Credit base = entityManager.persist(credit(new Credit(), client));
+        Credit personal = entityManager.persist(credit(new PersonalCredit(), client));
+        entityManager.flush();
+        entityManager.clear();
+
+        Map<Long, String> exportCodes;
+        try (Stream<CreditDTO> rows = creditRepository.streamAllForExport()) {
+            exportCodes = rows.collect(Collectors.toMap(CreditDTO::getId, CreditDTO::getCreditType));
+        }
+        assertThat(exportCodes).containsEntry(base.getId(), CreditRepository.BASE_CREDIT_TYPE_CODE)
+                .containsEntry(personal.getId(), "PERSONAL");
+
+        List<Object[]> locked = creditRepository.lockInProgressByIds(List.of(base.getId(), personal.getId()));
+        assertThat(locked).extracting(row -> row[1]).containsExactlyInAnyOrder(CreditRepository.BASE_CREDIT_TYPE_CODE, "PERSONAL");
+
+        Map<Long, CreditDTO> dtos = creditRepository.findAllDto().stream()
+                .collect(Collectors.toMap(CreditDTO::getId, Function.identity()));
+        assertThat(dtos.get(base.getId()).getCreditType()).isEqualTo("Credit");
+        assertThat(dtos.get(personal.getId()).getCreditType()).isEqualTo("PersonalCredit");
+    }
+
+    private static Credit credit(Credit credit, Client client) {
+        credit.setRequestDate(new Date());
+        credit.setStatus(CreditStatus.IN_PROGRESS);
+        credit.setAmount(10_000.0);
+        credit.setDuration(24);
+        credit.setInterestRate(4.0);
+        credit.setClient(client);
+        return credit;
+    }
+}
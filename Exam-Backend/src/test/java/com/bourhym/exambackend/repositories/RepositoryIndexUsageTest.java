@@ -0,0 +1,366 @@
+package com.bourhym.exambackend.repositories;
+
+import com.bourhym.exambackend.entities.Client;
+import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.entities.IdempotencyRecord;
+import com.bourhym.exambackend.entities.PersonalCredit;
+import com.bourhym.exambackend.entities.ProfessionalCredit;
+import com.bourhym.exambackend.entities.RealEstateCredit;
+import com.bourhym.exambackend.entities.Repayment;
+import com.bourhym.exambackend.entities.RepaymentRollup;
+import com.bourhym.exambackend.entities.RepaymentRollupId;
+import com.bourhym.exambackend.enums.CreditStatus;
+import com.bourhym.exambackend.enums.CreditType;
+import com.bourhym.exambackend.enums.RepaymentType;
+import com.bourhym.exambackend.security.entities.RefreshToken;
+import com.bourhym.exambackend.security.entities.User;
+import com.bourhym.exambackend.security.enums.Role;
+import com.bourhym.exambackend.security.repositories.RefreshTokenRepository;
+import com.bourhym.exambackend.security.repositories.UserRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.Map.entry;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Vérifie, par EXPLAIN sur H2, que les requêtes des repositories utilisent un index.
+ * Chaque méthode déclarée dans un repository doit être soit vérifiée ici, soit listée dans
+ * FULL_SCANS avec la raison du parcours complet : une nouvelle requête ne peut pas réintroduire
+ * un parcours de table sans que ce test échoue.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.bourhym.exambackend.repositories.RepositoryIndexUsageTest$SqlCapture"
+})
+class RepositoryIndexUsageTest {
+
+    // Parcours complets acceptés, avec leur raison
+    private static final Map<String, String> FULL_SCANS = Map.ofEntries(
+            entry("ClientRepository.findAllDto", "lecture de tous les clients"),
+            entry("ClientRepository.findByNameContainingIgnoreCase", "LIKE '%terme%' : aucun index B-tree applicable"),
+            entry("ClientRepository.findDtoByNameLike", "LIKE '%terme%' : aucun index B-tree applicable"),
+            entry("CreditRepository.findAllDto", "lecture de tous les crédits"),
+            entry("CreditRepository.streamAllForExport", "export complet"),
+            entry("CreditRepository.countByStatus", "agrégat sur tous les crédits"),
+            entry("CreditRepository.findByAmountGreaterThan", "critère de montant seul, non sélectif"),
+            entry("CreditRepository.approveInProgress", "mise à jour multi-tables (héritage JOINED), filtrée par clé primaire"),
+            entry("CreditRepository.rejectInProgress", "mise à jour multi-tables (héritage JOINED), filtrée par clé primaire"),
+            entry("PersonalCreditRepository.findAverageAmount", "agrégat sur tous les crédits personnels"),
+            entry("PersonalCreditRepository.aggregateByStatus", "agrégat sur tous les crédits personnels"),
+            entry("PersonalCreditRepository.findByInterestRateLessThan", "critère de taux, non sélectif"),
+            entry("PersonalCreditRepository.findByDuration", "critère de durée, non sélectif"),
+            entry("PersonalCreditRepository.findByDurationGreaterThan", "critère de durée, non sélectif"),
+            entry("ProfessionalCreditRepository.aggregateByStatus", "agrégat sur tous les crédits professionnels"),
+            entry("ProfessionalCreditRepository.findByAmountBetween", "critère de montant, non sélectif"),
+            entry("ProfessionalCreditRepository.findByInterestRateBetween", "critère de taux, non sélectif"),
+            entry("ProfessionalCreditRepository.findByAcceptanceDate", "statistiques ponctuelles sur les crédits professionnels"),
+            entry("RealEstateCreditRepository.aggregateByStatus", "agrégat sur tous les crédits immobiliers"),
+            entry("RealEstateCreditRepository.findAverageInterestRate", "agrégat sur tous les crédits immobiliers"),
+            entry("RealEstateCreditRepository.findAverageDuration", "agrégat sur tous les crédits immobiliers"),
+            entry("RealEstateCreditRepository.findWithHighestAmount", "agrégat sur tous les crédits immobiliers"),
+            entry("RealEstateCreditRepository.findByAmountGreaterThan", "critère de montant, non sélectif"),
+            entry("RealEstateCreditRepository.findByDurationGreaterThan", "critère de durée, non sélectif"),
+            entry("RealEstateCreditRepository.findByPropertyType", "type de bien : trois valeurs possibles"),
+            entry("RepaymentRepository.streamAllForExport", "export complet"),
+            entry("RepaymentRepository.sumAmountByType", "agrégat sur tous les remboursements"),
+            entry("RepaymentRepository.findByAmountGreaterThan", "critère de montant seul, non sélectif"),
+            entry("RepaymentRollupRepository.increment", "requête native MariaDB (upsert par clé primaire)"),
+            entry("RepaymentRollupRepository.insertFromRepayments", "reconstruction complète des agrégats"),
+            entry("RepaymentRollupRepository.deleteAllRollups", "reconstruction complète des agrégats")
+    );
+
+    private static final Pattern TABLE_SCAN = Pattern.compile("([\\w.]+)\\.tableScan");
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    @Autowired
+    private PersonalCreditRepository personalCreditRepository;
+
+    @Autowired
+    private ProfessionalCreditRepository professionalCreditRepository;
+
+    @Autowired
+    private RealEstateCreditRepository realEstateCreditRepository;
+
+    @Autowired
+    private RepaymentRepository repaymentRepository;
+
+    @Autowired
+    private RepaymentRollupRepository rollupRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private Client client;
+    private Credit credit;
+    private final Date from = Date.valueOf(LocalDate.of(2024, 1, 1));
+    private final Date to = Date.valueOf(LocalDate.of(2024, 6, 30));
+
+    @BeforeEach
+    void seed() {
+        for (int c = 0; c < 50; c++) {
+            Client seeded = new Client();
+            seeded.setName("Client " + c);
+            seeded.setEmail("client" + c + "@example.com");
+            entityManager.persist(seeded);
+
+            List<Credit> credits = List.of(new PersonalCredit(), new ProfessionalCredit(), new RealEstateCredit());
+            for (int k = 0; k < credits.size(); k++) {
+                Credit seededCredit = credits.get(k);
+                seededCredit.setRequestDate(Date.valueOf(LocalDate.of(2023, 1, 1).plusDays(c * 7L + k)));
+                seededCredit.setStatus(CreditStatus.values()[(c + k) % CreditStatus.values().length]);
+                seededCredit.setAmount(1000.0 * (c + 1));
+                seededCredit.setDuration(12 * (k + 1));
+                seededCredit.setInterestRate(3.0 + k);
+                seededCredit.setClient(seeded);
+                entityManager.persist(seededCredit);
+
+                for (int r = 0; r < 4; r++) {
+                    Repayment repayment = new Repayment();
+                    repayment.setDate(Date.valueOf(LocalDate.of(2023, 1, 1).plusDays(c * 11L + r * 30L)));
+                    repayment.setAmount(100.0 + r);
+                    repayment.setType(RepaymentType.values()[r % RepaymentType.values().length]);
+                    repayment.setCredit(seededCredit);
+                    entityManager.persist(repayment);
+                }
+                credit = seededCredit;
+            }
+            client = seeded;
+
+            entityManager.persist(new RepaymentRollup(new RepaymentRollupId(
+                    Date.valueOf(LocalDate.of(2020, 1, 1).plusMonths(c)), RepaymentType.MONTHLY_PAYMENT, CreditType.PERSONAL.name()),
+                    100.0, 1));
+            entityManager.persist(new IdempotencyRecord("key-" + c, "hash-" + c, true, 201, null, null,
+                    Date.valueOf(LocalDate.of(2024, 1, 1).plusDays(c))));
+
+            User user = new User();
+            user.setUsername("user" + c);
+            user.setPassword("password");
+            user.setEmail("user" + c + "@example.com");
+            user.setRole(Role.ROLE_CLIENT);
+            entityManager.persist(user);
+
+            entityManager.persist(new RefreshToken(null, String.format("%064d", c), user.getId(), "family-" + c,
+                    Date.valueOf(LocalDate.of(2024, 1, 1).plusDays(c)), null,
+                    c % 10 == 0 ? Date.valueOf(LocalDate.of(2023, 12, 1).plusDays(c)) : null));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        // Statistiques de sélectivité à jour pour l'optimiseur
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void everyRepositoryMethodIsCheckedOrExplicitlyAllowedToScan() {
+        Set<String> declared = declaredQueryMethods();
+        Set<String> known = new TreeSet<>(indexedQueries().keySet());
+        known.addAll(FULL_SCANS.keySet());
+
+        assertThat(declared).as("méthodes sans vérification d'index").isSubsetOf(known);
+        assertThat(known).as("entrées ne correspondant à aucune méthode").isSubsetOf(declared);
+    }
+
+    @Test
+    void indexedQueriesDoNotScanTables() {
+        Map<String, List<String>> scans = new LinkedHashMap<>();
+        for (Map.Entry<String, Runnable> query : indexedQueries().entrySet()) {
+            SqlCapture.STATEMENTS.clear();
+            query.getValue().run();
+
+            List<String> explained = new ArrayList<>();
+            for (String sql : List.copyOf(SqlCapture.STATEMENTS)) {
+                if (isExplainable(sql)) {
+                    explained.add(sql);
+                    List<String> tables = scannedTables(sql);
+                    if (!tables.isEmpty()) {
+                        scans.put(query.getKey(), tables);
+                    }
+                }
+            }
+            assertThat(explained).as("requêtes exécutées par " + query.getKey()).isNotEmpty();
+        }
+        assertThat(scans).as("parcours complets de tables").isEmpty();
+    }
+
+    private Map<String, Runnable> indexedQueries() {
+        List<Long> creditIds = List.of(credit.getId(), credit.getId() - 1);
+        PageRequest page = PageRequest.ofSize(10);
+
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("ClientRepository.findByEmail", () -> clientRepository.findByEmail("client1@example.com"));
+        queries.put("ClientRepository.findFirstByEmail", () -> clientRepository.findFirstByEmail("client1@example.com"));
+        queries.put("ClientRepository.existsByEmail", () -> clientRepository.existsByEmail("client1@example.com"));
+        queries.put("ClientRepository.findExistingIds", () -> clientRepository.findExistingIds(List.of(client.getId())));
+        queries.put("ClientRepository.findDtoById", () -> clientRepository.findDtoById(client.getId()));
+        queries.put("ClientRepository.findDtoByEmail", () -> clientRepository.findDtoByEmail("client1@example.com"));
+        queries.put("ClientRepository.findDtoPage", () -> clientRepository.findDtoPage(0L, page));
+        queries.put("ClientRepository.findEmailPage", () -> clientRepository.findEmailPage(0L, page));
+
+        queries.put("CreditRepository.findByStatus", () -> creditRepository.findByStatus(CreditStatus.ACCEPTED));
+        queries.put("CreditRepository.findByClient", () -> creditRepository.findByClient(client));
+        queries.put("CreditRepository.findByClientId", () -> creditRepository.findByClientId(client.getId()));
+        queries.put("CreditRepository.findByRequestDateBetween", () -> creditRepository.findByRequestDateBetween(from, to));
+        queries.put("CreditRepository.findByStatusAndAmountGreaterThan",
+                () -> creditRepository.findByStatusAndAmountGreaterThan(CreditStatus.ACCEPTED, 1000.0));
+        queries.put("CreditRepository.findIdPairsByClientIds", () -> creditRepository.findIdPairsByClientIds(List.of(client.getId())));
+        queries.put("CreditRepository.findDtoById", () -> creditRepository.findDtoById(credit.getId()));
+        queries.put("CreditRepository.findDtoByClientId", () -> creditRepository.findDtoByClientId(client.getId()));
+        queries.put("CreditRepository.findDtoByStatus", () -> creditRepository.findDtoByStatus(CreditStatus.ACCEPTED));
+        queries.put("CreditRepository.findDtoPage", () -> creditRepository.findDtoPage(0L, page));
+        queries.put("CreditRepository.findDtoPageByStatus",
+                () -> creditRepository.findDtoPageByStatus(CreditStatus.ACCEPTED, 0L, page));
+        queries.put("CreditRepository.lockInProgressByIds", () -> creditRepository.lockInProgressByIds(creditIds));
+        queries.put("CreditRepository.lockInProgressByFilter",
+                () -> creditRepository.lockInProgressByFilter(client.getId(), null, null, page));
+        queries.put("CreditRepository.findByIdForUpdate", () -> creditRepository.findByIdForUpdate(credit.getId()));
+        queries.put("CreditRepository.findAllByIdForUpdate", () -> creditRepository.findAllByIdForUpdate(creditIds));
+        queries.put("CreditRepository.findBalanceById", () -> creditRepository.findBalanceById(credit.getId()));
+        queries.put("CreditRepository.findBalancesByIds", () -> creditRepository.findBalancesByIds(creditIds));
+        queries.put("CreditRepository.findBalancesWithRepaidSum", () -> creditRepository.findBalancesWithRepaidSum(0L, page));
+
+        queries.put("PersonalCreditRepository.findByStatus", () -> personalCreditRepository.findByStatus(CreditStatus.ACCEPTED));
+        queries.put("PersonalCreditRepository.findByClientId", () -> personalCreditRepository.findByClientId(client.getId()));
+        queries.put("ProfessionalCreditRepository.findByStatus",
+                () -> professionalCreditRepository.findByStatus(CreditStatus.ACCEPTED));
+        queries.put("ProfessionalCreditRepository.findByClientId", () -> professionalCreditRepository.findByClientId(client.getId()));
+        queries.put("ProfessionalCreditRepository.sumAmountOfAcceptedCredits",
+                () -> professionalCreditRepository.sumAmountOfAcceptedCredits());
+        queries.put("RealEstateCreditRepository.findByStatus", () -> realEstateCreditRepository.findByStatus(CreditStatus.ACCEPTED));
+        queries.put("RealEstateCreditRepository.findByClientId", () -> realEstateCreditRepository.findByClientId(client.getId()));
+
+        queries.put("RepaymentRepository.findByCreditId", () -> repaymentRepository.findByCreditId(credit.getId()));
+        queries.put("RepaymentRepository.findByCredit", () -> repaymentRepository.findByCredit(credit));
+        queries.put("RepaymentRepository.findByType", () -> repaymentRepository.findByType(RepaymentType.EARLY_REPAYMENT));
+        queries.put("RepaymentRepository.findByDateBetween", () -> repaymentRepository.findByDateBetween(from, to));
+        queries.put("RepaymentRepository.findByDateAfter", () -> repaymentRepository.findByDateAfter(to));
+        queries.put("RepaymentRepository.sumAmountByCreditId", () -> repaymentRepository.sumAmountByCreditId(credit.getId()));
+        queries.put("RepaymentRepository.findByCreditIdAndType",
+                () -> repaymentRepository.findByCreditIdAndType(credit.getId(), RepaymentType.MONTHLY_PAYMENT));
+        queries.put("RepaymentRepository.findIdPairsByCreditIds", () -> repaymentRepository.findIdPairsByCreditIds(creditIds));
+        queries.put("RepaymentRepository.findDtoByCreditId", () -> repaymentRepository.findDtoByCreditId(credit.getId()));
+        queries.put("RepaymentRepository.findDtoByType", () -> repaymentRepository.findDtoByType(RepaymentType.EARLY_REPAYMENT));
+        queries.put("RepaymentRepository.findDtoPageByType",
+                () -> repaymentRepository.findDtoPageByType(RepaymentType.EARLY_REPAYMENT, 0L, page));
+
+        queries.put("RepaymentRollupRepository.findByMonthBetween", () -> rollupRepository.findByMonthBetween(from, to));
+        queries.put("IdempotencyRecordRepository.deleteExpired", () -> idempotencyRecordRepository.deleteExpired(from));
+
+        queries.put("UserRepository.findByUsername", () -> userRepository.findByUsername("user1"));
+        queries.put("UserRepository.existsByUsername", () -> userRepository.existsByUsername("user1"));
+        queries.put("UserRepository.existsByEmail", () -> userRepository.existsByEmail("user1@example.com"));
+        queries.put("UserRepository.findIdentityPage", () -> userRepository.findIdentityPage(0L, page));
+        queries.put("UserRepository.findRevokedTokenVersions", () -> userRepository.findRevokedTokenVersions());
+        queries.put("UserRepository.findTokenVersionById", () -> userRepository.findTokenVersionById(1L));
+        queries.put("UserRepository.incrementTokenVersion", () -> userRepository.incrementTokenVersion(1L));
+        queries.put("RefreshTokenRepository.findByTokenHashForUpdate",
+                () -> refreshTokenRepository.findByTokenHashForUpdate(String.format("%064d", 1)));
+        queries.put("RefreshTokenRepository.revokeFamily",
+                () -> refreshTokenRepository.revokeFamily("family-1", Date.valueOf(LocalDate.of(2024, 1, 1))));
+        queries.put("RefreshTokenRepository.findActiveFamilyIdsByUserId",
+                () -> refreshTokenRepository.findActiveFamilyIdsByUserId(1L));
+        queries.put("RefreshTokenRepository.revokeAllByUserId",
+                () -> refreshTokenRepository.revokeAllByUserId(1L, Date.valueOf(LocalDate.of(2024, 1, 1))));
+        queries.put("RefreshTokenRepository.findFamiliesRevokedSince",
+                () -> refreshTokenRepository.findFamiliesRevokedSince(Date.valueOf(LocalDate.of(2024, 1, 30))));
+        queries.put("RefreshTokenRepository.deleteExpired",
+                () -> refreshTokenRepository.deleteExpired(Date.valueOf(LocalDate.of(2024, 1, 5))));
+        return queries;
+    }
+
+    // Tables parcourues entièrement d'après le plan H2 (les tables temporaires de Hibernate sont ignorées)
+    private List<String> scannedTables(String sql) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+        List<String> tables = new ArrayList<>();
+        Matcher matcher = TABLE_SCAN.matcher(plan);
+        while (matcher.find()) {
+            String table = matcher.group(1).substring(matcher.group(1).lastIndexOf('.') + 1);
+            if (!table.startsWith("HT_") && !table.startsWith("HTE_")) {
+                tables.add(table);
+            }
+        }
+        return tables;
+    }
+
+    private static boolean isExplainable(String sql) {
+        String statement = sql.trim().toLowerCase();
+        return statement.startsWith("select") || statement.startsWith("update") || statement.startsWith("delete");
+    }
+
+    // Méthodes de requête déclarées dans les interfaces de repositories de l'application
+    private static Set<String> declaredQueryMethods() {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                return beanDefinition.getMetadata().isInterface();
+            }
+        };
+        scanner.addIncludeFilter(new AssignableTypeFilter(org.springframework.data.repository.Repository.class));
+
+        Set<String> methods = new TreeSet<>();
+        for (BeanDefinition definition : scanner.findCandidateComponents("com.bourhym.exambackend")) {
+            Class<?> repository = ClassUtils.resolveClassName(definition.getBeanClassName(), null);
+            Arrays.stream(repository.getDeclaredMethods())
+                    .filter(method -> !method.isDefault() && !method.isSynthetic() && !Modifier.isStatic(method.getModifiers()))
+                    .map(Method::getName)
+                    .forEach(name -> methods.add(repository.getSimpleName() + "." + name));
+        }
+        return methods;
+    }
+
+    /**
+     * Enregistre les requêtes SQL générées par Hibernate.
+     */
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
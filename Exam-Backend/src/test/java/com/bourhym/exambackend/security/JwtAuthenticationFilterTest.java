@@ -0,0 +1,147 @@
+package com.bourhym.exambackend.security;
+
+import com.bourhym.exambackend.security.entities.User;
+import com.bourhym.exambackend.security.enums.Role;
+import com.bourhym.exambackend.security.repositories.RefreshTokenRepository;
+import com.bourhym.exambackend.security.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Filtre d'authentification avec les vrais services de tokens, versions et index de révocation
+ * (seuls les repositories sont simulés) : sessions fermées, versions révoquées, rôles inconnus
+ * et tokens sans claims.
+ */
+class JwtAuthenticationFilterTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JwtService jwtService = new JwtService();
+    private final UserPrincipalCache principalCache = new UserPrincipalCache();
+    private final TokenVersionStore tokenVersionStore = new TokenVersionStore();
+    private final SessionRevocationIndex sessionRevocations = new SessionRevocationIndex();
+    private final JwtAuthenticationFilter filter =
+            new JwtAuthenticationFilter(jwtService, tokenVersionStore, principalCache, sessionRevocations);
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", "mySecretKey123456789012345678901234567890");
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationMs", 60_000);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheSize", 100);
+        jwtService.init();
+
+        ReflectionTestUtils.setField(principalCache, "maxEntries", 100);
+        ReflectionTestUtils.setField(principalCache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(principalCache, "userRepository", userRepository);
+        principalCache.init();
+
+        ReflectionTestUtils.setField(tokenVersionStore, "userRepository", userRepository);
+        ReflectionTestUtils.setField(tokenVersionStore, "principalCache", principalCache);
+        ReflectionTestUtils.setField(tokenVersionStore, "refreshTokenService", mock(RefreshTokenService.class));
+
+        ReflectionTestUtils.setField(sessionRevocations, "accessTokenLifetimeMs", 60_000L);
+        ReflectionTestUtils.setField(sessionRevocations, "refreshTokenRepository", mock(RefreshTokenRepository.class));
+
+        user = new User();
+        user.setId(7L);
+        user.setUsername("jean");
+        user.setRole(Role.ROLE_CLIENT);
+        user.setEnabled(true);
+
+        SecurityContextHolder.clearContext();
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatesFromTheClaimsAlone() throws Exception {
+        Authentication authentication = authenticate(jwtService.generateAccessToken(user, "session-1"));
+
+        assertThat(authentication).isNotNull();
+        assertThat(((JwtPrincipal) authentication.getPrincipal()).id()).isEqualTo(7L);
+        assertThat(authentication.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_CLIENT");
+    }
+
+    @Test
+    void rejectsTheAccessTokensOfALoggedOutSession() throws Exception {
+        String token = jwtService.generateAccessToken(user, "session-1");
+        String otherSession = jwtService.generateAccessToken(user, "session-2");
+
+        // Ce que fait la déconnexion une fois la révocation de la famille validée
+        sessionRevocations.revoke("session-1");
+
+        assertThat(authenticate(token)).isNull();
+        assertThat(authenticate(otherSession)).isNotNull();
+    }
+
+    @Test
+    void rejectsTokensBelowTheVersionStoredByRevokeAll() throws Exception {
+        String before = jwtService.generateAccessToken(user, "session-1");
+        when(userRepository.incrementTokenVersion(7L)).thenReturn(1);
+        when(userRepository.findTokenVersionById(7L)).thenReturn(Optional.of(1));
+
+        assertThat(tokenVersionStore.revokeAll(7L)).isTrue();
+
+        assertThat(authenticate(before)).isNull();
+        user.setTokenVersion(1);
+        assertThat(authenticate(jwtService.generateAccessToken(user, "session-2"))).isNotNull();
+    }
+
+    @Test
+    void rejectsAnUnknownRoleClaim() throws Exception {
+        String token = jwtService.generateToken(Map.of(
+                JwtService.CLAIM_USER_ID, 7L,
+                JwtService.CLAIM_ROLE, "ROLE_INCONNU",
+                JwtService.CLAIM_TOKEN_VERSION, 0), user);
+
+        assertThat(authenticate(token)).isNull();
+    }
+
+    @Test
+    void resolvesLegacyTokensThroughTheUserCacheOnlyAtVersionZero() throws Exception {
+        // Token émis avant l'ajout des claims d'ID, de rôle et de version
+        String legacy = jwtService.generateToken(Map.of(), user);
+        when(userRepository.findByUsername("jean")).thenReturn(Optional.of(user));
+
+        Authentication authentication = authenticate(legacy);
+        assertThat(authentication).isNotNull();
+        assertThat(((JwtPrincipal) authentication.getPrincipal()).id()).isEqualTo(7L);
+        verify(userRepository).findByUsername("jean");
+
+        when(userRepository.incrementTokenVersion(7L)).thenReturn(1);
+        when(userRepository.findTokenVersionById(7L)).thenReturn(Optional.of(1));
+        tokenVersionStore.revokeAll(7L);
+
+        assertThat(authenticate(legacy)).isNull();
+    }
+
+    // Exécute le filtre sur une requête portant le token, et retourne l'authentification établie
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/clients");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        assertThat(chain.getRequest()).isNotNull();
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
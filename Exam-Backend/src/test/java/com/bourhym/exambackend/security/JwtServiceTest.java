@@ -0,0 +1,72 @@
+package com.bourhym.exambackend.security;
+
+import com.bourhym.exambackend.security.entities.User;
+import com.bourhym.exambackend.security.enums.Role;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890";
+
+    private final JwtService jwtService = new JwtService();
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationMs", 60_000);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheSize", 100);
+        jwtService.init();
+
+        user = new User();
+        user.setId(7L);
+        user.setUsername("jean");
+        user.setRole(Role.ROLE_CLIENT);
+        user.setTokenVersion(3);
+    }
+
+    @Test
+    void embedsUserIdRoleAndTokenVersion() {
+        Claims claims = jwtService.verify(jwtService.generateToken(user)).orElseThrow();
+
+        assertThat(claims.get(JwtService.CLAIM_USER_ID, Long.class)).isEqualTo(7L);
+        assertThat(claims.get(JwtService.CLAIM_ROLE, String.class)).isEqualTo("ROLE_CLIENT");
+        assertThat(claims.get(JwtService.CLAIM_TOKEN_VERSION, Integer.class)).isEqualTo(3);
+    }
+
+    @Test
+    void accessTokensCarryTheirSessionId() {
+        Claims claims = jwtService.verify(jwtService.generateAccessToken(user, "session-1")).orElseThrow();
+
+        assertThat(claims.get(JwtService.CLAIM_SESSION_ID, String.class)).isEqualTo("session-1");
+        assertThat(claims.get(JwtService.CLAIM_USER_ID, Long.class)).isEqualTo(7L);
+    }
+
+    @Test
+    void verifiesOnceAndServesRepeatedChecksFromTheCache() {
+        String token = jwtService.generateToken(user);
+
+        assertThat(jwtService.verify(token)).hasValueSatisfying(claims -> assertThat(claims.getSubject()).isEqualTo("jean"));
+        assertThat(jwtService.verify(token).get()).isSameAs(jwtService.verify(token).get());
+        assertThat(jwtService.isTokenValid(token, user)).isTrue();
+    }
+
+    @Test
+    void rejectsTamperedAndExpiredTokens() {
+        String token = jwtService.generateToken(user);
+        int signature = token.lastIndexOf('.') + 1;
+        String tampered = token.substring(0, signature) + (token.charAt(signature) == 'A' ? 'B' : 'A')
+                + token.substring(signature + 1);
+
+        assertThat(jwtService.verify(tampered)).isEmpty();
+        assertThat(jwtService.extractUsername("not-a-token")).isNull();
+
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationMs", -1000);
+        assertThat(jwtService.verify(jwtService.generateToken(user))).isEmpty();
+    }
+}
@@ -0,0 +1,99 @@
+package com.bourhym.exambackend.security;
+
+import com.bourhym.exambackend.security.entities.User;
+import com.bourhym.exambackend.security.enums.Role;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Coût de l'authentification d'une requête : ancien chemin (trois décodages, clé et parseur recréés
+ * à chaque fois), vérification unique sans cache, puis vérification servie par le cache.
+ * Désactivé par défaut :
+ *
+ *   mvn test -Dtest=JwtVerificationBenchmarkTest -Dbenchmark.jwt=200000
+ */
+@EnabledIfSystemProperty(named = "benchmark.jwt", matches = "\\d+")
+class JwtVerificationBenchmarkTest {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890";
+    private static final int DISTINCT_TOKENS = 1000;
+
+    @Test
+    void compareVerificationPaths() {
+        int requests = Integer.getInteger("benchmark.jwt");
+        JwtService cached = jwtService(DISTINCT_TOKENS * 2);
+        JwtService uncached = jwtService(1);
+
+        List<String> tokens = new ArrayList<>(DISTINCT_TOKENS);
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            User user = new User();
+            user.setUsername("user" + i);
+            user.setRole(Role.ROLE_CLIENT);
+            tokens.add(cached.generateToken(user));
+        }
+
+        // Chauffe du JIT
+        run(requests / 10, tokens, this::legacyUsername);
+        run(requests / 10, tokens, token -> uncached.verify(token).map(Claims::getSubject).orElse(null));
+        run(requests / 10, tokens, token -> cached.verify(token).map(Claims::getSubject).orElse(null));
+
+        long legacy = run(requests, tokens, this::legacyUsername);
+        long parseOnce = run(requests, tokens, token -> uncached.verify(token).map(Claims::getSubject).orElse(null));
+        long fromCache = run(requests, tokens, token -> cached.verify(token).map(Claims::getSubject).orElse(null));
+
+        System.out.printf("%nVérification JWT, %d requêtes sur %d tokens distincts%n", requests, DISTINCT_TOKENS);
+        System.out.printf("  ancien chemin (3 décodages) : %6.2f µs/requête%n", legacy / 1e3 / requests);
+        System.out.printf("  vérification unique         : %6.2f µs/requête%n", parseOnce / 1e3 / requests);
+        System.out.printf("  cache des tokens vérifiés   : %6.2f µs/requête%n", fromCache / 1e3 / requests);
+
+        assertThat(fromCache).isLessThan(legacy);
+    }
+
+    // Ancien JwtService : extractUsername, puis extractUsername et isTokenExpired dans isTokenValid
+    private String legacyUsername(String token) {
+        String username = legacyClaims(token).getSubject();
+        boolean valid = username.equals(legacyClaims(token).getSubject())
+                && !legacyClaims(token).getExpiration().before(new Date());
+        return valid ? username : null;
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    private static long run(int requests, List<String> tokens, Function<String, String> authenticate) {
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            String token = tokens.get(i % tokens.size());
+            if (authenticate.apply(token) == null) {
+                throw new IllegalStateException("Token rejeté");
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static JwtService jwtService(int cacheSize) {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationMs", 3_600_000);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheSize", cacheSize);
+        jwtService.init();
+        return jwtService;
+    }
+}
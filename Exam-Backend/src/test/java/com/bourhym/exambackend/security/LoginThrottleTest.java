@@ -0,0 +1,39 @@
+package com.bourhym.exambackend.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoginThrottleTest {
+
+    private final LoginThrottle throttle = new LoginThrottle();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(throttle, "ipPerMinute", 5);
+        ReflectionTestUtils.setField(throttle, "usernamePerMinute", 2);
+        ReflectionTestUtils.setField(throttle, "maxTrackedKeys", 100);
+        throttle.init();
+    }
+
+    @Test
+    void limitsAttemptsPerUsernameRegardlessOfCase() {
+        assertThat(throttle.tryAcquire("10.0.0.1", "jean")).isZero();
+        assertThat(throttle.tryAcquire("10.0.0.2", "Jean")).isZero();
+
+        assertThat(throttle.tryAcquire("10.0.0.3", "JEAN")).isPositive();
+        assertThat(throttle.tryAcquire("10.0.0.3", "marie")).isZero();
+    }
+
+    @Test
+    void limitsAttemptsPerIp() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(throttle.tryAcquire("10.0.0.1", "user" + i)).isZero();
+        }
+
+        assertThat(throttle.tryAcquire("10.0.0.1", "autre")).isPositive();
+        assertThat(throttle.getThrottledCount()).isEqualTo(1);
+    }
+}
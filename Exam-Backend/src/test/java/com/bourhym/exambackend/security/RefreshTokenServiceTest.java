@@ -0,0 +1,155 @@
+package com.bourhym.exambackend.security;
+
+import com.bourhym.exambackend.security.entities.RefreshToken;
+import com.bourhym.exambackend.security.entities.User;
+import com.bourhym.exambackend.security.enums.Role;
+import com.bourhym.exambackend.security.repositories.RefreshTokenRepository;
+import com.bourhym.exambackend.security.repositories.UserRepository;
+import com.bourhym.exambackend.utils.Sha256;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rotation des tokens de rafraîchissement sur H2 : verrou de ligne, réutilisation d'un token remplacé
+ * (révocation de toute la session), tokens expirés, révoqués ou d'un utilisateur désactivé.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.bourhym.exambackend.security.RefreshTokenServiceTest$SqlCapture"
+})
+@Import({RefreshTokenService.class, SessionRevocationIndex.class})
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRevocationIndex sessionRevocations;
+
+    private User user;
+
+    @BeforeEach
+    void seed() {
+        user = new User();
+        user.setUsername("client");
+        user.setPassword("hash");
+        user.setEmail("client@example.com");
+        user.setRole(Role.ROLE_CLIENT);
+        user.setEnabled(true);
+        entityManager.persistAndFlush(user);
+        SqlCapture.STATEMENTS.clear();
+    }
+
+    @Test
+    void rotationReplacesTheTokenUnderARowLock() {
+        RefreshTokenService.IssuedToken issued = refreshTokenService.issue(user);
+        entityManager.flush();
+        SqlCapture.STATEMENTS.clear();
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(issued.token()).orElseThrow();
+        entityManager.flush();
+
+        assertThat(rotation.user().getId()).isEqualTo(user.getId());
+        assertThat(rotation.refreshToken().token()).isNotEqualTo(issued.token());
+        assertThat(rotation.refreshToken().sessionId()).isEqualTo(issued.sessionId());
+        assertThat(stored(issued.token()).getRotatedAt()).isNotNull();
+        assertThat(stored(rotation.refreshToken().token()).getRotatedAt()).isNull();
+        // Deux rafraîchissements concurrents du même token sont sérialisés par le verrou de ligne
+        assertThat(SqlCapture.STATEMENTS).anySatisfy(sql -> {
+            String lower = sql.toLowerCase(Locale.ROOT);
+            assertThat(lower).contains("refresh_tokens").contains("for update");
+        });
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesTheWholeSession() {
+        RefreshTokenService.IssuedToken issued = refreshTokenService.issue(user);
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(issued.token()).orElseThrow();
+
+        assertThat(refreshTokenService.rotate(issued.token())).isEmpty();
+        // Le token légitime de la session est révoqué lui aussi
+        assertThat(refreshTokenService.rotate(rotation.refreshToken().token())).isEmpty();
+        assertThat(stored(rotation.refreshToken().token()).getRevokedAt()).isNotNull();
+
+        // Les tokens d'accès de la session sont rejetés une fois la révocation validée
+        assertThat(sessionRevocations.isRevoked(issued.sessionId())).isFalse();
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        assertThat(sessionRevocations.isRevoked(issued.sessionId())).isTrue();
+
+        // Nettoyage des données validées, pour les autres tests
+        TestTransaction.start();
+        refreshTokenRepository.deleteAllInBatch();
+        userRepository.deleteById(user.getId());
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+    }
+
+    @Test
+    void rejectsExpiredRevokedAndUnknownTokens() {
+        String expired = "expire";
+        entityManager.persist(new RefreshToken(null, Sha256.hex(expired), user.getId(), "session-expiree",
+                new Date(System.currentTimeMillis() - 1000), null, null));
+        RefreshTokenService.IssuedToken revoked = refreshTokenService.issue(user);
+        refreshTokenService.revoke(revoked.token());
+
+        assertThat(refreshTokenService.rotate(expired)).isEmpty();
+        assertThat(refreshTokenService.rotate(revoked.token())).isEmpty();
+        assertThat(refreshTokenService.rotate("inconnu")).isEmpty();
+    }
+
+    @Test
+    void rejectsTheTokensOfADisabledUserAndClosesTheSession() {
+        RefreshTokenService.IssuedToken issued = refreshTokenService.issue(user);
+        user.setEnabled(false);
+        entityManager.persistAndFlush(user);
+
+        Optional<RefreshTokenService.Rotation> rotation = refreshTokenService.rotate(issued.token());
+
+        assertThat(rotation).isEmpty();
+        assertThat(stored(issued.token()).getRevokedAt()).isNotNull();
+    }
+
+    private RefreshToken stored(String rawToken) {
+        entityManager.clear();
+        return entityManager.getEntityManager()
+                .createQuery("SELECT r FROM RefreshToken r WHERE r.tokenHash = :hash", RefreshToken.class)
+                .setParameter("hash", Sha256.hex(rawToken))
+                .getSingleResult();
+    }
+
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.bourhym.exambackend.security;
+
+import com.bourhym.exambackend.security.repositories.RefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SessionRevocationIndexTest {
+
+    private static final long ACCESS_TOKEN_LIFETIME_MS = 60_000;
+
+    private final RefreshTokenRepository refreshTokenRepository = mock(RefreshTokenRepository.class);
+    private final SessionRevocationIndex index = new SessionRevocationIndex();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "accessTokenLifetimeMs", ACCESS_TOKEN_LIFETIME_MS);
+        ReflectionTestUtils.setField(index, "refreshTokenRepository", refreshTokenRepository);
+    }
+
+    @Test
+    void sessionsRevokedLocallyAreRejectedImmediately() {
+        assertThat(index.isRevoked("session")).isFalse();
+        assertThat(index.isRevoked(null)).isFalse();
+
+        index.revoke("session");
+
+        assertThat(index.isRevoked("session")).isTrue();
+        assertThat(index.isRevoked("autre")).isFalse();
+    }
+
+    @Test
+    void refreshLoadsTheRevocationsOfOtherInstances() {
+        when(refreshTokenRepository.findFamiliesRevokedSince(any(Date.class)))
+                .thenReturn(List.<Object[]>of(new Object[]{"distante", new Date()}));
+
+        index.refresh();
+
+        assertThat(index.isRevoked("distante")).isTrue();
+    }
+
+    @Test
+    void refreshForgetsSessionsOnceTheirAccessTokensHaveExpired() {
+        index.revoke("recente");
+        ReflectionTestUtils.setField(index, "accessTokenLifetimeMs", -ACCESS_TOKEN_LIFETIME_MS);
+        when(refreshTokenRepository.findFamiliesRevokedSince(any(Date.class))).thenReturn(List.of());
+
+        // Horizon placé dans le futur : la révocation est plus ancienne que la durée de vie d'un token d'accès
+        index.refresh();
+
+        assertThat(index.isRevoked("recente")).isFalse();
+    }
+}
@@ -0,0 +1,60 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.utils.AmortizationMath;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class AmortizationEngineTest {
+
+    private final AmortizationEngine engine = new AmortizationEngine();
+
+    @Test
+    void computesConstantInstallmentAndFullyRepaysPrincipal() {
+        AmortizationEngine.Schedule schedule = engine.schedule(10000.0, 24, 5.5);
+
+        assertThat(schedule.getDuration()).isEqualTo(24);
+        assertThat(schedule.getMonthlyInstallment()).isEqualTo(440.96);
+        assertThat(schedule.interestAt(0)).isEqualTo(45.83);
+        assertThat(schedule.outstandingAt(23)).isZero();
+
+        double principal = 0.0;
+        for (int month = 0; month < schedule.getDuration(); month++) {
+            principal += schedule.principalAt(month);
+            assertThat(schedule.installmentAt(month))
+                    .isCloseTo(schedule.principalAt(month) + schedule.interestAt(month), within(0.005));
+        }
+        assertThat(principal).isCloseTo(10000.0, within(0.005));
+        assertThat(schedule.getTotalPayable()).isCloseTo(10000.0 + schedule.getTotalInterest(), within(0.005));
+    }
+
+    @Test
+    void totalPayableMatchesSchedule() {
+        AmortizationEngine.Schedule schedule = engine.schedule(200000.0, 240, 3.1);
+
+        assertThat(AmortizationMath.totalPayable(200000.0, 240, 3.1)).isEqualTo(schedule.getTotalPayable());
+    }
+
+    @Test
+    void zeroRateSplitsPrincipalEvenly() {
+        AmortizationEngine.Schedule schedule = engine.schedule(1200.0, 12, 0.0);
+
+        assertThat(schedule.getMonthlyInstallment()).isEqualTo(100.0);
+        assertThat(schedule.getTotalInterest()).isZero();
+        assertThat(schedule.getTotalPayable()).isEqualTo(1200.0);
+    }
+
+    @Test
+    void returnsCachedScheduleForSameParameters() {
+        assertThat(engine.schedule(50000.0, 60, 4.2)).isSameAs(engine.schedule(50000.0, 60, 4.2));
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThatThrownBy(() -> engine.schedule(null, 12, 5.0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> engine.schedule(1000.0, 0, 5.0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> engine.schedule(1000.0, 12, -1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,68 @@
+package com.bourhym.exambackend.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Coût d'un tableau d'amortissement demandé par les écrans de crédit : calcul complet à chaque
+ * appel, puis tableau servi par le cache de l'AmortizationEngine. Les crédits tiennent dans le
+ * cache, comme un portefeuille consulté de façon répétée.
+ * Désactivé par défaut :
+ *
+ *   mvn test -Dtest=AmortizationScheduleBenchmarkTest -Dbenchmark.schedules=1000000
+ */
+@EnabledIfSystemProperty(named = "benchmark.schedules", matches = "\\d+")
+class AmortizationScheduleBenchmarkTest {
+
+    private static final int DISTINCT_CREDITS = 500;
+
+    @Test
+    void compareCachedAndUncachedSchedules() {
+        int calls = Integer.getInteger("benchmark.schedules");
+        AmortizationEngine engine = new AmortizationEngine();
+
+        double[] amounts = new double[DISTINCT_CREDITS];
+        int[] durations = new int[DISTINCT_CREDITS];
+        double[] rates = new double[DISTINCT_CREDITS];
+        for (int i = 0; i < DISTINCT_CREDITS; i++) {
+            amounts[i] = 5_000.0 + i * 750.0;
+            durations[i] = 12 + i % 289;
+            rates[i] = 1.5 + (i % 40) * 0.125;
+        }
+        Function<Integer, AmortizationEngine.Schedule> uncached =
+                i -> AmortizationEngine.compute(amounts[i], durations[i], rates[i]);
+        Function<Integer, AmortizationEngine.Schedule> cached =
+                i -> engine.schedule(amounts[i], durations[i], rates[i]);
+
+        // Chauffe du JIT (remplit aussi le cache)
+        run(calls / 10, uncached);
+        run(calls / 10, cached);
+
+        long computed = run(calls, uncached);
+        long fromCache = run(calls, cached);
+
+        System.out.printf("%nTableaux d'amortissement, %d appels sur %d crédits distincts%n", calls, DISTINCT_CREDITS);
+        System.out.printf("  calcul à chaque appel : %6.2f µs/appel%n", computed / 1e3 / calls);
+        System.out.printf("  cache du moteur       : %6.2f µs/appel%n", fromCache / 1e3 / calls);
+
+        assertThat(fromCache).isLessThan(computed);
+    }
+
+    private static long run(int calls, Function<Integer, AmortizationEngine.Schedule> schedule) {
+        long start = System.nanoTime();
+        double total = 0.0;
+        for (int i = 0; i < calls; i++) {
+            total += schedule.apply(i % DISTINCT_CREDITS).getTotalPayable();
+        }
+        long elapsed = System.nanoTime() - start;
+        // Le résultat est utilisé pour que le JIT ne supprime pas les calculs
+        if (total <= 0.0) {
+            throw new IllegalStateException("Tableau vide");
+        }
+        return elapsed;
+    }
+}
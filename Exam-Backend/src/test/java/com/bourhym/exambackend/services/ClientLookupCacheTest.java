@@ -0,0 +1,133 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.dtos.ClientDTO;
+import com.bourhym.exambackend.entities.Client;
+import com.bourhym.exambackend.mappers.ClientMapper;
+import com.bourhym.exambackend.mappers.RelationIdLoader;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compte les requêtes SQL émises par des recherches répétées de clients, et vérifie
+ * que les modifications invalident les entrées en cache. Les emails client{n}@example.com ne
+ * recoupent pas ceux des clients créés au démarrage de l'application.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({ClientService.class, ClientMapper.class, RelationIdLoader.class, ClientLookupCache.class, ClientNameIndex.class,
+        ClientEmailFilter.class})
+class ClientLookupCacheTest {
+
+    private static final int LOOKUPS = 100;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private ClientLookupCache lookupCache;
+
+    @Autowired
+    private ClientEmailFilter emailFilter;
+
+    private Statistics statistics;
+    private Long clientId;
+
+    @BeforeEach
+    void seed() {
+        // Contexte partagé entre les méthodes : aucune entrée d'un test précédent
+        lookupCache.clear();
+
+        Client client = new Client();
+        client.setName("Client 1");
+        client.setEmail("client1@example.com");
+        entityManager.persist(client);
+        entityManager.flush();
+        entityManager.clear();
+        clientId = client.getId();
+        // Le filtre n'est construit qu'au démarrage : les lignes insérées ici doivent y être ajoutées
+        emailFilter.rebuild();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void repeatedLookupsByIdHitTheDatabaseOnce() {
+        for (int i = 0; i < LOOKUPS; i++) {
+            assertThat(clientService.getClientById(clientId)).isPresent();
+        }
+        // Client et IDs de ses crédits, chargés une seule fois
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void repeatedLookupsByEmailHitTheDatabaseOnce() {
+        for (int i = 0; i < LOOKUPS; i++) {
+            assertThat(clientService.getClientByEmail("client1@example.com"))
+                    .hasValueSatisfying(client -> assertThat(client.getId()).isEqualTo(clientId));
+            assertThat(clientService.isEmailAlreadyUsed("client1@example.com")).isTrue();
+        }
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void savingAClientEvictsTheNegativeEntry() {
+        assertThat(clientService.isEmailAlreadyUsed("client2@example.com")).isFalse();
+        assertThat(clientService.isEmailAlreadyUsed("client2@example.com")).isFalse();
+
+        clientService.saveClient(new ClientDTO(null, "Client 2", "client2@example.com", new ArrayList<>()));
+
+        assertThat(clientService.isEmailAlreadyUsed("client2@example.com")).isTrue();
+    }
+
+    @Test
+    void updatingAClientEvictsBothEmails() {
+        assertThat(clientService.getClientByEmail("client1@example.com")).isPresent();
+        assertThat(clientService.isEmailAlreadyUsed("client1@example.com")).isTrue();
+        assertThat(clientService.isEmailAlreadyUsed("client3@example.com")).isFalse();
+
+        clientService.updateClient(new ClientDTO(clientId, "Client 1", "client3@example.com", new ArrayList<>()));
+        entityManager.flush();
+
+        assertThat(clientService.getClientById(clientId))
+                .hasValueSatisfying(client -> assertThat(client.getEmail()).isEqualTo("client3@example.com"));
+        assertThat(clientService.getClientByEmail("client1@example.com")).isEmpty();
+        assertThat(clientService.isEmailAlreadyUsed("client1@example.com")).isFalse();
+        assertThat(clientService.isEmailAlreadyUsed("client3@example.com")).isTrue();
+    }
+
+    @Test
+    void directWritesAreSeenAfterTheNextFilterRebuild() {
+        // Insertion hors du service (autre instance, script) : absente du filtre jusqu'à sa reconstruction
+        Client client = new Client();
+        client.setName("Client 4");
+        client.setEmail("client4@example.com");
+        entityManager.persist(client);
+        entityManager.flush();
+
+        assertThat(clientService.isEmailAlreadyUsed("client4@example.com")).isFalse();
+
+        emailFilter.rebuild();
+
+        assertThat(clientService.isEmailAlreadyUsed("client4@example.com")).isTrue();
+    }
+}
@@ -0,0 +1,57 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.dtos.ClientDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientNameIndexTest {
+
+    private final ClientNameIndex index = new ClientNameIndex();
+
+    @Test
+    void fallsBackUntilBuilt() {
+        assertThat(index.search("dupont")).isEmpty();
+
+        index.replace(List.of());
+
+        assertThat(index.search("dupont")).hasValue(List.of());
+    }
+
+    @Test
+    void matchesSubstringsIgnoringCaseAndAccentsRankedByRelevance() {
+        index.replace(List.of(
+                new ClientDTO(1L, "Marie Martin", "marie@example.com"),
+                new ClientDTO(2L, "Martine Dupont", "martine@example.com"),
+                new ClientDTO(3L, "Jean Dumartin", "jean@example.com"),
+                new ClientDTO(4L, "Hélène Martin", "helene@example.com"),
+                new ClientDTO(5L, "Ana Nana", "ana@example.com")));
+
+        assertThat(ids("MARTIN")).containsExactly(2L, 1L, 4L, 3L);
+        assertThat(ids("helene")).containsExactly(4L);
+        assertThat(ids("ma")).containsExactly(1L, 2L, 4L, 3L);
+        // Trigrammes tous présents, mais pas consécutifs
+        assertThat(ids("anana")).isEmpty();
+    }
+
+    @Test
+    void appliesChangesOutsideTransactionsImmediately() {
+        index.replace(List.of(new ClientDTO(1L, "Marie Martin", "marie@example.com")));
+
+        index.put(1L, "Marie Durand", "marie@example.com");
+        index.put(2L, "Paul Martin", "paul@example.com");
+
+        assertThat(ids("martin")).containsExactly(2L);
+        assertThat(ids("durand")).containsExactly(1L);
+
+        index.remove(2L);
+
+        assertThat(ids("martin")).isEmpty();
+    }
+
+    private List<Long> ids(String term) {
+        return index.search(term).orElseThrow().stream().map(ClientDTO::getId).toList();
+    }
+}
@@ -0,0 +1,107 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.entities.PersonalCredit;
+import com.bourhym.exambackend.repositories.CreditRepository;
+import com.bourhym.exambackend.repositories.RepaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Détection des soldes incohérents sur une tranche, puis correction sous verrou (repositories simulés).
+ * Crédits à taux nul de 12 000 sur 12 mois : le restant dû est 12 000 moins le total remboursé.
+ */
+class CreditBalanceReconcilerTest {
+
+    private final CreditRepository creditRepository = mock(CreditRepository.class);
+    private final RepaymentRepository repaymentRepository = mock(RepaymentRepository.class);
+    private final CreditBalanceReconciler reconciler = new CreditBalanceReconciler();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reconciler, "creditRepository", creditRepository);
+        ReflectionTestUtils.setField(reconciler, "repaymentRepository", repaymentRepository);
+        ReflectionTestUtils.setField(reconciler, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    @Test
+    void consistentBalancesAreNotLocked() {
+        page(row(1L, 1000.0, 11_000.0, 1000.0), row(2L, 0.0, 12_000.0, 0.0), row(3L, 1000.001, 11_000.0, 1000.0));
+
+        reconciler.reconcile();
+
+        verify(creditRepository, never()).findByIdForUpdate(anyLong());
+    }
+
+    @Test
+    void mismatchedBalancesAreRecomputedUnderLock() {
+        page(row(1L, 1000.0, 11_000.0, 1000.0), row(2L, 500.0, 11_500.0, 800.0), row(3L, 0.0, 9_999.0, 0.0));
+        Credit stale = credit(2L, 500.0, 11_500.0);
+        Credit wrongOutstanding = credit(3L, 0.0, 9_999.0);
+        when(creditRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(stale));
+        when(creditRepository.findByIdForUpdate(3L)).thenReturn(Optional.of(wrongOutstanding));
+        when(repaymentRepository.sumAmountByCreditId(2L)).thenReturn(800.0);
+        when(repaymentRepository.sumAmountByCreditId(3L)).thenReturn(null);
+
+        reconciler.reconcile();
+
+        verify(creditRepository, never()).findByIdForUpdate(1L);
+        assertThat(stale.getTotalRepaid()).isEqualTo(800.0);
+        assertThat(stale.getOutstanding()).isEqualTo(11_200.0);
+        assertThat(wrongOutstanding.getTotalRepaid()).isZero();
+        assertThat(wrongOutstanding.getOutstanding()).isEqualTo(12_000.0);
+    }
+
+    @Test
+    void aRepaymentCommittedAfterTheScanIsNotOverwritten() {
+        // La tranche a été lue avant un remboursement concurrent, déjà reporté sur le crédit
+        page(row(1L, 500.0, 11_500.0, 800.0));
+        Credit current = credit(1L, 1300.0, 10_700.0);
+        when(creditRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(current));
+        when(repaymentRepository.sumAmountByCreditId(1L)).thenReturn(1300.0);
+
+        reconciler.reconcile();
+
+        assertThat(current.getTotalRepaid()).isEqualTo(1300.0);
+        assertThat(current.getOutstanding()).isEqualTo(10_700.0);
+    }
+
+    // Une tranche de lignes, puis plus rien après son dernier ID
+    private void page(Object[]... rows) {
+        long lastId = (Long) rows[rows.length - 1][0];
+        when(creditRepository.findBalancesWithRepaidSum(eq(0L), any())).thenReturn(List.of(rows));
+        when(creditRepository.findBalancesWithRepaidSum(eq(lastId), any())).thenReturn(List.of());
+    }
+
+    // (ID, montant, durée, taux, total stocké, restant stocké, somme réelle des remboursements)
+    private static Object[] row(Long id, Double storedTotal, Double storedOutstanding, double actualTotal) {
+        return new Object[]{id, 12_000.0, 12, 0.0, storedTotal, storedOutstanding, actualTotal};
+    }
+
+    private static Credit credit(Long id, Double totalRepaid, Double outstanding) {
+        Credit credit = new PersonalCredit();
+        credit.setId(id);
+        credit.setAmount(12_000.0);
+        credit.setDuration(12);
+        credit.setInterestRate(0.0);
+        credit.setTotalRepaid(totalRepaid);
+        credit.setOutstanding(outstanding);
+        return credit;
+    }
+}
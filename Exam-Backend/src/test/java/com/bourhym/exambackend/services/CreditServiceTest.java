@@ -0,0 +1,116 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.dtos.CreditDTO;
+import com.bourhym.exambackend.dtos.CreditDecisionRequestDTO;
+import com.bourhym.exambackend.dtos.CreditDecisionResultDTO;
+import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.entities.PersonalCredit;
+import com.bourhym.exambackend.enums.CreditStatus;
+import com.bourhym.exambackend.enums.CreditType;
+import com.bourhym.exambackend.mappers.CreditMapper;
+import com.bourhym.exambackend.repositories.CreditRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CreditServiceTest {
+
+    private final CreditRepository creditRepository = mock(CreditRepository.class);
+    private final CreditStatisticsStore statisticsStore = mock(CreditStatisticsStore.class);
+    private final CreditService creditService = new CreditService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(creditService, "creditRepository", creditRepository);
+        ReflectionTestUtils.setField(creditService, "statisticsStore", statisticsStore);
+        ReflectionTestUtils.setField(creditService, "creditMapper", new CreditMapper());
+    }
+
+    @Test
+    void singleDecisionOnACreditWithoutSubclassSkipsTheStatistics() {
+        Credit untyped = credit(new Credit(), 1L);
+        Credit personal = credit(new PersonalCredit(), 2L);
+        when(creditRepository.findById(1L)).thenReturn(Optional.of(untyped));
+        when(creditRepository.findById(2L)).thenReturn(Optional.of(personal));
+        when(creditRepository.save(any(Credit.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertThat(creditService.approveCredit(1L)).get().extracting(CreditDTO::getStatus).isEqualTo(CreditStatus.ACCEPTED);
+        assertThat(creditService.rejectCredit(2L)).get().extracting(CreditDTO::getStatus).isEqualTo(CreditStatus.REJECTED);
+
+        verify(statisticsStore, times(1)).recordTransition(any(), any(), any(), anyDouble(), anyDouble());
+        verify(statisticsStore).recordTransition(CreditType.PERSONAL, CreditStatus.IN_PROGRESS, CreditStatus.REJECTED,
+                10_000.0, 4.0);
+    }
+
+    @Test
+    void creditsWithoutSubclassAreApprovedButNotCounted() {
+        when(creditRepository.lockInProgressByIds(anyCollection())).thenReturn(List.of(
+                row(1L, "PERSONAL"), row(2L, CreditRepository.BASE_CREDIT_TYPE_CODE), row(3L, null)));
+
+        CreditDecisionResultDTO result = creditService.approveCredits(
+                new CreditDecisionRequestDTO(List.of(1L, 2L, 3L, 4L), null, null, null));
+
+        assertThat(result.getTransitionedIds()).containsExactly(1L, 2L, 3L);
+        assertThat(result.getSkippedIds()).containsExactly(4L);
+        assertThat(result.isTruncated()).isFalse();
+        verify(statisticsStore, times(1)).recordTransition(any(), any(), any(), anyDouble(), anyDouble());
+        verify(statisticsStore).recordTransition(eq(CreditType.PERSONAL), eq(CreditStatus.IN_PROGRESS),
+                eq(CreditStatus.ACCEPTED), anyDouble(), anyDouble());
+    }
+
+    @Test
+    void filterSelectionBeyondTheLimitIsReportedAsTruncated() {
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= CreditService.MAX_BULK_SIZE + 1; id++) {
+            rows.add(row(id, "PROFESSIONAL"));
+        }
+        when(creditRepository.lockInProgressByFilter(eq(7L), isNull(), isNull(), any(Pageable.class))).thenReturn(rows);
+
+        CreditDecisionResultDTO result = creditService.rejectCredits(new CreditDecisionRequestDTO(null, 7L, null, null));
+
+        assertThat(result.isTruncated()).isTrue();
+        assertThat(result.getTransitionedIds()).hasSize(CreditService.MAX_BULK_SIZE)
+                .doesNotContain((long) CreditService.MAX_BULK_SIZE + 1);
+        verify(creditRepository, times(CreditService.MAX_BULK_SIZE / 1000)).rejectInProgress(anyCollection());
+    }
+
+    @Test
+    void filterSelectionWithinTheLimitIsComplete() {
+        when(creditRepository.lockInProgressByFilter(eq(7L), isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(List.<Object[]>of(row(1L, "REAL_ESTATE")));
+
+        CreditDecisionResultDTO result = creditService.rejectCredits(new CreditDecisionRequestDTO(null, 7L, null, null));
+
+        assertThat(result.isTruncated()).isFalse();
+        assertThat(result.getTransitionedIds()).containsExactly(1L);
+    }
+
+    private static Credit credit(Credit credit, long id) {
+        credit.setId(id);
+        credit.setStatus(CreditStatus.IN_PROGRESS);
+        credit.setAmount(10_000.0);
+        credit.setDuration(24);
+        credit.setInterestRate(4.0);
+        return credit;
+    }
+
+    private static Object[] row(long id, String typeCode) {
+        return new Object[]{id, typeCode, 10_000.0, 4.0};
+    }
+}
@@ -0,0 +1,121 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.enums.CreditStatus;
+import com.bourhym.exambackend.enums.CreditType;
+import com.bourhym.exambackend.repositories.PersonalCreditRepository;
+import com.bourhym.exambackend.repositories.ProfessionalCreditRepository;
+import com.bourhym.exambackend.repositories.RealEstateCreditRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CreditStatisticsStoreTest {
+
+    private final PersonalCreditRepository personalCreditRepository = mock(PersonalCreditRepository.class);
+    private final ProfessionalCreditRepository professionalCreditRepository = mock(ProfessionalCreditRepository.class);
+    private final RealEstateCreditRepository realEstateCreditRepository = mock(RealEstateCreditRepository.class);
+    private final CreditStatisticsStore store = new CreditStatisticsStore();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(store, "personalCreditRepository", personalCreditRepository);
+        ReflectionTestUtils.setField(store, "professionalCreditRepository", professionalCreditRepository);
+        ReflectionTestUtils.setField(store, "realEstateCreditRepository", realEstateCreditRepository);
+        ReflectionTestUtils.setField(store, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        when(personalCreditRepository.aggregateByStatus()).thenReturn(rows(CreditStatus.ACCEPTED, 2, 3000.0, 8.0));
+        when(professionalCreditRepository.aggregateByStatus()).thenReturn(rows(CreditStatus.IN_PROGRESS, 1, 50_000.0, 3.5));
+        when(realEstateCreditRepository.aggregateByStatus()).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rebuildLoadsTheAggregatesOfEachType() {
+        store.rebuild();
+
+        assertThat(store.getCount(CreditType.PERSONAL, CreditStatus.ACCEPTED)).isEqualTo(2);
+        assertThat(store.getAmountSum(CreditType.PERSONAL, CreditStatus.ACCEPTED)).isEqualTo(3000.0);
+        assertThat(store.getInterestRateSum(CreditType.PERSONAL, CreditStatus.ACCEPTED)).isEqualTo(8.0);
+        assertThat(store.getCount(CreditType.PROFESSIONAL, CreditStatus.IN_PROGRESS)).isEqualTo(1);
+        assertThat(store.getCount(CreditType.REAL_ESTATE, CreditStatus.ACCEPTED)).isZero();
+    }
+
+    @Test
+    void transitionMovesTheCreditBetweenStatuses() {
+        store.rebuild();
+
+        store.recordTransition(CreditType.PROFESSIONAL, CreditStatus.IN_PROGRESS, CreditStatus.ACCEPTED, 50_000.0, 3.5);
+        store.recordCreated(CreditType.REAL_ESTATE, CreditStatus.IN_PROGRESS, 200_000.0, null);
+
+        assertThat(store.getCount(CreditType.PROFESSIONAL, CreditStatus.IN_PROGRESS)).isZero();
+        assertThat(store.getAmountSum(CreditType.PROFESSIONAL, CreditStatus.IN_PROGRESS)).isZero();
+        assertThat(store.getCount(CreditType.PROFESSIONAL, CreditStatus.ACCEPTED)).isEqualTo(1);
+        assertThat(store.getAmountSum(CreditType.PROFESSIONAL, CreditStatus.ACCEPTED)).isEqualTo(50_000.0);
+        assertThat(store.getCount(CreditType.REAL_ESTATE, CreditStatus.IN_PROGRESS)).isEqualTo(1);
+        assertThat(store.getInterestRateSum(CreditType.REAL_ESTATE, CreditStatus.IN_PROGRESS)).isZero();
+    }
+
+    @Test
+    void changesAreAppliedOnlyWhenTheTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        store.recordCreated(CreditType.PERSONAL, CreditStatus.IN_PROGRESS, 1000.0, 4.0);
+        assertThat(store.getCount(CreditType.PERSONAL, CreditStatus.IN_PROGRESS)).isZero();
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertThat(store.getCount(CreditType.PERSONAL, CreditStatus.IN_PROGRESS)).isEqualTo(1);
+    }
+
+    @Test
+    void changesCommittedDuringARebuildAreReplayedOnTheNewCounters() {
+        store.rebuild();
+        // Création validée pendant la lecture des agrégats, après la lecture des crédits personnels
+        when(professionalCreditRepository.aggregateByStatus()).thenAnswer(invocation -> {
+            store.recordCreated(CreditType.PERSONAL, CreditStatus.ACCEPTED, 500.0, 2.0);
+            return rows(CreditStatus.IN_PROGRESS, 1, 50_000.0, 3.5);
+        });
+
+        store.rebuild();
+
+        assertThat(store.getCount(CreditType.PERSONAL, CreditStatus.ACCEPTED)).isEqualTo(3);
+        assertThat(store.getAmountSum(CreditType.PERSONAL, CreditStatus.ACCEPTED)).isEqualTo(3500.0);
+    }
+
+    @Test
+    void rebuildPicksUpWritesMadeOutsideThisInstance() {
+        store.rebuild();
+        // Crédits acceptés par une autre instance : absents des compteurs jusqu'à la reconstruction
+        when(personalCreditRepository.aggregateByStatus()).thenReturn(rows(CreditStatus.ACCEPTED, 5, 7000.0, 20.0));
+
+        store.rebuild();
+
+        assertThat(store.getCount(CreditType.PERSONAL, CreditStatus.ACCEPTED)).isEqualTo(5);
+        assertThat(store.getAmountSum(CreditType.PERSONAL, CreditStatus.ACCEPTED)).isEqualTo(7000.0);
+    }
+
+    private static List<Object[]> rows(CreditStatus status, long count, double amountSum, double interestRateSum) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{status, count, amountSum, interestRateSum});
+        return rows;
+    }
+}
@@ -0,0 +1,178 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.dtos.RepaymentDTO;
+import com.bourhym.exambackend.entities.Client;
+import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.entities.PersonalCredit;
+import com.bourhym.exambackend.entities.Repayment;
+import com.bourhym.exambackend.enums.CreditStatus;
+import com.bourhym.exambackend.enums.RepaymentType;
+import com.bourhym.exambackend.exceptions.ResourceNotFoundException;
+import com.bourhym.exambackend.mappers.RepaymentMapper;
+import com.bourhym.exambackend.repositories.RepaymentRepository;
+import com.bourhym.exambackend.utils.AmortizationMath;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Écriture groupée des remboursements : regroupement des demandes concurrentes, résultat propre à
+ * chaque appelant, délai d'attente borné et arrêt. Les écritures sont validées par le thread
+ * d'écriture : le test n'ouvre pas de transaction. Les agrégats (upsert natif MariaDB) sont simulés.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "repayments.group-commit.enabled=true",
+        "repayments.group-commit.max-batch-size=64",
+        "repayments.group-commit.max-wait-ms=50",
+        "repayments.group-commit.timeout-ms=5000"
+})
+@Import({RepaymentGroupCommitter.class, RepaymentMapper.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RepaymentGroupCommitterTest {
+
+    private static final int SUBMITTERS = 32;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private RepaymentGroupCommitter committer;
+
+    @Autowired
+    private RepaymentRepository repaymentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoBean
+    private RepaymentRollupService rollupService;
+
+    private Long acceptedCreditId;
+    private Long pendingCreditId;
+
+    @BeforeEach
+    void seed() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Client client = new Client();
+            client.setName("Client group commit");
+            client.setEmail("client" + System.nanoTime() + "@example.com");
+            entityManager.persist(client);
+            acceptedCreditId = persistCredit(client, CreditStatus.ACCEPTED);
+            pendingCreditId = persistCredit(client, CreditStatus.IN_PROGRESS);
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void concurrentSubmitsShareBatchesAndAllComplete() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(SUBMITTERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<RepaymentDTO>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < SUBMITTERS; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return committer.submitAndWait(acceptedCreditId, 10.0, RepaymentType.MONTHLY_PAYMENT);
+                }));
+            }
+            start.countDown();
+            for (Future<RepaymentDTO> result : results) {
+                RepaymentDTO repayment = result.get(10, TimeUnit.SECONDS);
+                assertThat(repayment.getId()).isNotNull();
+                assertThat(repayment.getCreditId()).isEqualTo(acceptedCreditId);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Un appel aux agrégats par lot : moins de lots que de demandes, et toutes les demandes écrites
+        ArgumentCaptor<Collection<Repayment>> batches = ArgumentCaptor.forClass(Collection.class);
+        verify(rollupService, atLeastOnce()).recordCreated(batches.capture());
+        assertThat(batches.getAllValues()).hasSizeLessThan(SUBMITTERS);
+        assertThat(batches.getAllValues().stream().mapToInt(Collection::size).sum()).isEqualTo(SUBMITTERS);
+        assertThat(repaymentRepository.findByCreditId(acceptedCreditId)).hasSize(SUBMITTERS);
+
+        // Solde dénormalisé mis à jour par chaque lot, sans perte entre les lots
+        Credit credit = transactionTemplate.execute(status -> entityManager.find(Credit.class, acceptedCreditId));
+        assertThat(credit.getTotalRepaid()).isEqualTo(SUBMITTERS * 10.0);
+        assertThat(credit.getOutstanding())
+                .isEqualTo(AmortizationMath.outstanding(10_000.0, 24, 5.0, SUBMITTERS * 10.0));
+    }
+
+    @Test
+    void eachCallerReceivesItsOwnValidationError() {
+        assertThatThrownBy(() -> committer.submitAndWait(pendingCreditId, 10.0, RepaymentType.MONTHLY_PAYMENT))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> committer.submitAndWait(-1L, 10.0, RepaymentType.MONTHLY_PAYMENT))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(committer.submitAndWait(acceptedCreditId, 10.0, RepaymentType.EARLY_REPAYMENT).getId()).isNotNull();
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void aStalledWriterTimesOutInsteadOfBlocking() {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(10, TimeUnit.SECONDS)).when(rollupService).recordCreated(anyCollection());
+        ReflectionTestUtils.setField(committer, "timeoutMillis", 200L);
+        try {
+            assertThatThrownBy(() -> committer.submitAndWait(acceptedCreditId, 10.0, RepaymentType.MONTHLY_PAYMENT))
+                    .isInstanceOf(RejectedExecutionException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void submitsAfterShutdownAreRejected() throws Exception {
+        assertThat(committer.submitAndWait(acceptedCreditId, 10.0, RepaymentType.MONTHLY_PAYMENT).getId()).isNotNull();
+
+        committer.stop();
+
+        assertThatThrownBy(() -> committer.submitAndWait(acceptedCreditId, 10.0, RepaymentType.MONTHLY_PAYMENT))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    private Long persistCredit(Client client, CreditStatus status) {
+        PersonalCredit credit = new PersonalCredit();
+        credit.setRequestDate(new Date());
+        credit.setStatus(status);
+        credit.setAmount(10_000.0);
+        credit.setDuration(24);
+        credit.setInterestRate(5.0);
+        credit.setReason("Travaux");
+        credit.setClient(client);
+        entityManager.persist(credit);
+        return credit.getId();
+    }
+}
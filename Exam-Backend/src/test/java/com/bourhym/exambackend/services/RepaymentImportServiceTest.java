@@ -0,0 +1,194 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.dtos.RepaymentImportReportDTO;
+import com.bourhym.exambackend.dtos.RepaymentImportReportDTO.RejectedLine;
+import com.bourhym.exambackend.entities.Client;
+import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.entities.PersonalCredit;
+import com.bourhym.exambackend.entities.Repayment;
+import com.bourhym.exambackend.enums.CreditStatus;
+import com.bourhym.exambackend.enums.RepaymentType;
+import com.bourhym.exambackend.utils.AmortizationMath;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Import CSV des remboursements : lignes valides, crédits inconnus ou non acceptés, lignes mal
+ * formées et verrouillage des crédits d'une tranche en une seule requête IN. Les agrégats
+ * (upsert natif MariaDB) sont simulés.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.bourhym.exambackend.services.RepaymentImportServiceTest$SqlCapture"
+})
+@Import(RepaymentImportService.class)
+class RepaymentImportServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private RepaymentImportService importService;
+
+    @MockitoBean
+    private RepaymentRollupService rollupService;
+
+    private Credit accepted;
+    private Credit inProgress;
+
+    @BeforeEach
+    void seed() {
+        Client client = new Client();
+        client.setName("Client Import");
+        client.setEmail("client1@example.com");
+        entityManager.persist(client);
+        accepted = entityManager.persist(credit(client, CreditStatus.ACCEPTED));
+        inProgress = entityManager.persist(credit(client, CreditStatus.IN_PROGRESS));
+        entityManager.flush();
+        entityManager.clear();
+        SqlCapture.STATEMENTS.clear();
+    }
+
+    @Test
+    void importsValidLines() throws IOException {
+        long id = accepted.getId();
+        RepaymentImportReportDTO report = importCsv(
+                id + ",150.5,EARLY_REPAYMENT,2026-01-15",
+                " \"" + id + "\" , \"49.5\" ,,",
+                id + ",100,\"MONTHLY_PAYMENT\",\"2026-02-01\",\"Virement, réf \"\"A-1\"\"\"");
+
+        assertThat(report.getImportedCount()).isEqualTo(3);
+        assertThat(report.getRejectedCount()).isZero();
+        assertThat(report.isCompleted()).isTrue();
+
+        List<Repayment> repayments = repaymentsOf(accepted);
+        assertThat(repayments).extracting(Repayment::getAmount).containsExactly(150.5, 49.5, 100.0);
+        assertThat(repayments).extracting(Repayment::getType).containsExactly(
+                RepaymentType.EARLY_REPAYMENT, RepaymentType.MONTHLY_PAYMENT, RepaymentType.MONTHLY_PAYMENT);
+        assertThat(repayments.get(0).getDate()).isEqualTo(java.sql.Date.valueOf(LocalDate.of(2026, 1, 15)));
+        Credit updated = entityManager.find(Credit.class, id);
+        assertThat(updated.getTotalRepaid()).isEqualTo(300.0);
+        assertThat(updated.getOutstanding()).isEqualTo(AmortizationMath.outstanding(10_000.0, 24, 4.0, 300.0));
+        verify(rollupService).recordCreated(argThat(imported -> imported.size() == 3));
+    }
+
+    @Test
+    void rejectsUnknownAndNotAcceptedCredits() throws IOException {
+        RepaymentImportReportDTO report = importCsv(
+                accepted.getId() + ",10",
+                "999999999,10",
+                inProgress.getId() + ",10");
+
+        assertThat(report.getImportedCount()).isEqualTo(1);
+        assertThat(report.getRejectedCount()).isEqualTo(2);
+        assertThat(report.getRejectedLines()).extracting(RejectedLine::getLine).containsExactly(3L, 4L);
+        assertThat(report.getRejectedLines()).extracting(RejectedLine::getReason).containsExactly(
+                "Crédit non trouvé avec l'ID: 999999999",
+                "Le crédit " + inProgress.getId() + " n'est pas accepté");
+        assertThat(repaymentsOf(inProgress)).isEmpty();
+    }
+
+    @Test
+    void rejectsMalformedLines() throws IOException {
+        long id = accepted.getId();
+        RepaymentImportReportDTO report = importCsv(
+                "abc,10",
+                String.valueOf(id),
+                id + ",-5",
+                id + ",\"1,5\"",
+                id + ",10,UNKNOWN",
+                id + ",10,,2026-13-45",
+                "\"" + id + ",10",
+                id + ",20");
+
+        assertThat(report.getImportedCount()).isEqualTo(1);
+        assertThat(report.getRejectedLines()).extracting(RejectedLine::getLine)
+                .containsExactly(2L, 3L, 4L, 5L, 6L, 7L, 8L);
+        assertThat(report.getRejectedLines().get(1).getReason()).startsWith("Format attendu");
+        assertThat(report.getRejectedLines().get(2).getReason()).isEqualTo("Le montant doit être positif");
+        // Montant entre guillemets contenant une virgule : un seul champ, rejeté comme valeur invalide
+        assertThat(report.getRejectedLines().get(3).getReason()).contains("1,5");
+        assertThat(report.getRejectedLines().get(6).getReason()).isEqualTo("Guillemet non fermé");
+        assertThat(repaymentsOf(accepted)).extracting(Repayment::getAmount).containsExactly(20.0);
+    }
+
+    @Test
+    void locksTheCreditsOfAChunkWithASingleInQuery() throws IOException {
+        importCsv(
+                accepted.getId() + ",10",
+                inProgress.getId() + ",10",
+                accepted.getId() + ",20",
+                "999999999,10");
+
+        List<String> creditLocks = new ArrayList<>();
+        for (String sql : SqlCapture.STATEMENTS) {
+            String lower = sql.toLowerCase(Locale.ROOT);
+            if (lower.contains("for update") && lower.contains(" in (") && lower.contains("credit")) {
+                creditLocks.add(sql);
+            }
+        }
+        assertThat(creditLocks).hasSize(1);
+    }
+
+    @Test
+    void splitsQuotedFields() {
+        assertThat(RepaymentImportService.splitCsv("1, 2 ,,\"a, b\",\"c \"\"d\"\"\""))
+                .containsExactly("1", "2", "", "a, b", "c \"d\"");
+        assertThat(RepaymentImportService.splitCsv("\"1\",\"2")).isNull();
+    }
+
+    private RepaymentImportReportDTO importCsv(String... lines) throws IOException {
+        String csv = "creditId,amount,type,date\n" + String.join("\n", lines) + "\n";
+        return importService.importRepayments(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), null);
+    }
+
+    private List<Repayment> repaymentsOf(Credit credit) {
+        return entityManager.getEntityManager()
+                .createQuery("SELECT r FROM Repayment r WHERE r.credit.id = :creditId ORDER BY r.id", Repayment.class)
+                .setParameter("creditId", credit.getId())
+                .getResultList();
+    }
+
+    private static Credit credit(Client client, CreditStatus status) {
+        PersonalCredit credit = new PersonalCredit();
+        credit.setRequestDate(new Date());
+        credit.setStatus(status);
+        credit.setAmount(10_000.0);
+        credit.setDuration(24);
+        credit.setInterestRate(4.0);
+        credit.setTotalRepaid(0.0);
+        credit.setClient(client);
+        return credit;
+    }
+
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.dtos.RepaymentTimeseriesPointDTO;
+import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.entities.PersonalCredit;
+import com.bourhym.exambackend.entities.RealEstateCredit;
+import com.bourhym.exambackend.entities.Repayment;
+import com.bourhym.exambackend.entities.RepaymentRollup;
+import com.bourhym.exambackend.entities.RepaymentRollupId;
+import com.bourhym.exambackend.enums.CreditType;
+import com.bourhym.exambackend.enums.RepaymentType;
+import com.bourhym.exambackend.repositories.RepaymentRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Regroupement des remboursements par agrégat et séries temporelles. L'upsert natif
+ * (ON DUPLICATE KEY UPDATE, MariaDB) ne s'exécute pas sur H2 : le repository est simulé et le test
+ * vérifie les incréments envoyés.
+ */
+class RepaymentRollupServiceTest {
+
+    private final RepaymentRollupRepository rollupRepository = mock(RepaymentRollupRepository.class);
+    private final RepaymentRollupService rollupService = new RepaymentRollupService();
+
+    private final Credit personal = new PersonalCredit();
+    private final Credit realEstate = new RealEstateCredit();
+    private final Credit untyped = new Credit();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(rollupService, "rollupRepository", rollupRepository);
+    }
+
+    @Test
+    void createdRepaymentsAreGroupedIntoOneIncrementPerRollupInKeyOrder() {
+        rollupService.recordCreated(List.of(
+                repayment(personal, RepaymentType.MONTHLY_PAYMENT, "2026-03-20", 100.10),
+                repayment(realEstate, RepaymentType.MONTHLY_PAYMENT, "2026-02-05", 500.0),
+                repayment(personal, RepaymentType.MONTHLY_PAYMENT, "2026-03-02", 50.20),
+                repayment(personal, RepaymentType.EARLY_REPAYMENT, "2026-03-15", 1000.0)));
+
+        InOrder order = inOrder(rollupRepository);
+        order.verify(rollupRepository).increment(date("2026-02-01"), "MONTHLY_PAYMENT", "REAL_ESTATE", 500.0, 1L);
+        order.verify(rollupRepository).increment(date("2026-03-01"), "MONTHLY_PAYMENT", "PERSONAL", 150.3, 2L);
+        order.verify(rollupRepository).increment(date("2026-03-01"), "EARLY_REPAYMENT", "PERSONAL", 1000.0, 1L);
+        verifyNoMoreInteractions(rollupRepository);
+    }
+
+    @Test
+    void deletedRepaymentIsSubtracted() {
+        rollupService.recordDeleted(repayment(realEstate, RepaymentType.EARLY_REPAYMENT, "2026-01-31", 250.75));
+
+        verify(rollupRepository).increment(date("2026-01-01"), "EARLY_REPAYMENT", "REAL_ESTATE", -250.75, -1L);
+        verifyNoMoreInteractions(rollupRepository);
+    }
+
+    @Test
+    void creditsWithoutSubclassHaveTheirOwnRollup() {
+        rollupService.recordCreated(List.of(
+                repayment(untyped, RepaymentType.MONTHLY_PAYMENT, "2026-04-10", 80.0),
+                repayment(untyped, RepaymentType.MONTHLY_PAYMENT, "2026-04-25", 20.0)));
+        rollupService.recordDeleted(repayment(untyped, RepaymentType.EARLY_REPAYMENT, "2026-04-12", 300.0));
+
+        verify(rollupRepository).increment(date("2026-04-01"), "MONTHLY_PAYMENT", CreditType.BASE_CODE, 100.0, 2L);
+        verify(rollupRepository).increment(date("2026-04-01"), "EARLY_REPAYMENT", CreditType.BASE_CODE, -300.0, -1L);
+        verifyNoMoreInteractions(rollupRepository);
+    }
+
+    @Test
+    void incompleteRepaymentsAreIgnored() {
+        Repayment withoutCredit = repayment(personal, RepaymentType.MONTHLY_PAYMENT, "2026-03-01", 10.0);
+        withoutCredit.setCredit(null);
+        Repayment withoutDate = repayment(personal, RepaymentType.MONTHLY_PAYMENT, "2026-03-01", 10.0);
+        withoutDate.setDate(null);
+
+        rollupService.recordCreated(List.of(withoutCredit, withoutDate));
+
+        verify(rollupRepository, never()).increment(any(), anyString(), anyString(), anyDouble(), anyLong());
+    }
+
+    @Test
+    void quarterlySeriesSumsTheMonthsOfEachQuarter() {
+        when(rollupRepository.findByMonthBetween(date("2026-01-01"), date("2026-06-01"))).thenReturn(List.of(
+                rollup("2026-01-01", RepaymentType.MONTHLY_PAYMENT, CreditType.PERSONAL, 100.1, 1),
+                rollup("2026-03-01", RepaymentType.MONTHLY_PAYMENT, CreditType.PERSONAL, 200.2, 2),
+                rollup("2026-04-01", RepaymentType.MONTHLY_PAYMENT, CreditType.PERSONAL, 50.0, 1),
+                rollup("2026-02-01", RepaymentType.EARLY_REPAYMENT, CreditType.PERSONAL, 900.0, 1),
+                rollup("2026-05-01", RepaymentType.MONTHLY_PAYMENT, CreditType.BASE_CODE, 75.0, 1)));
+
+        List<RepaymentTimeseriesPointDTO> points = rollupService.getTimeseries(
+                YearMonth.of(2026, 1), YearMonth.of(2026, 6), RepaymentRollupService.GRANULARITY_QUARTER);
+
+        assertThat(points).extracting(RepaymentTimeseriesPointDTO::getPeriod, RepaymentTimeseriesPointDTO::getRepaymentType,
+                        RepaymentTimeseriesPointDTO::getCreditType, RepaymentTimeseriesPointDTO::getTotalAmount,
+                        RepaymentTimeseriesPointDTO::getCount)
+                .containsExactly(
+                        tuple("2026-Q1", RepaymentType.MONTHLY_PAYMENT, "PERSONAL", 300.3, 3L),
+                        tuple("2026-Q1", RepaymentType.EARLY_REPAYMENT, "PERSONAL", 900.0, 1L),
+                        tuple("2026-Q2", RepaymentType.MONTHLY_PAYMENT, CreditType.BASE_CODE, 75.0, 1L),
+                        tuple("2026-Q2", RepaymentType.MONTHLY_PAYMENT, "PERSONAL", 50.0, 1L));
+    }
+
+    @Test
+    void rejectsInvalidPeriods() {
+        assertThatThrownBy(() -> rollupService.getTimeseries(YearMonth.of(2026, 6), YearMonth.of(2026, 1), null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> rollupService.getTimeseries(null, null, "week"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Repayment repayment(Credit credit, RepaymentType type, String date, double amount) {
+        Repayment repayment = new Repayment();
+        repayment.setCredit(credit);
+        repayment.setType(type);
+        repayment.setDate(date(date));
+        repayment.setAmount(amount);
+        return repayment;
+    }
+
+    private static RepaymentRollup rollup(String month, RepaymentType repaymentType, CreditType creditType,
+                                          double amount, long count) {
+        return rollup(month, repaymentType, creditType.name(), amount, count);
+    }
+
+    private static RepaymentRollup rollup(String month, RepaymentType repaymentType, String creditType,
+                                          double amount, long count) {
+        return new RepaymentRollup(new RepaymentRollupId(date(month), repaymentType, creditType), amount, count);
+    }
+
+    private static Date date(String date) {
+        return java.sql.Date.valueOf(LocalDate.parse(date));
+    }
+}
@@ -0,0 +1,113 @@
+package com.bourhym.exambackend.services;
+
+import com.bourhym.exambackend.entities.Credit;
+import com.bourhym.exambackend.entities.PersonalCredit;
+import com.bourhym.exambackend.entities.Repayment;
+import com.bourhym.exambackend.enums.CreditStatus;
+import com.bourhym.exambackend.enums.RepaymentType;
+import com.bourhym.exambackend.mappers.RepaymentMapper;
+import com.bourhym.exambackend.repositories.CreditRepository;
+import com.bourhym.exambackend.repositories.RepaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Solde dénormalisé des crédits (totalRepaid, outstanding), mis à jour sous verrou par chaque
+ * remboursement créé ou supprimé (repositories simulés).
+ */
+class RepaymentServiceTest {
+
+    private final CreditRepository creditRepository = mock(CreditRepository.class);
+    private final RepaymentRepository repaymentRepository = mock(RepaymentRepository.class);
+    private final RepaymentRollupService rollupService = mock(RepaymentRollupService.class);
+    private final RepaymentService repaymentService = new RepaymentService();
+
+    private Credit credit;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(repaymentService, "creditRepository", creditRepository);
+        ReflectionTestUtils.setField(repaymentService, "repaymentRepository", repaymentRepository);
+        ReflectionTestUtils.setField(repaymentService, "rollupService", rollupService);
+        ReflectionTestUtils.setField(repaymentService, "repaymentMapper", new RepaymentMapper());
+
+        // Taux nul : 12 mensualités de 1000, soit 12 000 dus au total
+        credit = new PersonalCredit();
+        credit.setId(1L);
+        credit.setStatus(CreditStatus.ACCEPTED);
+        credit.setAmount(12_000.0);
+        credit.setDuration(12);
+        credit.setInterestRate(0.0);
+        credit.setTotalRepaid(0.0);
+        credit.setOutstanding(12_000.0);
+        when(creditRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(credit));
+        when(repaymentRepository.save(any(Repayment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void applyToBalanceRoundsToTheCentAndRecomputesTheOutstanding() {
+        credit.setTotalRepaid(null);
+
+        RepaymentService.applyToBalance(credit, 1000.004);
+        assertThat(credit.getTotalRepaid()).isEqualTo(1000.0);
+        assertThat(credit.getOutstanding()).isEqualTo(11_000.0);
+
+        RepaymentService.applyToBalance(credit, -250.5);
+        assertThat(credit.getTotalRepaid()).isEqualTo(749.5);
+        assertThat(credit.getOutstanding()).isEqualTo(11_250.5);
+
+        // Remboursé au-delà du dû : le restant ne devient pas négatif
+        RepaymentService.applyToBalance(credit, 20_000.0);
+        assertThat(credit.getOutstanding()).isZero();
+    }
+
+    @Test
+    void applyToBalanceLeavesTheOutstandingUnknownForAnInvalidCredit() {
+        credit.setDuration(null);
+
+        RepaymentService.applyToBalance(credit, 100.0);
+
+        assertThat(credit.getTotalRepaid()).isEqualTo(100.0);
+        assertThat(credit.getOutstanding()).isNull();
+    }
+
+    @Test
+    void monthlyAndEarlyRepaymentsAreAddedToTheLockedCredit() {
+        repaymentService.createMonthlyRepayment(1L, 1000.0);
+        repaymentService.createEarlyRepayment(1L, 500.0);
+
+        assertThat(credit.getTotalRepaid()).isEqualTo(1500.0);
+        assertThat(credit.getOutstanding()).isEqualTo(10_500.0);
+        verify(creditRepository, times(2)).findByIdForUpdate(1L);
+    }
+
+    @Test
+    void deletingARepaymentSubtractsItFromTheLockedCredit() {
+        credit.setTotalRepaid(1500.0);
+        credit.setOutstanding(10_500.0);
+        Repayment repayment = new Repayment();
+        repayment.setId(9L);
+        repayment.setAmount(500.0);
+        repayment.setType(RepaymentType.EARLY_REPAYMENT);
+        repayment.setCredit(credit);
+        when(repaymentRepository.findById(9L)).thenReturn(Optional.of(repayment));
+
+        assertThat(repaymentService.deleteRepayment(9L)).isTrue();
+
+        assertThat(credit.getTotalRepaid()).isEqualTo(1000.0);
+        assertThat(credit.getOutstanding()).isEqualTo(11_000.0);
+        verify(creditRepository).findByIdForUpdate(1L);
+        verify(rollupService).recordDeleted(repayment);
+        verify(repaymentRepository).delete(repayment);
+    }
+}
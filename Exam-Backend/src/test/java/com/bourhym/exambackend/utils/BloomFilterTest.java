@@ -0,0 +1,47 @@
+package com.bourhym.exambackend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void neverReportsAnInsertedValueAsMissing() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("client" + i + "@example.com");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("client" + i + "@example.com")).isTrue();
+        }
+    }
+
+    @Test
+    void keepsFalsePositivesNearTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("client" + i + "@example.com");
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("inconnu" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    }
+
+    @Test
+    void existenceFilterMatchesCaseAndAccentVariantsAndWaitsForItsFirstBuild() {
+        ExistenceFilter filter = new ExistenceFilter(100, 0.01);
+        assertThat(filter.mightContain("absent@example.com")).isTrue();
+
+        filter.rebuild(1, sink -> List.of("Hélène@Example.com").forEach(sink));
+
+        assertThat(filter.mightContain("helene@example.com")).isTrue();
+        assertThat(filter.mightContain("absent@example.com")).isFalse();
+    }
+}
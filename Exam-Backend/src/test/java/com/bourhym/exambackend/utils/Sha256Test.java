@@ -0,0 +1,16 @@
+package com.bourhym.exambackend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Sha256Test {
+
+    @Test
+    void matchesTheReferenceDigestAndSeparatesParts() {
+        assertThat(Sha256.hex("abc"))
+                .isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+        assertThat(Sha256.hexOfParts("ab", "c")).isNotEqualTo(Sha256.hexOfParts("a", "bc"));
+        assertThat(Sha256.hexOfParts("a", null)).isEqualTo(Sha256.hexOfParts("a", ""));
+    }
+}
@@ -0,0 +1,53 @@
+package com.bourhym.exambackend.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionHooksTest {
+
+    @Test
+    void runsImmediatelyWithoutATransaction() {
+        List<String> events = new ArrayList<>();
+        TransactionHooks.afterCommit(() -> events.add("commit"));
+        TransactionHooks.afterCompletion(() -> events.add("completion"));
+        assertThat(events).containsExactly("commit", "completion");
+    }
+
+    @Test
+    void afterCommitIsSkippedOnRollbackWhileAfterCompletionRuns() {
+        List<String> events = new ArrayList<>();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            TransactionHooks.afterCommit(() -> events.add("commit"));
+            TransactionHooks.afterCompletion(() -> events.add("completion"));
+            assertThat(events).isEmpty();
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(events).containsExactly("completion");
+    }
+
+    @Test
+    void afterCommitRunsOnceTheTransactionIsCommitted() {
+        List<String> events = new ArrayList<>();
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> synchronizations;
+        try {
+            TransactionHooks.afterCommit(() -> events.add("commit"));
+            synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertThat(events).containsExactly("commit");
+    }
+}
@@ -0,0 +1,124 @@
+package com.bourhym.exambackend.web;
+
+import com.bourhym.exambackend.security.AuthService;
+import com.bourhym.exambackend.security.JwtService;
+import com.bourhym.exambackend.security.LoginThrottle;
+import com.bourhym.exambackend.security.PasswordHashingExecutor;
+import com.bourhym.exambackend.security.RefreshTokenService;
+import com.bourhym.exambackend.security.UserIdentityFilter;
+import com.bourhym.exambackend.security.UserPrincipalCache;
+import com.bourhym.exambackend.security.entities.User;
+import com.bourhym.exambackend.security.enums.Role;
+import com.bourhym.exambackend.security.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Inscription, rafraîchissement et déconnexion, du contrôleur jusqu'au service d'authentification
+ * (base et tokens simulés).
+ */
+class AuthControllerTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PasswordHashingExecutor hashingExecutor = mock(PasswordHashingExecutor.class);
+    private final RefreshTokenService refreshTokenService = mock(RefreshTokenService.class);
+    private final JwtService jwtService = mock(JwtService.class);
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        AuthService authService = new AuthService(userRepository, mock(PasswordEncoder.class), jwtService,
+                mock(AuthenticationManager.class), mock(UserIdentityFilter.class), mock(UserPrincipalCache.class),
+                hashingExecutor, refreshTokenService);
+        when(hashingExecutor.submitAndWait(any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            user.setId(1L);
+            return user;
+        });
+        when(refreshTokenService.issue(any(User.class))).thenReturn(new RefreshTokenService.IssuedToken("refresh", "session"));
+
+        AuthController controller = new AuthController();
+        ReflectionTestUtils.setField(controller, "authService", authService);
+        ReflectionTestUtils.setField(controller, "loginThrottle", mock(LoginThrottle.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void registrationDefaultsToAClientAccountAndHashesOnTheExecutor() throws Exception {
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"username":"client","password":"secret123","fullName":"Client",
+                                 "email":"client@example.com"}
+                                """))
+                .andExpect(status().isCreated())
+                // Format AuthResponse du client Angular
+                .andExpect(jsonPath("$.roles[0]").value("ROLE_CLIENT"))
+                .andExpect(jsonPath("$.refreshToken").value("refresh"))
+                .andExpect(jsonPath("$.tokenType").value("Bearer"));
+
+        verify(hashingExecutor).submitAndWait(any());
+        ArgumentCaptor<User> stored = ArgumentCaptor.forClass(User.class);
+        verify(userRepository).saveAndFlush(stored.capture());
+        assertThat(stored.getValue().getRole()).isEqualTo(Role.ROLE_CLIENT);
+    }
+
+    @Test
+    void refreshTokenReturnsANewPairForTheSameSession() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        when(refreshTokenService.rotate("ancien")).thenReturn(Optional.of(new RefreshTokenService.Rotation(
+                new RefreshTokenService.IssuedToken("nouveau", "session"), user)));
+        when(jwtService.generateAccessToken(user, "session")).thenReturn("acces");
+
+        mockMvc.perform(post("/api/auth/refresh-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"ancien\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").value("acces"))
+                .andExpect(jsonPath("$.refreshToken").value("nouveau"))
+                .andExpect(jsonPath("$.tokenType").value("Bearer"));
+    }
+
+    @Test
+    void refreshTokenRejectsAnInvalidOrReusedToken() throws Exception {
+        when(refreshTokenService.rotate("reutilise")).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/auth/refresh-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"reutilise\"}"))
+                .andExpect(status().isUnauthorized());
+        verify(jwtService, never()).generateAccessToken(any(), any());
+    }
+
+    @Test
+    void logoutRevokesTheSessionWithoutRevealingWhetherTheTokenWasValid() throws Exception {
+        mockMvc.perform(post("/api/auth/logout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"inconnu\"}"))
+                .andExpect(status().isNoContent());
+        verify(refreshTokenService).revoke("inconnu");
+    }
+}
@@ -0,0 +1,180 @@
+package com.bourhym.exambackend.web;
+
+import com.bourhym.exambackend.entities.IdempotencyRecord;
+import com.bourhym.exambackend.repositories.IdempotencyRecordRepository;
+import com.bourhym.exambackend.services.IdempotencyStore;
+import com.bourhym.exambackend.utils.Sha256;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rejeu, empreinte de requête, requêtes simultanées et expiration des clés d'idempotence,
+ * avec la table des clés sur H2. Les réservations sont validées hors de toute transaction de test.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(IdempotencyStore.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyFilterTest {
+
+    private static final String PATH = "/api/repayments/monthly";
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    private final IdempotencyFilter filter = new IdempotencyFilter();
+    private final CountingServlet servlet = new CountingServlet();
+    private String key;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(filter, "idempotencyStore", idempotencyStore);
+        ReflectionTestUtils.setField(filter, "maxBodyBytes", 1024);
+        key = UUID.randomUUID().toString();
+    }
+
+    @Test
+    void replaysTheStoredResponseWithoutCallingTheControllerAgain() throws Exception {
+        MockHttpServletResponse first = perform(jsonRequest("{\"amount\":100}"));
+        MockHttpServletResponse replayed = perform(jsonRequest("{\"amount\":100}"));
+
+        assertThat(first.getStatus()).isEqualTo(201);
+        assertThat(replayed.getStatus()).isEqualTo(201);
+        assertThat(replayed.getContentAsString()).isEqualTo(first.getContentAsString());
+        assertThat(replayed.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(servlet.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsTheSameKeyWithADifferentPayload() throws Exception {
+        perform(jsonRequest("{\"amount\":100}"));
+        MockHttpServletResponse response = perform(jsonRequest("{\"amount\":200}"));
+
+        assertThat(response.getStatus()).isEqualTo(422);
+        assertThat(servlet.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void aConcurrentRequestWithTheSameKeyGetsAConflict() throws Exception {
+        servlet.entered = new CountDownLatch(1);
+        servlet.release = new CountDownLatch(1);
+        CompletableFuture<MockHttpServletResponse> inFlight = CompletableFuture.supplyAsync(() -> {
+            try {
+                return perform(jsonRequest("{\"amount\":100}"));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(servlet.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletResponse concurrent = perform(jsonRequest("{\"amount\":100}"));
+        servlet.release.countDown();
+
+        assertThat(concurrent.getStatus()).isEqualTo(409);
+        assertThat(inFlight.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(201);
+        assertThat(servlet.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void anExpiredKeyIsExecutedAgain() throws Exception {
+        // Enregistrement expiré d'une requête différente : ni rejoué ni rejeté
+        recordRepository.save(new IdempotencyRecord(Sha256.hexOfParts("", "POST", PATH, key), "autre", true, 201,
+                null, null, new Date(System.currentTimeMillis() - 1000)));
+
+        MockHttpServletResponse response = perform(jsonRequest("{\"amount\":100}"));
+
+        assertThat(response.getStatus()).isEqualTo(201);
+        assertThat(servlet.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void formParametersRemainReadableByTheController() throws Exception {
+        MockHttpServletRequest request = request();
+        request.setContentType(MediaType.APPLICATION_FORM_URLENCODED_VALUE);
+        request.addParameter("creditId", "42");
+
+        MockHttpServletResponse response = perform(request);
+
+        assertThat(response.getStatus()).isEqualTo(201);
+        assertThat(servlet.lastCreditId).isEqualTo("42");
+    }
+
+    @Test
+    void rejectsOversizedBodies() throws Exception {
+        MockHttpServletResponse response = perform(jsonRequest("x".repeat(2048)));
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(servlet.calls.get()).isZero();
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+        return response;
+    }
+
+    private MockHttpServletRequest jsonRequest(String body) {
+        MockHttpServletRequest request = request();
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", PATH);
+        request.addHeader(IdempotencyFilter.HEADER, key);
+        return request;
+    }
+
+    // Contrôleur simulé : compte ses appels et peut être retenu pour simuler une requête en cours
+    private static final class CountingServlet extends HttpServlet {
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile CountDownLatch entered;
+        private volatile CountDownLatch release;
+        private volatile String lastCreditId;
+
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            int call = calls.incrementAndGet();
+            lastCreditId = request.getParameter("creditId");
+            request.getInputStream().readAllBytes();
+            if (entered != null) {
+                entered.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            response.setStatus(201);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"id\":" + call + "}");
+        }
+    }
+}